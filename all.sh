@@ -18,9 +18,10 @@ BASEDIR=`cd "$PRGDIR" >/dev/null; pwd`
 
 mkdir -p $BASEDIR/output
 
-$BASEDIR/run.sh -basedir $BASEDIR -configfile config/config-esnet.xml
-$BASEDIR/run.sh -basedir $BASEDIR -configfile config/config-manlan.xml
-$BASEDIR/run.sh -basedir $BASEDIR -configfile config/config-caltech.xml
-$BASEDIR/run.sh -basedir $BASEDIR -configfile config/config-umich.xml
-$BASEDIR/run.sh -basedir $BASEDIR -configfile config/config-wix.xml
-
+# Translate all domains within a single JVM.
+$BASEDIR/run.sh -basedir $BASEDIR \
+	-configfile config/config-esnet.xml \
+	-configfile config/config-manlan.xml \
+	-configfile config/config-caltech.xml \
+	-configfile config/config-umich.xml \
+	-configfile config/config-wix.xml
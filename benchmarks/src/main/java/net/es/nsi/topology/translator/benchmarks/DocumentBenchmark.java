@@ -0,0 +1,73 @@
+package net.es.nsi.topology.translator.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import javax.xml.bind.JAXBException;
+import javax.xml.parsers.ParserConfigurationException;
+import net.es.nsi.topology.translator.http.Decoder;
+import net.es.nsi.topology.translator.http.Encoder;
+import net.es.nsi.topology.translator.jaxb.NmlParser;
+import net.es.nsi.topology.translator.jaxb.nml.ObjectFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+
+/**
+ * Benchmarks conversion of the NML topology document for publication:
+ * marshalling to DOM and XML, and the gzip/base64 encoding of DDS document
+ * contents.
+ *
+ * @author hacksaw
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g" })
+public class DocumentBenchmark {
+    private static final ObjectFactory FACTORY = new ObjectFactory();
+
+    /**
+     * The NML topology as DOM and encoded DDS contents.
+     */
+    @State(Scope.Benchmark)
+    public static class DocumentState {
+        public Document dom;
+        public String encoded;
+
+        @Setup(Level.Trial)
+        public void setup(TopologyState topology) throws JAXBException, ParserConfigurationException, IOException {
+            dom = NmlParser.getInstance().jaxb2Dom(FACTORY.createTopology(topology.nml));
+            encoded = Encoder.encode(dom);
+        }
+    }
+
+    @Benchmark
+    public Document jaxb2Dom(TopologyState topology) throws JAXBException, ParserConfigurationException {
+        return NmlParser.getInstance().jaxb2Dom(FACTORY.createTopology(topology.nml));
+    }
+
+    @Benchmark
+    public String jaxb2Xml(TopologyState topology) throws JAXBException {
+        return NmlParser.getInstance().jaxb2Xml(FACTORY.createTopology(topology.nml));
+    }
+
+    @Benchmark
+    public String encode(DocumentState state) throws IOException {
+        return Encoder.encode(state.dom);
+    }
+
+    @Benchmark
+    public Document decode(DocumentState state) throws IOException {
+        return Decoder.decode(state.encoded);
+    }
+}
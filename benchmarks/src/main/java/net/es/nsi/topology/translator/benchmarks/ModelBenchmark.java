@@ -0,0 +1,108 @@
+package net.es.nsi.topology.translator.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.bind.JAXBException;
+import net.es.nsi.topology.translator.jaxb.configuration.NmwgParserType;
+import net.es.nsi.topology.translator.jaxb.nml.NmlTopologyType;
+import net.es.nsi.topology.translator.model.CtrlDomain;
+import net.es.nsi.topology.translator.model.CtrlLink;
+import net.es.nsi.topology.translator.model.NmlTranslator;
+import net.es.nsi.topology.translator.model.NmwgTopology;
+import net.es.nsi.topology.translator.model.ServiceDefinitionMatcher;
+import net.es.nsi.topology.translator.utilities.NsiUtilities;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks the NMWG model: identifier normalization, parsing and
+ * conversion of the NMWG document, service definition matching, and
+ * translation to NML.
+ *
+ * @author hacksaw
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g" })
+public class ModelBenchmark {
+
+    /**
+     * Selects the NMWG parser.
+     */
+    @State(Scope.Benchmark)
+    public static class ParserState {
+        @Param({"stax", "jaxb"})
+        public String parser;
+
+        public NmwgTopology nmwg;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            nmwg = new NmwgTopology(NmwgParserType.fromValue(parser));
+        }
+    }
+
+    /**
+     * A translator holding the previous translation of the topology.
+     */
+    @State(Scope.Thread)
+    public static class TranslatorState {
+        @Param({"false", "true"})
+        public boolean parallel;
+
+        public NmlTranslator translator;
+
+        @Setup(Level.Trial)
+        public void setup(TopologyState topology) throws DatatypeConfigurationException {
+            translator = new NmlTranslator(parallel);
+            translator.translate(topology.domain, TopologyState.LIFETIME, topology.serviceDefinitions, topology.peerings);
+        }
+    }
+
+    @Benchmark
+    public void normalizeId(TopologyState topology, Blackhole bh) {
+        for (String id : topology.linkIds) {
+            bh.consume(NsiUtilities.normalizeId(id));
+        }
+    }
+
+    @Benchmark
+    public CtrlDomain parse(TopologyState topology, ParserState state) throws JAXBException {
+        return state.nmwg.parse(new ByteArrayInputStream(topology.nmwg));
+    }
+
+    @Benchmark
+    public void match(TopologyState topology, Blackhole bh) {
+        ServiceDefinitionMatcher matcher = new ServiceDefinitionMatcher(topology.serviceDefinitions);
+        for (CtrlLink link : topology.domain.getLinkMap().values()) {
+            BitSet matches = matcher.match(link.getId());
+            bh.consume(matches);
+        }
+    }
+
+    @Benchmark
+    public NmlTopologyType translate(TopologyState topology, TranslatorState state) throws DatatypeConfigurationException {
+        state.translator.reset();
+        return state.translator.translate(topology.domain, TopologyState.LIFETIME, topology.serviceDefinitions, topology.peerings);
+    }
+
+    @Benchmark
+    public NmlTopologyType translateUnchanged(TopologyState topology, TranslatorState state) throws DatatypeConfigurationException {
+        return state.translator.translate(topology.domain, TopologyState.LIFETIME, topology.serviceDefinitions, topology.peerings);
+    }
+}
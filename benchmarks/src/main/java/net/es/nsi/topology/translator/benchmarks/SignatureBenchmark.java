@@ -0,0 +1,138 @@
+package net.es.nsi.topology.translator.benchmarks;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import net.es.nsi.topology.translator.Properties;
+import net.es.nsi.topology.translator.jaxb.NmlParser;
+import net.es.nsi.topology.translator.jaxb.configuration.KeyStoreType;
+import net.es.nsi.topology.translator.jaxb.configuration.ObjectFactory;
+import net.es.nsi.topology.translator.jaxb.configuration.SignatureType;
+import net.es.nsi.topology.translator.signing.SignatureFactory;
+import net.es.nsi.topology.translator.signing.SignatureVerifier;
+import net.es.nsi.topology.translator.signing.SigningService;
+import net.es.nsi.topology.translator.signing.Validate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+
+/**
+ * Benchmarks generation and validation of external signatures on the NML
+ * topology document.  A keystore holding a new RSA key is created with
+ * keytool for each trial.  The signature reference is dereferenced over
+ * HTTP, so requests are sent through a local proxy serving a fixed
+ * document to keep the network out of the measurement.
+ *
+ * @author hacksaw
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g" })
+public class SignatureBenchmark {
+    private static final String ALIAS = "benchmark";
+    private static final String PASSWORD = "changeit";
+
+    /**
+     * The signing key, the NML document and a signature on it.
+     */
+    @State(Scope.Benchmark)
+    public static class SignatureState {
+        public Path directory;
+        public HttpServer proxy;
+        public SigningService signingService;
+        public Document dom;
+        public Document signature;
+
+        @Setup(Level.Trial)
+        public void setup(TopologyState topology) throws Exception {
+            // Create a keystore with a new RSA key.
+            directory = Files.createTempDirectory("benchmark");
+            File keystore = directory.resolve("keystore.jks").toFile();
+            String keytool = System.getProperty("java.home") + File.separator + "bin" + File.separator + "keytool";
+            Process process = new ProcessBuilder(keytool, "-genkeypair", "-alias", ALIAS,
+                    "-keyalg", "RSA", "-keysize", "2048", "-dname", "CN=benchmark",
+                    "-keystore", keystore.getAbsolutePath(), "-storetype", "JKS",
+                    "-storepass", PASSWORD, "-keypass", PASSWORD).inheritIO().start();
+            if (process.waitFor() != 0) {
+                throw new IOException("keytool failed to create " + keystore);
+            }
+
+            // SignatureFactory reads the keystore from system properties.
+            System.setProperty(Properties.SYSTEM_PROPERTY_SSL_KEYSTORE, keystore.getAbsolutePath());
+            System.setProperty(Properties.SYSTEM_PROPERTY_SSL_KEYSTORE_PASSWORD, PASSWORD);
+            System.setProperty(Properties.SYSTEM_PROPERTY_SSL_KEYSTORE_TYPE, "JKS");
+
+            // Serve the signature reference locally.
+            byte[] reference = "<html/>".getBytes(StandardCharsets.UTF_8);
+            proxy = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            proxy.createContext("/", exchange -> {
+                exchange.sendResponseHeaders(200, reference.length);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(reference);
+                }
+            });
+            proxy.start();
+            System.setProperty("http.proxyHost", "127.0.0.1");
+            System.setProperty("http.proxyPort", Integer.toString(proxy.getAddress().getPort()));
+
+            ObjectFactory factory = new ObjectFactory();
+            KeyStoreType keyStoreType = factory.createKeyStoreType();
+            keyStoreType.setFile(keystore.getAbsolutePath());
+            keyStoreType.setPassword(PASSWORD);
+            keyStoreType.setType("JKS");
+            SignatureType signatureType = factory.createSignatureType();
+            signatureType.setSign(true);
+            signatureType.setAlias(ALIAS);
+            signatureType.setKeyStore(keyStoreType);
+            signingService = SigningService.getInstance(signatureType);
+
+            dom = NmlParser.getInstance().jaxb2Dom(new net.es.nsi.topology.translator.jaxb.nml.ObjectFactory().createTopology(topology.nml));
+            signature = signingService.generateExternalSignature(dom);
+        }
+
+        @TearDown(Level.Trial)
+        public void teardown() throws IOException {
+            proxy.stop(0);
+            Files.deleteIfExists(directory.resolve("keystore.jks"));
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    @Benchmark
+    public Document generateExternalSignature(SignatureState state) throws Exception {
+        return new SignatureFactory().generateExternalSignature(state.dom, ALIAS);
+    }
+
+    @Benchmark
+    public Document signingService(SignatureState state) throws Exception {
+        return state.signingService.generateExternalSignature(state.dom);
+    }
+
+    @Benchmark
+    public boolean validateExternal(SignatureState state) throws Exception {
+        return Validate.validateExternal(state.dom, state.signature);
+    }
+
+    @Benchmark
+    public boolean validateExternalCached(SignatureState state) throws Exception {
+        return SignatureVerifier.getInstance().validateExternal(state.dom, state.signature);
+    }
+}
@@ -0,0 +1,63 @@
+package net.es.nsi.topology.translator.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import net.es.nsi.topology.translator.generator.NmwgGenerator;
+import net.es.nsi.topology.translator.jaxb.configuration.NmwgParserType;
+import net.es.nsi.topology.translator.jaxb.configuration.PeeringType;
+import net.es.nsi.topology.translator.jaxb.configuration.ServiceDefinitionType;
+import net.es.nsi.topology.translator.jaxb.nml.NmlTopologyType;
+import net.es.nsi.topology.translator.model.CtrlDomain;
+import net.es.nsi.topology.translator.model.NmlTranslator;
+import net.es.nsi.topology.translator.model.NmwgTopology;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The topology shared by the benchmarks in small (100 links), medium
+ * (10,000 links) and very large (100,000 links) sizes.  Other sizes can be
+ * selected on the command line, for example "-p links=1000000".  The
+ * topology is a single generated domain with the default link mix.
+ *
+ * @author hacksaw
+ */
+@State(Scope.Benchmark)
+public class TopologyState {
+    // Lifetime of generated documents in seconds.
+    public static final long LIFETIME = 5184000;
+
+    @Param({"100", "10000", "100000"})
+    public int links;
+
+    // The NMWG document and the identifiers of its links.
+    public byte[] nmwg;
+    public List<String> linkIds;
+
+    // The parsed domain and translation configuration.
+    public CtrlDomain domain;
+    public List<ServiceDefinitionType> serviceDefinitions;
+    public Map<String, PeeringType> peerings;
+
+    // The translated NML topology.
+    public NmlTopologyType nml;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        NmwgGenerator generator = new NmwgGenerator().withLinks(links);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(links * 800 + 512);
+        generator.writeTopology(0, out);
+        nmwg = out.toByteArray();
+        linkIds = generator.getLinkIds(0);
+
+        domain = new NmwgTopology(NmwgParserType.STAX).parse(new ByteArrayInputStream(nmwg));
+        serviceDefinitions = generator.getServiceDefinitions();
+        peerings = new HashMap<>();
+        nml = new NmlTranslator().translate(domain, LIFETIME, serviceDefinitions, peerings);
+    }
+}
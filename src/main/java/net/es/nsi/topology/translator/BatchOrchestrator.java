@@ -0,0 +1,137 @@
+package net.es.nsi.topology.translator;
+
+import com.google.common.base.Optional;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import net.es.nsi.topology.translator.metrics.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the NMWG to NML translation workflow for a list of configuration files
+ * (one per domain) within a single process.  Each domain is orchestrated on a
+ * bounded pool of threads so the JAXB parser singletons and JVM warm-up are
+ * shared across all domains.
+ *
+ * @author hacksaw
+ */
+public class BatchOrchestrator {
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    private final List<Orchestrator> orchestrators = new ArrayList<>();
+    private final int threads;
+
+    /**
+     * Create a batch orchestrator for the provided configuration files.
+     *
+     * @param baseDir Base directory for relative file name in configFiles and defaults.
+     * @param configFiles The list of runtime configuration files to orchestrate.
+     * @param threads The maximum number of domains to orchestrate concurrently.
+     */
+    public BatchOrchestrator(String baseDir, List<String> configFiles, int threads) {
+        if (configFiles == null || configFiles.isEmpty()) {
+            throw new IllegalArgumentException("No configuration files provided.");
+        }
+
+        if (threads < 1) {
+            throw new IllegalArgumentException("Invalid thread count " + threads);
+        }
+
+        for (String configFile : configFiles) {
+            orchestrators.add(new Orchestrator(baseDir, configFile));
+        }
+
+        this.threads = Math.min(threads, configFiles.size());
+    }
+
+    /**
+     * Invoke the workflow orchestration for each configuration file and wait
+     * for all of them to complete.  A failure in one domain does not affect
+     * the processing of the remaining domains.
+     *
+     * @return The per-domain results in configuration file order.
+     */
+    public List<OrchestratorResult> orchestrate() {
+        ExecutorService executor = Executors.newFixedThreadPool(threads,
+                new ThreadFactoryBuilder().setNameFormat("orchestrator-%d").build());
+
+        try {
+            List<Future<OrchestratorResult>> futures = new ArrayList<>();
+            for (final Orchestrator orchestrator : orchestrators) {
+                futures.add(executor.submit(() -> run(orchestrator)));
+            }
+
+            List<OrchestratorResult> results = new ArrayList<>();
+            for (int i = 0; i < futures.size(); i++) {
+                String configFile = orchestrators.get(i).getConfigFile();
+                try {
+                    results.add(futures.get(i).get());
+                }
+                catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    results.add(new OrchestratorResult(configFile, false, Optional.of("Interrupted"), 0));
+                }
+                catch (ExecutionException ex) {
+                    results.add(new OrchestratorResult(configFile, false, Optional.fromNullable(ex.getCause().getMessage()), 0));
+                }
+            }
+
+            summarize(results);
+            Metrics.getInstance().export();
+            return Collections.unmodifiableList(results);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Orchestrate a single domain capturing the outcome.
+     *
+     * @param orchestrator The orchestrator for the domain.
+     * @return The result of the orchestration.
+     */
+    private OrchestratorResult run(Orchestrator orchestrator) {
+        long start = System.nanoTime();
+        try {
+            orchestrator.orchestrate();
+            return new OrchestratorResult(orchestrator.getConfigFile(), true,
+                    Optional.<String>absent(), elapsed(start));
+        }
+        catch (Exception ex) {
+            log.error("Orchestration failed for " + orchestrator.getConfigFile(), ex);
+            return new OrchestratorResult(orchestrator.getConfigFile(), false,
+                    Optional.of(Optional.fromNullable(ex.getMessage()).or(ex.getClass().getName())), elapsed(start));
+        }
+    }
+
+    private static long elapsed(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    /**
+     * Log the per-domain success/failure summary.
+     *
+     * @param results The results to summarize.
+     */
+    private void summarize(List<OrchestratorResult> results) {
+        int failed = 0;
+        for (OrchestratorResult result : results) {
+            if (result.isSuccess()) {
+                log.info("Batch summary: SUCCESS " + result.getConfigFile() + " (" + result.getElapsed() + " ms)");
+            }
+            else {
+                failed++;
+                log.error("Batch summary: FAILURE " + result.getConfigFile() + " (" + result.getElapsed() + " ms), error=" + result.getError().or("unknown"));
+            }
+        }
+
+        log.info("Batch summary: " + (results.size() - failed) + " of " + results.size() + " domains succeeded.");
+    }
+}
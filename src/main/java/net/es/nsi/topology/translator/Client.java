@@ -1,13 +1,20 @@
 package net.es.nsi.topology.translator;
 
+import com.google.common.base.Strings;
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.security.KeyManagementException;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
 import java.security.UnrecoverableKeyException;
 import java.security.cert.CertificateException;
+import java.util.Optional;
 import javax.xml.bind.JAXBException;
 import javax.xml.datatype.DatatypeConfigurationException;
+import net.es.nsi.topology.translator.http.RestClientRegistry;
+import net.es.nsi.topology.translator.jfr.FlightRecorder;
+import net.es.nsi.topology.translator.jfr.FlightRecording;
+import net.es.nsi.topology.translator.metrics.Metrics;
 import org.apache.commons.cli.ParseException;
 import org.apache.log4j.xml.DOMConfigurator;
 import org.slf4j.Logger;
@@ -47,6 +54,48 @@ public class Client {
             return;
         }
 
+        // Record the run with the flight recorder, which writes the
+        // recording when it is stopped as we exit.
+        Optional<FlightRecording> recording = Optional.empty();
+        if (!Strings.isNullOrEmpty(options.getJfr())) {
+            recording = FlightRecorder.start(Paths.get(options.getJfr()));
+        }
+        final Optional<FlightRecording> jfr = recording;
+
+        // In daemon mode we stay resident and refresh all domains on a
+        // schedule until the process is terminated.
+        if (options.isDaemon()) {
+            BatchOrchestrator batch = new BatchOrchestrator(options.getBasedir(), options.getConfigfiles(), options.getThreads());
+            final DaemonOrchestrator daemon = new DaemonOrchestrator(batch, options.getInterval(), options.getJitter());
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                daemon.stop();
+                jfr.ifPresent(FlightRecording::stop);
+                RestClientRegistry.getInstance().closeAll();
+            }, "daemon-shutdown"));
+            daemon.start();
+            try {
+                daemon.await();
+            }
+            catch (InterruptedException ex) {
+                log.error("Exiting: daemon interrupted.");
+            }
+            return;
+        }
+
+        // Multiple configuration files are orchestrated concurrently within
+        // this process.
+        if (options.getConfigfiles().size() > 1) {
+            BatchOrchestrator batch = new BatchOrchestrator(options.getBasedir(), options.getConfigfiles(), options.getThreads());
+            try {
+                batch.orchestrate();
+            }
+            finally {
+                jfr.ifPresent(FlightRecording::stop);
+                RestClientRegistry.getInstance().closeAll();
+            }
+            return;
+        }
+
         // Orchestrate the primary uPA NMWG to NML workflow.
         Orchestrator orchestrator = new Orchestrator(options.getBasedir(), options.getConfigfile());
         try {
@@ -54,5 +103,10 @@ public class Client {
         } catch (JAXBException | IOException | DatatypeConfigurationException | IllegalArgumentException | KeyStoreException | NoSuchAlgorithmException | CertificateException | KeyManagementException | UnrecoverableKeyException ex) {
             log.error("Exiting: Orchestration failed.", ex.getMessage());
         }
+        finally {
+            Metrics.getInstance().export();
+            jfr.ifPresent(FlightRecording::stop);
+            RestClientRegistry.getInstance().closeAll();
+        }
     }
 }
@@ -43,6 +43,9 @@ public class Configuration {
     private final String mappingFile;
     private final String topologyFile;
 
+    // Directory for the NMWG snapshot cache.
+    private final Optional<String> cacheDirectory;
+
     // Runtime configuration of the HTTP client.
     private final HttpsConfig httpsConfig;
 
@@ -82,6 +85,13 @@ public class Configuration {
             nsaFile = pb.getRealPath(conf.getNsa());
             mappingFile = pb.getAbsolutePath(conf.getMapping());
             topologyFile = pb.getAbsolutePath(conf.getTopology());
+
+            if (conf.getCache() != null && !Strings.isNullOrEmpty(conf.getCache().getDirectory())) {
+                cacheDirectory = Optional.of(pb.getAbsolutePath(conf.getCache().getDirectory()));
+            }
+            else {
+                cacheDirectory = Optional.absent();
+            }
         }
         catch (IOException ex) {
             log.error("Could not get absolute path for file " + ex.getMessage());
@@ -92,6 +102,7 @@ public class Configuration {
         if (conf.getSignature() == null) {
             SignatureType sig = factory.createSignatureType();
             sig.setSign(Boolean.FALSE);
+            conf.setSignature(sig);
         }
 
         SignatureType signature = conf.getSignature();
@@ -118,7 +129,7 @@ public class Configuration {
         }
 
         // Normalize TLS security configuration.
-        httpsConfig = new HttpsConfig(basedir, conf.getClient());
+        httpsConfig = new HttpsConfig(basedir, conf.getClient(), conf.getTransport());
 
         // Now parameters for converting NMWG to NML.
         lifeTime = (conf.getLifeTime() == 0) ? DEFAULT_LIFETIME : conf.getLifeTime();
@@ -184,7 +195,31 @@ public class Configuration {
      * @return DDS server URL.
      */
     public String getDds() {
-        return conf.getDds();
+        return conf.getDds() == null ? null : conf.getDds().getValue();
+    }
+
+    /**
+     * Should documents with content identical to the last published copy
+     * be skipped?
+     *
+     * @return true if identical documents are not published.
+     */
+    public boolean isSkipIdentical() {
+        return conf.getDds() != null && conf.getDds().isSkipIdentical();
+    }
+
+    /**
+     * Get the time before expiry of a published document when it must be
+     * republished even if unchanged.
+     *
+     * @return the refresh window in seconds.
+     */
+    public long getDdsRefreshWindow() {
+        if (conf.getDds() == null) {
+            return 0;
+        }
+
+        return conf.getDds().getRefreshWindow();
     }
 
     /**
@@ -223,6 +258,53 @@ public class Configuration {
         return topologyFile;
     }
 
+    /**
+     * Location of the directory for caching NMWG topology snapshots.
+     *
+     * @return the cacheDirectory if caching is configured.
+     */
+    public Optional<String> getCacheDirectory() {
+        return cacheDirectory;
+    }
+
+    /**
+     * Get the maximum age of a cached NMWG snapshot that can be used when
+     * the NMWG server cannot be reached.
+     *
+     * @return the maxStale in seconds.
+     */
+    public long getMaxStale() {
+        if (conf.getCache() == null) {
+            return 0;
+        }
+
+        return conf.getCache().getMaxStale();
+    }
+
+    /**
+     * Should translation and publication be skipped when the inputs are
+     * unchanged since the last successful run?
+     *
+     * @return true if short-circuit is enabled.
+     */
+    public boolean isShortCircuit() {
+        return conf.getCache() != null && conf.getCache().isShortCircuit();
+    }
+
+    /**
+     * Get the time before document expiry when documents must be
+     * republished even if the inputs have not changed.
+     *
+     * @return the refreshWindow in seconds.
+     */
+    public long getRefreshWindow() {
+        if (conf.getCache() == null) {
+            return 0;
+        }
+
+        return conf.getCache().getRefreshWindow();
+    }
+
     /**
      * Get the service definition used to convert NMWG to NML.
      *
@@ -0,0 +1,126 @@
+package net.es.nsi.topology.translator;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import net.es.nsi.topology.translator.http.RestClientRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the translator resident and periodically re-runs the NMWG to NML
+ * workflow for each configured domain.  Parsers, HTTP clients and keystores
+ * loaded during the first cycle remain warm for all following cycles.
+ *
+ * Each cycle is scheduled a fixed interval after the previous one completes,
+ * plus a random jitter to avoid all translators in a deployment hitting the
+ * topology and DDS servers at the same instant.
+ *
+ * @author hacksaw
+ */
+public class DaemonOrchestrator {
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    private final BatchOrchestrator batch;
+    private final long interval;
+    private final long jitter;
+    private final Random random = new Random();
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    /**
+     * Create a daemon orchestrator for the provided batch of domains.
+     *
+     * @param batch The batch of domains to orchestrate on each cycle.
+     * @param interval Time in seconds between the end of one cycle and the start of the next.
+     * @param jitter Maximum random time in seconds added to each interval.
+     */
+    public DaemonOrchestrator(BatchOrchestrator batch, long interval, long jitter) {
+        if (interval < 1) {
+            throw new IllegalArgumentException("Invalid refresh interval " + interval);
+        }
+
+        if (jitter < 0) {
+            throw new IllegalArgumentException("Invalid refresh jitter " + jitter);
+        }
+
+        this.batch = batch;
+        this.interval = interval;
+        this.jitter = jitter;
+        this.scheduler = new ScheduledThreadPoolExecutor(1,
+                new ThreadFactoryBuilder().setNameFormat("daemon-%d").build());
+
+        // A pending cycle must not run, or hold up shutdown, once stopped.
+        this.scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    /**
+     * Start the refresh cycles with the first one running immediately.
+     */
+    public void start() {
+        log.info("Starting daemon mode, interval=" + interval + "s, jitter=" + jitter + "s");
+        scheduler.execute(this::cycle);
+    }
+
+    /**
+     * Run a single refresh cycle and schedule the next one.
+     */
+    private void cycle() {
+        try {
+            batch.orchestrate();
+        }
+        catch (Exception ex) {
+            // Never let a failed cycle stop the schedule.
+            log.error("Refresh cycle failed.", ex);
+        }
+
+        RestClientRegistry.getInstance().logPoolStats();
+
+        if (!scheduler.isShutdown()) {
+            long delay = TimeUnit.SECONDS.toMillis(interval);
+            if (jitter > 0) {
+                delay += (long) (random.nextDouble() * TimeUnit.SECONDS.toMillis(jitter));
+            }
+
+            try {
+                scheduler.schedule(this::cycle, delay, TimeUnit.MILLISECONDS);
+                log.info("Next refresh cycle in " + delay + " ms");
+            }
+            catch (RejectedExecutionException ex) {
+                // Stopped while this cycle was completing.
+                log.info("Daemon stopped, no further refresh cycles scheduled.");
+            }
+        }
+    }
+
+    /**
+     * Stop scheduling refresh cycles, waiting for any running cycle to complete.
+     */
+    public void stop() {
+        log.info("Stopping daemon mode.");
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(5, TimeUnit.MINUTES)) {
+                scheduler.shutdownNow();
+            }
+        }
+        catch (InterruptedException ex) {
+            scheduler.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        finally {
+            stopped.countDown();
+        }
+    }
+
+    /**
+     * Block the calling thread until the daemon has been stopped.
+     *
+     * @throws InterruptedException If the calling thread is interrupted.
+     */
+    public void await() throws InterruptedException {
+        stopped.await();
+    }
+}
@@ -0,0 +1,122 @@
+package net.es.nsi.topology.translator;
+
+import com.google.common.base.Optional;
+import com.google.common.io.BaseEncoding;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import net.es.nsi.topology.translator.model.CtrlDomain;
+import net.es.nsi.topology.translator.model.CtrlLink;
+
+/**
+ * Computes a digest over all inputs of the NMWG to NML translation: the
+ * normalized NMWG domain, the configuration file (service definitions,
+ * peerings, and output settings), and the NSA description file.  If the
+ * digest matches that of the last successful run the generated documents
+ * will be identical apart from their version and lifetime.
+ *
+ * @author hacksaw
+ */
+public class InputDigest {
+    private static final String ALGORITHM = "SHA-256";
+
+    private final MessageDigest md;
+
+    /**
+     * Create an empty digest.
+     *
+     * @throws NoSuchAlgorithmException If SHA-256 is not supported.
+     */
+    public InputDigest() throws NoSuchAlgorithmException {
+        md = MessageDigest.getInstance(ALGORITHM);
+    }
+
+    /**
+     * Add the normalized NMWG domain to the digest.  Links are added in
+     * identifier order so the digest does not depend on document order.
+     *
+     * @param domain The normalized NMWG domain.
+     * @return this digest.
+     */
+    public InputDigest add(CtrlDomain domain) {
+        update(domain.getId());
+
+        List<String> ids = new ArrayList<>(domain.getLinkIds());
+        Collections.sort(ids);
+        for (String id : ids) {
+            CtrlLink link = domain.getLink(id);
+            update(link.getOriginalId());
+            update(link.getId());
+            update(link.getRemoteLinkId());
+            update(link.getEncodingType());
+            update(link.getVlanRangeAvailability());
+            update(Boolean.toString(link.isVlanTranslation()));
+            update(link.getCapacity());
+            update(link.getMaximumReservableCapacity());
+            update(link.getMinimumReservableCapacity());
+            update(link.getGranularity());
+            update(link.getLinkType().name());
+        }
+
+        return this;
+    }
+
+    /**
+     * Add the contents of a file to the digest.
+     *
+     * @param file The file to add.
+     * @return this digest.
+     * @throws IOException If the file could not be read.
+     */
+    public InputDigest add(String file) throws IOException {
+        update(file);
+        try (InputStream is = new DigestInputStream(Files.newInputStream(Paths.get(file)), md)) {
+            byte[] buffer = new byte[8192];
+            while (is.read(buffer) != -1) {
+                // Digest is updated as the stream is read.
+            }
+        }
+
+        return this;
+    }
+
+    /**
+     * Complete the digest.
+     *
+     * @return The hex encoded digest value.
+     */
+    public String digest() {
+        return BaseEncoding.base16().lowerCase().encode(md.digest());
+    }
+
+    private void update(Optional<String> value) {
+        if (value.isPresent()) {
+            update(value.get());
+        }
+        else {
+            md.update((byte) 0);
+        }
+    }
+
+    private void update(String value) {
+        if (value == null) {
+            md.update((byte) 0);
+            return;
+        }
+
+        // Length prefix values so adjacent fields cannot run together.
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        md.update((byte) 1);
+        md.update(Integer.toString(bytes.length).getBytes(StandardCharsets.UTF_8));
+        md.update((byte) ':');
+        md.update(bytes);
+    }
+}
@@ -7,8 +7,13 @@ package net.es.nsi.topology.translator;
 
 import com.google.common.base.Strings;
 import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
 import org.apache.commons.cli.GnuParser;
@@ -23,23 +28,42 @@ import org.apache.commons.cli.ParseException;
  */
 public class Options {
     // Help line.
-    private static final String COMMAND_LINE = "java -jar translator.jar [-basedir <application directory>] [-configdir <configDir>] [-configfile <filename>] [-debug]";
+    private static final String COMMAND_LINE = "java -jar translator.jar [-basedir <application directory>] [-configdir <configDir>] [-configfile <filename>]... [-configglob <pattern>] [-threads <count>] [-daemon [-interval <seconds>] [-jitter <seconds>]] [-parallel] [-metrics <file>] [-jfr <file>] [-debug]";
 
     // Command line arguments.
     private static final String ARGNAME_BASEDIR = "basedir";
     private static final String ARGNAME_CONFIGDIR = "configdir";
     private static final String ARGNAME_CONFIGFILE = "configfile";
+    private static final String ARGNAME_CONFIGGLOB = "configglob";
+    private static final String ARGNAME_THREADS = "threads";
+    private static final String ARGNAME_DAEMON = "daemon";
+    private static final String ARGNAME_INTERVAL = "interval";
+    private static final String ARGNAME_JITTER = "jitter";
+    private static final String ARGNAME_PARALLEL = "parallel";
+    private static final String ARGNAME_METRICS = "metrics";
+    private static final String ARGNAME_JFR = "jfr";
     private static final String ARGNAME_DEBUG = "debug";
 
     // Default properties.
     private static final String DEFAULT_CONFIGDIR = "config/";
     private static final String DEFAULT_CONFIGFILE = "config.xml";
     private static final String DEFAULT_LOGF4J = "log4j.xml";
+    private static final int DEFAULT_THREADS = 8;
+    private static final long DEFAULT_INTERVAL = 3600;
+    private static final long DEFAULT_JITTER = 60;
 
     // Runtime values.
     private String basedir;
     private String configdir;
     private String configfile;
+    private List<String> configfiles;
+    private int threads;
+    private boolean daemon;
+    private long interval;
+    private long jitter;
+    private boolean parallel;
+    private String metrics;
+    private String jfr;
     private boolean debug;
 
     /**
@@ -67,10 +91,42 @@ public class Options {
             configdir = getConfigdir(cmd);
             System.setProperty(Properties.SYSTEM_PROPERTY_CONFIGDIR, configdir);
 
-            // See if the user overrode the default location of the configuration file.
-            configfile = getConfigFile(cmd);
+            // See if the user overrode the default location of the configuration
+            // file, or provided a list of configuration files for batch mode.
+            configfiles = getConfigFiles(cmd);
+            configfile = configfiles.get(0);
             System.setProperty(Properties.SYSTEM_PROPERTY_CONFIGFILE, configfile);
 
+            // The number of domains we will process concurrently in batch mode.
+            threads = getThreads(cmd);
+            System.setProperty(Properties.SYSTEM_PROPERTY_THREADS, Integer.toString(threads));
+
+            // Are we running as a long lived daemon with scheduled refresh?
+            daemon = getDaemon(cmd);
+            System.setProperty(Properties.SYSTEM_PROPERTY_DAEMON, Boolean.toString(daemon));
+
+            interval = getSeconds(cmd, ARGNAME_INTERVAL, Properties.SYSTEM_PROPERTY_INTERVAL, DEFAULT_INTERVAL, 1);
+            System.setProperty(Properties.SYSTEM_PROPERTY_INTERVAL, Long.toString(interval));
+
+            jitter = getSeconds(cmd, ARGNAME_JITTER, Properties.SYSTEM_PROPERTY_JITTER, DEFAULT_JITTER, 0);
+            System.setProperty(Properties.SYSTEM_PROPERTY_JITTER, Long.toString(jitter));
+
+            // Should links be translated in parallel?
+            parallel = getParallel(cmd);
+            System.setProperty(Properties.SYSTEM_PROPERTY_PARALLEL, Boolean.toString(parallel));
+
+            // Where to write pipeline metrics at the end of each run.
+            metrics = getFile(cmd, ARGNAME_METRICS, Properties.SYSTEM_PROPERTY_METRICS);
+            if (!Strings.isNullOrEmpty(metrics)) {
+                System.setProperty(Properties.SYSTEM_PROPERTY_METRICS, metrics);
+            }
+
+            // Where to write a flight recording of the run.
+            jfr = getFile(cmd, ARGNAME_JFR, Properties.SYSTEM_PROPERTY_JFR);
+            if (!Strings.isNullOrEmpty(jfr)) {
+                System.setProperty(Properties.SYSTEM_PROPERTY_JFR, jfr);
+            }
+
             // See if we need to enable protocol tracing.
             debug = getDebug(cmd);
             System.setProperty(Properties.SYSTEM_PROPERTY_DEBUG, Boolean.toString(debug));
@@ -99,10 +155,42 @@ public class Options {
         configdirOption.setRequired(false);
         options.addOption(configdirOption);
 
-        Option configfileOption = new Option(ARGNAME_CONFIGFILE, true, "Path to the translation configuration file.");
+        Option configfileOption = new Option(ARGNAME_CONFIGFILE, true, "Path to the translation configuration file (may be repeated for batch mode).");
         configfileOption.setRequired(false);
         options.addOption(configfileOption);
 
+        Option configglobOption = new Option(ARGNAME_CONFIGGLOB, true, "Glob pattern selecting configuration files in the configuration directory for batch mode (i.e. \"config-*.xml\").");
+        configglobOption.setRequired(false);
+        options.addOption(configglobOption);
+
+        Option threadsOption = new Option(ARGNAME_THREADS, true, "Maximum number of domains translated concurrently in batch mode (defaults to " + DEFAULT_THREADS + ").");
+        threadsOption.setRequired(false);
+        options.addOption(threadsOption);
+
+        Option daemonOption = new Option(ARGNAME_DAEMON, false, "If specified the translator stays resident and refreshes all domains on a schedule.");
+        daemonOption.setRequired(false);
+        options.addOption(daemonOption);
+
+        Option intervalOption = new Option(ARGNAME_INTERVAL, true, "Time in seconds between refresh cycles in daemon mode (defaults to " + DEFAULT_INTERVAL + ").");
+        intervalOption.setRequired(false);
+        options.addOption(intervalOption);
+
+        Option jitterOption = new Option(ARGNAME_JITTER, true, "Maximum random time in seconds added to each refresh interval (defaults to " + DEFAULT_JITTER + ").");
+        jitterOption.setRequired(false);
+        options.addOption(jitterOption);
+
+        Option parallelOption = new Option(ARGNAME_PARALLEL, false, "If specified NMWG links are translated to NML in parallel.");
+        parallelOption.setRequired(false);
+        options.addOption(parallelOption);
+
+        Option metricsOption = new Option(ARGNAME_METRICS, true, "Path of a Prometheus text file the pipeline metrics are written to after each run.");
+        metricsOption.setRequired(false);
+        options.addOption(metricsOption);
+
+        Option jfrOption = new Option(ARGNAME_JFR, true, "Path of a Java Flight Recorder file the run is recorded to, written on exit.");
+        jfrOption.setRequired(false);
+        options.addOption(jfrOption);
+
         Option debugOption = new Option(ARGNAME_DEBUG, false, "If specified enables debug tracing in Jersey.");
         debugOption.setRequired(false);
         options.addOption(debugOption);
@@ -168,17 +256,62 @@ public class Options {
     }
 
     /**
-     * Processes the "configfile" command line and system property option.
+     * Processes the "configfile" and "configglob" command line and system
+     * property options.  Multiple configuration files can be specified by
+     * repeating the "configfile" option, or by providing a glob pattern
+     * matched against the files in the configuration directory.
      *
      * @param cmd Commands entered by the user.
-     * @param configdir The application configuration directory.
-     * @return The configuration file path.
+     * @return The list of configuration file paths.
      * @throws IOException
      */
-    private String getConfigFile(CommandLine cmd) throws IOException {
-        String file = System.getProperty(Properties.SYSTEM_PROPERTY_CONFIGFILE);
-        file = cmd.getOptionValue(ARGNAME_CONFIGFILE, file);
+    private List<String> getConfigFiles(CommandLine cmd) throws IOException {
+        List<String> files = new ArrayList<>();
+
+        String[] values = cmd.getOptionValues(ARGNAME_CONFIGFILE);
+        if (values != null) {
+            for (String file : values) {
+                files.add(getConfigFile(file));
+            }
+        }
+
+        String glob = System.getProperty(Properties.SYSTEM_PROPERTY_CONFIGGLOB);
+        glob = cmd.getOptionValue(ARGNAME_CONFIGGLOB, glob);
+        if (!Strings.isNullOrEmpty(glob)) {
+            List<String> matches = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(Paths.get(configdir), glob)) {
+                for (Path path : stream) {
+                    if (Files.isRegularFile(path)) {
+                        matches.add(path.toRealPath().toString());
+                    }
+                }
+            }
+
+            if (matches.isEmpty()) {
+                System.err.println("Error: No configuration files match " + glob + " in " + configdir + "\n");
+                throw new IOException("No configuration files match " + glob);
+            }
+
+            // Keep the processing order stable between runs.
+            Collections.sort(matches);
+            files.addAll(matches);
+        }
+
+        if (files.isEmpty()) {
+            files.add(getConfigFile(System.getProperty(Properties.SYSTEM_PROPERTY_CONFIGFILE)));
+        }
+
+        return files;
+    }
 
+    /**
+     * Resolves a single configuration file path.
+     *
+     * @param file The configuration file specified by the user.
+     * @return The configuration file path.
+     * @throws IOException
+     */
+    private String getConfigFile(String file) throws IOException {
         Path path;
         if (Strings.isNullOrEmpty(file)) {
             path = Paths.get(basedir, DEFAULT_CONFIGFILE);
@@ -200,6 +333,116 @@ public class Options {
         return file;
     }
 
+    /**
+     * Processes the "threads" command line and system property option.
+     *
+     * @param cmd Commands entered by the user.
+     * @return The maximum number of concurrently processed domains.
+     * @throws ParseException If the value is not a positive integer.
+     */
+    private int getThreads(CommandLine cmd) throws ParseException {
+        String value = System.getProperty(Properties.SYSTEM_PROPERTY_THREADS);
+        value = cmd.getOptionValue(ARGNAME_THREADS, value);
+        if (Strings.isNullOrEmpty(value)) {
+            return DEFAULT_THREADS;
+        }
+
+        try {
+            int result = Integer.parseInt(value.trim());
+            if (result > 0) {
+                return result;
+            }
+        }
+        catch (NumberFormatException ex) {
+            // Fall through to the error below.
+        }
+
+        System.err.println("Error: Invalid thread count " + value + "\n");
+        throw new ParseException("Invalid thread count " + value);
+    }
+
+    /**
+     * Process the "daemon" command line and system property option.
+     *
+     * @param cmd Commands entered by the user.
+     * @return true if daemon mode is enabled, false otherwise.
+     */
+    private boolean getDaemon(CommandLine cmd) {
+        boolean sys = Boolean.parseBoolean(System.getProperty(Properties.SYSTEM_PROPERTY_DAEMON, "false"));
+        boolean com = cmd.hasOption(ARGNAME_DAEMON);
+        return (sys | com);
+    }
+
+    /**
+     * Process the "parallel" command line and system property option.
+     *
+     * @param cmd Commands entered by the user.
+     * @return true if parallel translation is enabled, false otherwise.
+     */
+    private boolean getParallel(CommandLine cmd) {
+        boolean sys = Boolean.parseBoolean(System.getProperty(Properties.SYSTEM_PROPERTY_PARALLEL, "false"));
+        boolean com = cmd.hasOption(ARGNAME_PARALLEL);
+        return (sys | com);
+    }
+
+    /**
+     * Processes a command line and system property option holding the path
+     * of an output file.  Relative paths are resolved against the base
+     * directory.
+     *
+     * @param cmd Commands entered by the user.
+     * @param argName The command line option name.
+     * @param property The equivalent system property.
+     * @return The path of the file, or null if the option is not specified.
+     */
+    private String getFile(CommandLine cmd, String argName, String property) {
+        String file = System.getProperty(property);
+        file = cmd.getOptionValue(argName, file);
+        if (Strings.isNullOrEmpty(file)) {
+            return null;
+        }
+
+        Path path = Paths.get(file);
+        if (!path.isAbsolute()) {
+            path = Paths.get(basedir, file);
+        }
+
+        return path.toString();
+    }
+
+    /**
+     * Processes a command line and system property option holding a time
+     * value in seconds.
+     *
+     * @param cmd Commands entered by the user.
+     * @param argName The command line option name.
+     * @param property The equivalent system property.
+     * @param defaultValue The value to use if the option is not specified.
+     * @param minimum The minimum accepted value.
+     * @return The time value in seconds.
+     * @throws ParseException If the value is not a valid number of seconds.
+     */
+    private long getSeconds(CommandLine cmd, String argName, String property, long defaultValue, long minimum) throws ParseException {
+        String value = System.getProperty(property);
+        value = cmd.getOptionValue(argName, value);
+        if (Strings.isNullOrEmpty(value)) {
+            return defaultValue;
+        }
+
+        try {
+            long result = Long.parseLong(value.trim());
+            if (result >= minimum) {
+                return result;
+            }
+        }
+        catch (NumberFormatException ex) {
+            // Fall through to the error below.
+        }
+
+        System.err.println("Error: Invalid " + argName + " value " + value + "\n");
+        throw new ParseException("Invalid " + argName + " value " + value);
+    }
+
     /**
      * Process the "debug" command line and system property option.
      *
@@ -288,6 +531,78 @@ public class Options {
         this.configfile = configfile;
     }
 
+    /**
+     * Get the list of configuration files to process.
+     *
+     * @return the configfiles
+     */
+    public List<String> getConfigfiles() {
+        return Collections.unmodifiableList(configfiles);
+    }
+
+    /**
+     * Get the maximum number of domains processed concurrently.
+     *
+     * @return the threads
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Is daemon mode enabled?
+     *
+     * @return the daemon
+     */
+    public boolean isDaemon() {
+        return daemon;
+    }
+
+    /**
+     * Get the time between refresh cycles in daemon mode.
+     *
+     * @return the interval in seconds.
+     */
+    public long getInterval() {
+        return interval;
+    }
+
+    /**
+     * Get the maximum random time added to each refresh interval.
+     *
+     * @return the jitter in seconds.
+     */
+    public long getJitter() {
+        return jitter;
+    }
+
+    /**
+     * Is parallel link translation enabled?
+     *
+     * @return the parallel
+     */
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    /**
+     * Get the file pipeline metrics are written to.
+     *
+     * @return the metrics file, or null if metrics are not written.
+     */
+    public String getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Get the file the run is recorded to by the Java Flight Recorder.
+     *
+     * @return the recording file, or null if the run is not recorded.
+     */
+    public String getJfr() {
+        return jfr;
+    }
+
     /**
      * Is debug enabled?
      *
@@ -3,14 +3,32 @@ package net.es.nsi.topology.translator;
 import com.google.common.base.Optional;
 import com.google.common.base.Strings;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.security.KeyManagementException;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
 import java.security.UnrecoverableKeyException;
 import java.security.cert.CertificateException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import javax.xml.bind.JAXBException;
 import javax.xml.datatype.DatatypeConfigurationException;
+import net.es.nsi.topology.translator.jaxb.DdsParser;
+import net.es.nsi.topology.translator.jaxb.NmlParser;
+import net.es.nsi.topology.translator.jaxb.NmwgParser;
+import net.es.nsi.topology.translator.jaxb.NsaParser;
+import net.es.nsi.topology.translator.jaxb.configuration.NmwgParserType;
 import net.es.nsi.topology.translator.jaxb.nml.NmlTopologyType;
+import net.es.nsi.topology.translator.metrics.Counter;
+import net.es.nsi.topology.translator.metrics.Metrics;
+import net.es.nsi.topology.translator.metrics.Stage;
+import net.es.nsi.topology.translator.model.CtrlDomain;
+import net.es.nsi.topology.translator.model.NmlTranslator;
+import net.es.nsi.topology.translator.model.NmwgSnapshotCache;
 import net.es.nsi.topology.translator.model.NmwgTopology;
 import net.es.nsi.topology.translator.model.NsaDocument;
 import net.es.nsi.topology.translator.utilities.NsiUtilities;
@@ -32,6 +50,14 @@ public class Orchestrator {
     private final String baseDir;
     private final String configFile;
 
+    // Digest of the inputs to the last successful run.
+    private OrchestratorState state;
+    private String stateKey;
+
+    // Retains the previous NML topology for incremental translation.
+    private final NmlTranslator translator = new NmlTranslator(
+            Boolean.parseBoolean(System.getProperty(Properties.SYSTEM_PROPERTY_PARALLEL, "false")));
+
     /**
      * Create an orchestrator using the provided configuration.
      *
@@ -43,6 +69,15 @@ public class Orchestrator {
         this.configFile = configFile;
     }
 
+    /**
+     * Get the configuration file driving this orchestrator.
+     *
+     * @return the configFile
+     */
+    public String getConfigFile() {
+        return configFile;
+    }
+
     /**
      * Invoke the workflow orchestration.
      *
@@ -57,6 +92,10 @@ public class Orchestrator {
      * @throws UnrecoverableKeyException
      */
     public void orchestrate() throws JAXBException, IOException, DatatypeConfigurationException, IllegalArgumentException, KeyStoreException, NoSuchAlgorithmException, CertificateException, KeyManagementException, UnrecoverableKeyException {
+        // The NSA description is always read so load its JAXB context in
+        // the background while the configuration is read.
+        NsaParser.getInstance().prefetch();
+
         // Read the configuration file.
         Configuration conf;
         try {
@@ -67,6 +106,20 @@ public class Orchestrator {
             throw ex;
         }
 
+        // Load the remaining JAXB contexts this configuration will need.
+        if (!Strings.isNullOrEmpty(conf.getTopologyFile()) || !Strings.isNullOrEmpty(conf.getDds())) {
+            NmlParser.getInstance().prefetch();
+        }
+
+        // Jersey marshals the DDS documents with the shared DDS context.
+        if (!Strings.isNullOrEmpty(conf.getDds())) {
+            DdsParser.getInstance().prefetch();
+        }
+
+        if (conf.getNmwg().getParser() == NmwgParserType.JAXB) {
+            NmwgParser.getInstance().prefetch();
+        }
+
         // Read the NSA description file.
         NsaDocument document;
         try {
@@ -77,19 +130,6 @@ public class Orchestrator {
             throw ex;
         }
 
-        // Write NSA description document update to DDS if required.
-        DdsWriter dds = null;
-        if (!Strings.isNullOrEmpty(conf.getDds())) {
-            try {
-                dds = new DdsWriter(conf.getDds(), conf);
-                dds.writeNsa(document.getDocument());
-            }
-            catch (IllegalArgumentException | KeyStoreException | IOException | NoSuchAlgorithmException | CertificateException | KeyManagementException | UnrecoverableKeyException ex) {
-                log.error("Exiting: Could not process NSA description file " + document.getDocument().getId(), ex);
-                throw ex;
-            }
-        }
-
         // The nsi-bridge can only support a single networkId so make sure we
         // do not have multiple identifiers assigned in the NSA description file.
         String networkId;
@@ -103,52 +143,206 @@ public class Orchestrator {
 
         try {
             // Get the NMWG topology for the specified domain.
-            NmwgTopology nmwg = new NmwgTopology(conf.getNmwg(), conf.getHttpsConfig(), NsiUtilities.getNsiDomainName(networkId));
+            String domain = NsiUtilities.getNsiDomainName(networkId);
+            Optional<NmwgSnapshotCache> cache = Optional.absent();
+            if (conf.getCacheDirectory().isPresent()) {
+                cache = Optional.of(NmwgSnapshotCache.getInstance(conf.getCacheDirectory().get(), domain));
+            }
+
+            NmwgTopology nmwg = new NmwgTopology(conf.getNmwg(), conf.getHttpsConfig(), domain, cache, conf.getMaxStale());
             nmwg.process();
 
-            // Convert NMWG to NML topology.
-            NmlTopologyType nml = nmwg.getNmlTopology(conf.getLifeTime(), conf.getServiceDefintion(), conf.getPeerings());
+            Optional<CtrlDomain> ctrlDomain = nmwg.getDomain();
+            if (!ctrlDomain.isPresent()) {
+                String error = "No NMWG topology retrieved for networkId " + networkId;
+                log.error(error);
+                throw new IllegalArgumentException(error);
+            }
+
+            Metrics.getInstance().add(Counter.LINKS_PROCESSED, domain, ctrlDomain.get().getLinks().size());
 
-            // Write NML topology to local file is required.
-            if (!Strings.isNullOrEmpty(conf.getTopologyFile())) {
-                NmlWriter nmlWriter = new NmlWriter(conf.getTopologyFile());
-                nmlWriter.writeFile(nml);
+            // Skip all downstream work if nothing has changed since the last
+            // successful run and the published documents are not close to
+            // expiring.
+            String digest = new InputDigest().add(ctrlDomain.get())
+                    .add(configFile).add(conf.getNsaFile()).digest();
+            OrchestratorState runState = getState(conf, domain);
+            if (conf.isShortCircuit() && outputsExist(conf) &&
+                    runState.isCurrent(digest, conf.getLifeTime(), conf.getRefreshWindow())) {
+                log.info("Inputs unchanged for networkId " + networkId + ", skipping translation and publication.");
+                return;
             }
 
-            // Write topology update to DDS if required.
-            if (dds != null) {
-                dds.writeTopology(document.getDocument().getId(), nml);
+            // Write NSA description document update to DDS if required.  DDS
+            // writes run in the background while we translate and are joined
+            // before the run completes.
+            DdsWriter dds = null;
+            List<CompletableFuture<Void>> publications = new ArrayList<>();
+            if (!Strings.isNullOrEmpty(conf.getDds())) {
+                try {
+                    dds = new DdsWriter(conf.getDds(), conf);
+                }
+                catch (IllegalArgumentException | KeyStoreException | IOException | NoSuchAlgorithmException | CertificateException | KeyManagementException | UnrecoverableKeyException ex) {
+                    log.error("Exiting: Could not process NSA description file " + document.getDocument().getId(), ex);
+                    throw ex;
+                }
+
+                publications.add(dds.writeNsaAsync(document.getDocument()));
             }
 
-            // Write the nsi-bridge nsa.json file (this is very hacky).
-            if (!Strings.isNullOrEmpty(conf.getMappingFile())) {
-                // Get the highest supported version of the CS protocol defined
-                // in the NSA description file.
-                Optional<String> version = document.getProviderVersion();
-                if (!version.isPresent()) {
-                    String error = "No connection service version defined in NSA description file " + document.getDocument().getId();
-                    log.error(error);
-                    throw new IllegalArgumentException(error);
+            // The DDS writes must always be joined before we return.  They
+            // share the topology with the next translation, and the REST
+            // clients closed when the translator exits.
+            boolean joined = false;
+            try {
+                // Convert NMWG to NML topology.
+                NmlTopologyType nml;
+                try (Metrics.Sample sample = Metrics.getInstance().start(Stage.TRANSLATE, domain)) {
+                    nml = translator.translate(ctrlDomain.get(), conf.getLifeTime(), conf.getServiceDefintion(), conf.getPeerings());
                 }
 
-                // Get a single serviceType from the configuration information.
-                // This will change when multiple services are supported in the
-                // nsi-bridge.
-                Optional<String> serviceType = conf.getServiceType();
-                if (!serviceType.isPresent()) {
-                    String error = "No serviceTypes defined " + document.getDocument().getId();
-                    log.error(error);
-                    throw new IllegalArgumentException(error);
+                // Write NML topology to local file is required.
+                if (!Strings.isNullOrEmpty(conf.getTopologyFile())) {
+                    NmlWriter nmlWriter = new NmlWriter(conf.getTopologyFile());
+                    nmlWriter.writeFile(nml);
                 }
 
-                MappingWriter mw = new MappingWriter(conf.getMappingFile());
-                mw.write(document.getDocument().getId(), version.get(),
-                        serviceType.get(), networkId, nmwg.getMappings());
+                // Write topology update to DDS if required.
+                if (dds != null) {
+                    publications.add(dds.writeTopologyAsync(document.getDocument().getId(), nml));
+                }
+
+                // Write the nsi-bridge nsa.json file (this is very hacky).
+                if (!Strings.isNullOrEmpty(conf.getMappingFile())) {
+                    // Get the highest supported version of the CS protocol defined
+                    // in the NSA description file.
+                    Optional<String> version = document.getProviderVersion();
+                    if (!version.isPresent()) {
+                        String error = "No connection service version defined in NSA description file " + document.getDocument().getId();
+                        log.error(error);
+                        throw new IllegalArgumentException(error);
+                    }
+
+                    // Get a single serviceType from the configuration information.
+                    // This will change when multiple services are supported in the
+                    // nsi-bridge.
+                    Optional<String> serviceType = conf.getServiceType();
+                    if (!serviceType.isPresent()) {
+                        String error = "No serviceTypes defined " + document.getDocument().getId();
+                        log.error(error);
+                        throw new IllegalArgumentException(error);
+                    }
+
+                    MappingWriter mw = new MappingWriter(conf.getMappingFile());
+                    mw.write(document.getDocument().getId(), version.get(),
+                            serviceType.get(), networkId, nmwg.getMappings());
+                }
+
+                // Wait for the DDS writes to complete.
+                joined = true;
+                await(publications);
+            }
+            finally {
+                if (!joined) {
+                    // Report the original failure, the failure of any DDS
+                    // write is only logged.
+                    join(publications);
+                }
             }
+
+            // Remember the inputs for this successful run.
+            runState.update(digest);
         }
         catch (DatatypeConfigurationException | JAXBException | IllegalArgumentException | KeyStoreException | IOException | NoSuchAlgorithmException | CertificateException | KeyManagementException | UnrecoverableKeyException ex) {
             log.error("Could not process topology for networkId " + networkId, ex);
             throw ex;
         }
     }
+
+    /**
+     * Wait for all DDS writes to complete, including the remaining writes if
+     * one of them fails.
+     *
+     * @param publications The pending DDS writes.
+     * @throws IOException If a document could not be written to the DDS.
+     * @throws JAXBException If a document could not be converted.
+     * @throws IllegalArgumentException If a document is invalid.
+     */
+    private void await(List<CompletableFuture<Void>> publications) throws IOException, JAXBException, IllegalArgumentException {
+        Throwable failure = join(publications);
+        if (failure == null) {
+            return;
+        }
+
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        }
+        else if (failure instanceof JAXBException) {
+            throw (JAXBException) failure;
+        }
+        else if (failure instanceof IllegalArgumentException) {
+            throw (IllegalArgumentException) failure;
+        }
+
+        throw new IOException("DDS publication failed", failure);
+    }
+
+    /**
+     * Wait for all DDS writes to complete, logging any failures.
+     *
+     * @param publications The pending DDS writes.
+     * @return The first failure, or null if all writes succeeded.
+     */
+    private Throwable join(List<CompletableFuture<Void>> publications) {
+        Throwable failure = null;
+        for (CompletableFuture<Void> publication : publications) {
+            try {
+                publication.join();
+            }
+            catch (CompletionException | CancellationException ex) {
+                Throwable cause = (ex.getCause() == null) ? ex : ex.getCause();
+                log.error("DDS publication failed.", cause);
+                if (failure == null) {
+                    failure = cause;
+                }
+            }
+        }
+
+        return failure;
+    }
+
+    /**
+     * Get the run state for the specified domain, loading it if the domain
+     * or cache location has changed.
+     *
+     * @param conf The current configuration.
+     * @param domain The NSI domain name.
+     * @return The run state.
+     */
+    private OrchestratorState getState(Configuration conf, String domain) {
+        String key = conf.getCacheDirectory().or("") + "/" + domain;
+        if (state == null || !key.equals(stateKey)) {
+            state = new OrchestratorState(conf.getCacheDirectory(), domain);
+            stateKey = key;
+        }
+
+        return state;
+    }
+
+    /**
+     * Verify any configured output files are still present so they are
+     * regenerated if removed.
+     *
+     * @param conf The current configuration.
+     * @return true if all configured output files exist.
+     */
+    private boolean outputsExist(Configuration conf) {
+        for (String file : new String[] { conf.getTopologyFile(), conf.getMappingFile() }) {
+            if (!Strings.isNullOrEmpty(file) && !Files.exists(Paths.get(file))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
 }
@@ -0,0 +1,66 @@
+package net.es.nsi.topology.translator;
+
+import com.google.common.base.Optional;
+
+/**
+ * The outcome of a single orchestration run used to build the batch summary.
+ *
+ * @author hacksaw
+ */
+public class OrchestratorResult {
+    private final String configFile;
+    private final boolean success;
+    private final Optional<String> error;
+    private final long elapsed;
+
+    /**
+     * Create a result for the orchestration of the specified configuration file.
+     *
+     * @param configFile The configuration file driving the orchestration.
+     * @param success true if the orchestration completed successfully.
+     * @param error The reason for the failure if one occurred.
+     * @param elapsed The time in milliseconds taken by the orchestration.
+     */
+    public OrchestratorResult(String configFile, boolean success, Optional<String> error, long elapsed) {
+        this.configFile = configFile;
+        this.success = success;
+        this.error = error;
+        this.elapsed = elapsed;
+    }
+
+    /**
+     * Get the configuration file driving the orchestration.
+     *
+     * @return the configFile
+     */
+    public String getConfigFile() {
+        return configFile;
+    }
+
+    /**
+     * Did the orchestration complete successfully?
+     *
+     * @return the success
+     */
+    public boolean isSuccess() {
+        return success;
+    }
+
+    /**
+     * Get the reason for the orchestration failure.
+     *
+     * @return the error
+     */
+    public Optional<String> getError() {
+        return error;
+    }
+
+    /**
+     * Get the time taken by the orchestration.
+     *
+     * @return the elapsed time in milliseconds.
+     */
+    public long getElapsed() {
+        return elapsed;
+    }
+}
@@ -0,0 +1,128 @@
+package net.es.nsi.topology.translator;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Strings;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Records the input digest and time of the last successful orchestration of
+ * a domain so unchanged inputs can short-circuit the translation and
+ * publication work.  State is held in memory and, if a cache directory is
+ * configured, persisted so it survives a restart.
+ *
+ * @author hacksaw
+ */
+public class OrchestratorState {
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    // Property names for the persisted state.
+    private static final String DIGEST = "digest";
+    private static final String PUBLISHED = "published";
+
+    private final Optional<Path> file;
+    private Optional<String> digest = Optional.absent();
+    private long published = 0;
+
+    /**
+     * Create the state for the specified domain, loading any previously
+     * persisted state from the cache directory.
+     *
+     * @param directory Optional cache directory for persisting state.
+     * @param domain The NSI domain name the state is for.
+     */
+    public OrchestratorState(Optional<String> directory, String domain) {
+        if (directory.isPresent()) {
+            file = Optional.of(Paths.get(directory.get(), "state-" + domain.replaceAll("[^A-Za-z0-9._-]", "_") + ".properties"));
+            load();
+        }
+        else {
+            file = Optional.absent();
+        }
+    }
+
+    private void load() {
+        if (!Files.isReadable(file.get())) {
+            return;
+        }
+
+        java.util.Properties state = new java.util.Properties();
+        try (InputStream is = Files.newInputStream(file.get())) {
+            state.load(is);
+            digest = Optional.fromNullable(Strings.emptyToNull(state.getProperty(DIGEST)));
+            published = Long.parseLong(state.getProperty(PUBLISHED, "0"));
+        }
+        catch (IOException | NumberFormatException ex) {
+            log.error("Ignoring invalid orchestrator state " + file.get(), ex);
+            digest = Optional.absent();
+            published = 0;
+        }
+    }
+
+    /**
+     * Get the file used to persist the state.
+     *
+     * @return the file if state is persisted.
+     */
+    public Optional<Path> getFile() {
+        return file;
+    }
+
+    /**
+     * Determine if the documents published for the last successful run are
+     * still current for the provided input digest.
+     *
+     * @param inputDigest Digest of the current inputs.
+     * @param lifeTime Lifetime in seconds of the published documents.
+     * @param refreshWindow Time in seconds before expiry when documents must be republished.
+     * @return true if the inputs are unchanged and the documents are not close to expiry.
+     */
+    public synchronized boolean isCurrent(String inputDigest, long lifeTime, long refreshWindow) {
+        if (!digest.isPresent() || !digest.get().equals(inputDigest)) {
+            return false;
+        }
+
+        long expires = published + TimeUnit.SECONDS.toMillis(lifeTime);
+        return System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(refreshWindow) < expires;
+    }
+
+    /**
+     * Record a successful run for the provided input digest.
+     *
+     * @param inputDigest Digest of the inputs that were published.
+     * @throws IOException If the state could not be persisted.
+     */
+    public synchronized void update(String inputDigest) throws IOException {
+        digest = Optional.of(inputDigest);
+        published = System.currentTimeMillis();
+
+        if (!file.isPresent()) {
+            return;
+        }
+
+        java.util.Properties state = new java.util.Properties();
+        state.setProperty(DIGEST, inputDigest);
+        state.setProperty(PUBLISHED, Long.toString(published));
+
+        Path tmp = Files.createTempFile(file.get().getParent(), file.get().getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream os = Files.newOutputStream(tmp)) {
+                state.store(os, "Orchestrator state");
+            }
+            Files.move(tmp, file.get(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (IOException ex) {
+            log.error("Could not write orchestrator state " + file.get(), ex);
+            Files.deleteIfExists(tmp);
+            throw ex;
+        }
+    }
+}
@@ -9,6 +9,14 @@ public class Properties {
     public static final String SYSTEM_PROPERTY_BASEDIR = "basedir";
     public static final String SYSTEM_PROPERTY_CONFIGDIR = "configdir";
     public static final String SYSTEM_PROPERTY_CONFIGFILE = "configfile";
+    public static final String SYSTEM_PROPERTY_CONFIGGLOB = "configglob";
+    public static final String SYSTEM_PROPERTY_THREADS = "threads";
+    public static final String SYSTEM_PROPERTY_DAEMON = "daemon";
+    public static final String SYSTEM_PROPERTY_INTERVAL = "interval";
+    public static final String SYSTEM_PROPERTY_JITTER = "jitter";
+    public static final String SYSTEM_PROPERTY_PARALLEL = "parallel";
+    public static final String SYSTEM_PROPERTY_METRICS = "metrics";
+    public static final String SYSTEM_PROPERTY_JFR = "jfr";
     public static final String SYSTEM_PROPERTY_DEBUG = "debug";
     public static final String SYSTEM_PROPERTY_LOG4J = "log4j.configuration";
     public static final String SYSTEM_PROPERTY_SSL_KEYSTORE = "javax.net.ssl.keyStore";
@@ -0,0 +1,108 @@
+package net.es.nsi.topology.translator.generator;
+
+import java.util.Arrays;
+import java.util.Random;
+import net.es.nsi.topology.translator.model.CtrlLinkType;
+
+/**
+ * The role of each link in a generated domain.  Roles are drawn with
+ * selection sampling so a domain contains exactly the requested number of
+ * INNI, ENNI, and UNI links while their positions are scattered across the
+ * nodes.  INNI links are assigned in neighbouring pairs that reference each
+ * other.  The layout depends only on the seed and domain index so the
+ * layout of a peer domain can be recomputed to pair ENNI links.
+ *
+ * @author hacksaw
+ */
+class DomainLayout {
+    private final CtrlLinkType[] roles;
+    private final int[] enni;
+    private final int inniCount;
+
+    /**
+     * Compute the layout of a domain.
+     *
+     * @param links The number of links in the domain.
+     * @param inni The percentage of links that are INNI.
+     * @param enni The percentage of links that are ENNI.
+     * @param seed The seed for the random number generator.
+     */
+    DomainLayout(int links, int inni, int enni, long seed) {
+        Random random = new Random(seed);
+        roles = new CtrlLinkType[links];
+
+        // INNI links are selected in pairs.
+        int pairs = links / 2;
+        int inniPairs = Math.min(pairs, (int) Math.round(links * inni / 200.0));
+        for (int pair = 0, needed = inniPairs; pair < pairs && needed > 0; pair++) {
+            if (random.nextInt(pairs - pair) < needed) {
+                roles[pair * 2] = CtrlLinkType.INNI;
+                roles[pair * 2 + 1] = CtrlLinkType.INNI;
+                needed--;
+            }
+        }
+        inniCount = inniPairs * 2;
+
+        // The remaining links are split between ENNI and UNI.
+        int remaining = links - inniCount;
+        int enniCount = Math.min(remaining, (int) Math.round(links * enni / 100.0));
+        this.enni = new int[enniCount];
+        for (int index = 0, needed = enniCount, count = 0; index < links; index++) {
+            if (roles[index] != null) {
+                continue;
+            }
+
+            if (needed > 0 && random.nextInt(remaining) < needed) {
+                roles[index] = CtrlLinkType.ENNI;
+                this.enni[count++] = index;
+                needed--;
+            }
+            else {
+                roles[index] = CtrlLinkType.UNI;
+            }
+            remaining--;
+        }
+    }
+
+    /**
+     * Get the role of a link.
+     *
+     * @param index The index of the link.
+     * @return The role of the link.
+     */
+    CtrlLinkType getRole(int index) {
+        return roles[index];
+    }
+
+    /**
+     * Get the link index of an ENNI link.
+     *
+     * @param ordinal The position of the link amongst the ENNI links.
+     * @return The index of the link.
+     */
+    int getEnniLink(int ordinal) {
+        return enni[ordinal];
+    }
+
+    /**
+     * Get the position of an ENNI link amongst the ENNI links.
+     *
+     * @param index The index of the link.
+     * @return The position of the link.
+     */
+    int getEnniOrdinal(int index) {
+        return Arrays.binarySearch(enni, index);
+    }
+
+    int getInniCount() {
+        return inniCount;
+    }
+
+    int getEnniCount() {
+        return enni.length;
+    }
+
+    int getUniCount() {
+        return roles.length - inniCount - enni.length;
+    }
+}
@@ -0,0 +1,254 @@
+package net.es.nsi.topology.translator.generator;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import javax.xml.bind.JAXBException;
+import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.stream.XMLStreamException;
+import net.es.nsi.topology.translator.jaxb.ConfigurationParser;
+import net.es.nsi.topology.translator.jaxb.NsaParser;
+import net.es.nsi.topology.translator.jaxb.configuration.NmwgParserType;
+import net.es.nsi.topology.translator.jaxb.configuration.ObjectFactory;
+import net.es.nsi.topology.translator.model.CtrlLinkType;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.GnuParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+
+/**
+ * Command line tool writing a synthetic NMWG topology, NSA description,
+ * and translator configuration for each generated domain.  The generated
+ * configurations can be run in batch mode with:
+ *
+ *   java -jar translator.jar -configdir generated -configglob "config-*.xml"
+ *
+ * @author hacksaw
+ */
+public class Generator {
+    // Help line.
+    private static final String COMMAND_LINE = "java -cp translator.jar net.es.nsi.topology.translator.generator.Generator [-outdir <directory>] [-domains <count>] [-links <count> | -nodes <count>] [-ports <count>] [-linksperport <count>] [-inni <percent>] [-enni <percent>] [-vlans <min-max>] [-vlanblock <count>] [-capacities <bps,...>] [-nmwg <url>] [-dds <url>] [-parser <stax|jaxb>] [-keystore <file>] [-truststore <file>] [-storepass <password>] [-seed <seed>]";
+
+    // Command line arguments.
+    private static final String ARGNAME_OUTDIR = "outdir";
+    private static final String ARGNAME_DOMAINS = "domains";
+    private static final String ARGNAME_LINKS = "links";
+    private static final String ARGNAME_NODES = "nodes";
+    private static final String ARGNAME_PORTS = "ports";
+    private static final String ARGNAME_LINKSPERPORT = "linksperport";
+    private static final String ARGNAME_INNI = "inni";
+    private static final String ARGNAME_ENNI = "enni";
+    private static final String ARGNAME_VLANS = "vlans";
+    private static final String ARGNAME_VLANBLOCK = "vlanblock";
+    private static final String ARGNAME_CAPACITIES = "capacities";
+    private static final String ARGNAME_NMWG = "nmwg";
+    private static final String ARGNAME_DDS = "dds";
+    private static final String ARGNAME_PARSER = "parser";
+    private static final String ARGNAME_KEYSTORE = "keystore";
+    private static final String ARGNAME_TRUSTSTORE = "truststore";
+    private static final String ARGNAME_STOREPASS = "storepass";
+    private static final String ARGNAME_SEED = "seed";
+
+    // Default properties.
+    private static final String DEFAULT_OUTDIR = "generated";
+    private static final int DEFAULT_DOMAINS = 1;
+    private static final int DEFAULT_PORTS = 8;
+    private static final int DEFAULT_LINKSPERPORT = 4;
+    private static final String DEFAULT_KEYSTORE = "config/keystore.jks";
+    private static final String DEFAULT_TRUSTSTORE = "config/truststore.jks";
+    private static final String DEFAULT_STOREPASS = "changeit";
+
+    /**
+     * Generate the documents described by the command line options.
+     *
+     * @param args
+     */
+    public static void main(String[] args) {
+        Options options = getOptions();
+        CommandLine cmd;
+        NmwgGenerator generator;
+        try {
+            CommandLineParser parser = new GnuParser();
+            cmd = parser.parse(options, args);
+            generator = getGenerator(cmd);
+        }
+        catch (ParseException | IllegalArgumentException ex) {
+            System.err.println("You did not provide the correct arguments, see usage below.\n");
+            System.err.println(ex.getMessage());
+            HelpFormatter formatter = new HelpFormatter();
+            formatter.printHelp(COMMAND_LINE, options);
+            return;
+        }
+
+        String outdir = cmd.getOptionValue(ARGNAME_OUTDIR, DEFAULT_OUTDIR);
+        try {
+            generate(generator, outdir);
+        }
+        catch (IOException | JAXBException | XMLStreamException | DatatypeConfigurationException ex) {
+            System.err.println("Exiting: generation failed " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Write the documents of every generated domain into a directory.
+     *
+     * @param generator The configured generator.
+     * @param outdir The output directory, relative to the translator base directory.
+     * @throws IOException If a file could not be written.
+     * @throws JAXBException If a configuration or NSA document could not be written.
+     * @throws XMLStreamException If a topology document could not be written.
+     * @throws DatatypeConfigurationException If the NSA document times could not be created.
+     */
+    public static void generate(NmwgGenerator generator, String outdir) throws IOException, JAXBException, XMLStreamException, DatatypeConfigurationException {
+        Path dir = Paths.get(outdir);
+        Files.createDirectories(dir.resolve("output"));
+
+        ObjectFactory factory = new ObjectFactory();
+        net.es.nsi.topology.translator.jaxb.nsa.ObjectFactory nsaFactory = new net.es.nsi.topology.translator.jaxb.nsa.ObjectFactory();
+        for (int domain = 0; domain < generator.getDomains(); domain++) {
+            String name = generator.getDomainName(domain);
+            long start = System.currentTimeMillis();
+
+            Path nmwg = dir.resolve("nmwg-" + name + ".xml");
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(nmwg))) {
+                generator.writeTopology(domain, out);
+            }
+
+            String nsa = outdir + "/nsa-" + name + ".xml";
+            NsaParser.getInstance().writeFile(nsaFactory.createNsa(generator.getNsa(domain)), nsa);
+
+            String config = outdir + "/config-" + name + ".xml";
+            ConfigurationParser.getInstance().writeFile(factory.createConfiguration(
+                    generator.getConfiguration(domain, nsa, outdir + "/output")), config);
+
+            System.out.println("Generated " + name + ": " + generator.getLinks() + " links (" +
+                    generator.getLinkCount(domain, CtrlLinkType.INNI) + " INNI, " +
+                    generator.getLinkCount(domain, CtrlLinkType.ENNI) + " ENNI, " +
+                    generator.getLinkCount(domain, CtrlLinkType.UNI) + " UNI) in " +
+                    (System.currentTimeMillis() - start) + " ms");
+        }
+    }
+
+    /**
+     * Build a generator from the command line options.
+     */
+    private static NmwgGenerator getGenerator(CommandLine cmd) throws ParseException {
+        int ports = getInt(cmd, ARGNAME_PORTS, DEFAULT_PORTS);
+        int linksPerPort = getInt(cmd, ARGNAME_LINKSPERPORT, DEFAULT_LINKSPERPORT);
+
+        NmwgGenerator generator = new NmwgGenerator()
+                .withDomains(getInt(cmd, ARGNAME_DOMAINS, DEFAULT_DOMAINS))
+                .withPorts(ports, linksPerPort);
+
+        if (cmd.hasOption(ARGNAME_LINKS)) {
+            generator.withLinks(getInt(cmd, ARGNAME_LINKS, 0));
+        }
+        else if (cmd.hasOption(ARGNAME_NODES)) {
+            generator.withLinks(getInt(cmd, ARGNAME_NODES, 0) * ports * linksPerPort);
+        }
+
+        if (cmd.hasOption(ARGNAME_INNI) || cmd.hasOption(ARGNAME_ENNI)) {
+            generator.withMix(getInt(cmd, ARGNAME_INNI, 60), getInt(cmd, ARGNAME_ENNI, 20));
+        }
+
+        if (cmd.hasOption(ARGNAME_VLANS) || cmd.hasOption(ARGNAME_VLANBLOCK)) {
+            String[] range = cmd.getOptionValue(ARGNAME_VLANS, "2-4094").split("-");
+            if (range.length != 2) {
+                throw new ParseException("Invalid VLAN range " + cmd.getOptionValue(ARGNAME_VLANS));
+            }
+            generator.withVlans(parseInt(ARGNAME_VLANS, range[0]), parseInt(ARGNAME_VLANS, range[1]),
+                    getInt(cmd, ARGNAME_VLANBLOCK, 100));
+        }
+
+        if (cmd.hasOption(ARGNAME_CAPACITIES)) {
+            String[] values = cmd.getOptionValue(ARGNAME_CAPACITIES).split(",");
+            long[] capacities = new long[values.length];
+            for (int i = 0; i < values.length; i++) {
+                capacities[i] = parseLong(ARGNAME_CAPACITIES, values[i]);
+            }
+            generator.withCapacities(capacities, 1000000L);
+        }
+
+        if (cmd.hasOption(ARGNAME_NMWG)) {
+            generator.withBaseURL(cmd.getOptionValue(ARGNAME_NMWG));
+        }
+
+        generator.withDds(cmd.getOptionValue(ARGNAME_DDS));
+
+        if (cmd.hasOption(ARGNAME_PARSER)) {
+            try {
+                generator.withParser(NmwgParserType.fromValue(cmd.getOptionValue(ARGNAME_PARSER)));
+            }
+            catch (IllegalArgumentException ex) {
+                throw new ParseException("Invalid parser " + cmd.getOptionValue(ARGNAME_PARSER));
+            }
+        }
+
+        generator.withClient(cmd.getOptionValue(ARGNAME_KEYSTORE, DEFAULT_KEYSTORE),
+                cmd.getOptionValue(ARGNAME_TRUSTSTORE, DEFAULT_TRUSTSTORE),
+                cmd.getOptionValue(ARGNAME_STOREPASS, DEFAULT_STOREPASS));
+
+        if (cmd.hasOption(ARGNAME_SEED)) {
+            generator.withSeed(parseLong(ARGNAME_SEED, cmd.getOptionValue(ARGNAME_SEED)));
+        }
+
+        return generator;
+    }
+
+    private static int getInt(CommandLine cmd, String name, int defaultValue) throws ParseException {
+        String value = cmd.getOptionValue(name);
+        return value == null ? defaultValue : parseInt(name, value);
+    }
+
+    private static int parseInt(String name, String value) throws ParseException {
+        try {
+            return Integer.parseInt(value.trim());
+        }
+        catch (NumberFormatException ex) {
+            throw new ParseException("Invalid value for " + name + ": " + value);
+        }
+    }
+
+    private static long parseLong(String name, String value) throws ParseException {
+        try {
+            return Long.parseLong(value.trim());
+        }
+        catch (NumberFormatException ex) {
+            throw new ParseException("Invalid value for " + name + ": " + value);
+        }
+    }
+
+    /**
+     * Build supported command line options for parsing of parameter input.
+     *
+     * @return List of supported command line options.
+     */
+    private static Options getOptions() {
+        Options options = new Options();
+        options.addOption(new Option(ARGNAME_OUTDIR, true, "Directory for the generated files (defaults to \"" + DEFAULT_OUTDIR + "\")."));
+        options.addOption(new Option(ARGNAME_DOMAINS, true, "Number of domains to generate (defaults to " + DEFAULT_DOMAINS + ")."));
+        options.addOption(new Option(ARGNAME_LINKS, true, "Number of links in each domain (defaults to 100)."));
+        options.addOption(new Option(ARGNAME_NODES, true, "Number of nodes in each domain, used in place of \"links\" to generate fully populated nodes."));
+        options.addOption(new Option(ARGNAME_PORTS, true, "Number of ports on each node (defaults to " + DEFAULT_PORTS + ")."));
+        options.addOption(new Option(ARGNAME_LINKSPERPORT, true, "Number of links on each port (defaults to " + DEFAULT_LINKSPERPORT + ")."));
+        options.addOption(new Option(ARGNAME_INNI, true, "Percentage of INNI links (defaults to 60)."));
+        options.addOption(new Option(ARGNAME_ENNI, true, "Percentage of ENNI links (defaults to 20), the remaining links are UNI."));
+        options.addOption(new Option(ARGNAME_VLANS, true, "VLAN range links are assigned from (defaults to \"2-4094\")."));
+        options.addOption(new Option(ARGNAME_VLANBLOCK, true, "Number of VLANs available on each link (defaults to 100)."));
+        options.addOption(new Option(ARGNAME_CAPACITIES, true, "Comma separated port capacities in bits per second (defaults to \"1000000000,10000000000,100000000000\")."));
+        options.addOption(new Option(ARGNAME_NMWG, true, "NMWG server base URL for the generated configurations (defaults to \"http://localhost:8400/nmwg/\")."));
+        options.addOption(new Option(ARGNAME_DDS, true, "DDS server URL for the generated configurations (no DDS if not specified)."));
+        options.addOption(new Option(ARGNAME_PARSER, true, "NMWG parser for the generated configurations (\"stax\" or \"jaxb\")."));
+        options.addOption(new Option(ARGNAME_KEYSTORE, true, "Client keystore for the generated configurations (defaults to \"" + DEFAULT_KEYSTORE + "\")."));
+        options.addOption(new Option(ARGNAME_TRUSTSTORE, true, "Client truststore for the generated configurations (defaults to \"" + DEFAULT_TRUSTSTORE + "\")."));
+        options.addOption(new Option(ARGNAME_STOREPASS, true, "Password of the client keystore and truststore (defaults to \"" + DEFAULT_STOREPASS + "\")."));
+        options.addOption(new Option(ARGNAME_SEED, true, "Seed from which link types and attributes are drawn (defaults to 1)."));
+        return options;
+    }
+}
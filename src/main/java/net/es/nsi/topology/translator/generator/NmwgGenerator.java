@@ -0,0 +1,698 @@
+package net.es.nsi.topology.translator.generator;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.datatype.XMLGregorianCalendar;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import net.es.nsi.topology.translator.Properties;
+import net.es.nsi.topology.translator.jaxb.configuration.ConfigurationType;
+import net.es.nsi.topology.translator.jaxb.configuration.DdsType;
+import net.es.nsi.topology.translator.jaxb.configuration.KeyStoreType;
+import net.es.nsi.topology.translator.jaxb.configuration.NmwgParserType;
+import net.es.nsi.topology.translator.jaxb.configuration.ObjectFactory;
+import net.es.nsi.topology.translator.jaxb.configuration.ParameterType;
+import net.es.nsi.topology.translator.jaxb.configuration.PatternMatchType;
+import net.es.nsi.topology.translator.jaxb.configuration.PatternType;
+import net.es.nsi.topology.translator.jaxb.configuration.PeeringType;
+import net.es.nsi.topology.translator.jaxb.configuration.SecureType;
+import net.es.nsi.topology.translator.jaxb.configuration.ServiceDefinitionType;
+import net.es.nsi.topology.translator.jaxb.configuration.SourceType;
+import net.es.nsi.topology.translator.jaxb.nsa.FeatureType;
+import net.es.nsi.topology.translator.jaxb.nsa.InterfaceType;
+import net.es.nsi.topology.translator.jaxb.nsa.NsaType;
+import net.es.nsi.topology.translator.model.Constants;
+import net.es.nsi.topology.translator.model.CtrlLinkType;
+import net.es.nsi.topology.translator.utilities.NsiUtilities;
+
+/**
+ * Generates synthetic NMWG CtrlPlane topologies, and the matching NSA
+ * description and translator configuration, for scale testing without
+ * access to a live TopologyViewer.
+ *
+ * Each generated domain has the same number of links, laid out over nodes
+ * of a fixed number of ports with a fixed number of links per port.  Links
+ * are an exact mix of INNI, ENNI, and UNI links:
+ *
+ *   INNI - pairs of links within the domain referencing each other.
+ *   ENNI - links referencing an ENNI link in a neighbouring generated
+ *          domain, which references them in return, or a link in an
+ *          external domain if there is no neighbour to pair with.
+ *   UNI  - links referencing a client port in the local domain.
+ *
+ * Documents use the nmtopo:topology root element returned by the Internet2
+ * TopologyViewer.  Output depends only on the parameters and seed so the
+ * same topology can be regenerated at any time.
+ *
+ * @author hacksaw
+ */
+public class NmwgGenerator {
+    private static final String NMTOPO_NS = "http://ogf.org/schema/network/topology/base/20070828/";
+    private static final String CTRLPLANE_NS = "http://ogf.org/schema/network/topology/ctrlPlane/20080828/";
+    private static final String NMWG_URN = "urn:ogf:network:domain=";
+
+    private static final String EXTERNAL_DOMAIN = "external.net";
+
+    private static final String SD_RESTRICTED_ID = "EVTS.RESTRICTED";
+    private static final String SD_RESTRICTED_NAME = "Restricted Ethernet VLAN Transfer Service";
+
+    private static final String NSA_PROVIDER = "application/vnd.ogf.nsi.cs.v2.provider+soap";
+    private static final String NSA_UPA = "vnd.ogf.nsi.cs.v2.role.uPA";
+
+    // Salts keeping the hashed properties of different objects independent.
+    private static final long SALT_PORT = 0x504f5254L;
+    private static final long SALT_LINK = 0x4c494e4bL;
+    private static final long SALT_PEER = 0x50454552L;
+
+    private final ObjectFactory factory = new ObjectFactory();
+    private final net.es.nsi.topology.translator.jaxb.nsa.ObjectFactory nsaFactory = new net.es.nsi.topology.translator.jaxb.nsa.ObjectFactory();
+
+    // Shape of the topology.
+    private int domains = 1;
+    private int links = 100;
+    private int ports = 8;
+    private int linksPerPort = 4;
+
+    // Mix of link types as a percentage of links, the rest are UNI.
+    private int inni = 60;
+    private int enni = 20;
+
+    // Link attributes.
+    private int vlanMin = 2;
+    private int vlanMax = 4094;
+    private int vlanBlock = 100;
+    private long[] capacities = { 1000000000L, 10000000000L, 100000000000L };
+    private long granularity = 1000000L;
+
+    // Naming of the generated domains.
+    private String domainFormat = "gen%d.net";
+
+    // Translator configuration.
+    private String baseURL = "http://localhost:8400/nmwg/";
+    private Optional<String> dds = Optional.empty();
+    private Optional<NmwgParserType> parser = Optional.empty();
+    private long lifeTime = 5184000;
+    private String keyStore = "config/keystore.jks";
+    private String trustStore = "config/truststore.jks";
+    private String storePassword = "changeit";
+
+    private long seed = 1;
+
+    /**
+     * Set the number of domains to generate.  ENNI links of neighbouring
+     * domains are paired with each other in a ring.
+     *
+     * @param domains The number of domains.
+     * @return this generator.
+     */
+    public NmwgGenerator withDomains(int domains) {
+        if (domains < 1) {
+            throw new IllegalArgumentException("The number of domains must be at least one.");
+        }
+        this.domains = domains;
+        return this;
+    }
+
+    /**
+     * Set the number of links in each domain.  Nodes are added until all
+     * links are placed, so the last node may be partially filled.
+     *
+     * @param links The number of links per domain.
+     * @return this generator.
+     */
+    public NmwgGenerator withLinks(int links) {
+        if (links < 0) {
+            throw new IllegalArgumentException("The number of links cannot be negative.");
+        }
+        this.links = links;
+        return this;
+    }
+
+    /**
+     * Set the number of ports on each node and links on each port.
+     *
+     * @param ports The number of ports per node.
+     * @param linksPerPort The number of links per port.
+     * @return this generator.
+     */
+    public NmwgGenerator withPorts(int ports, int linksPerPort) {
+        if (ports < 1 || linksPerPort < 1) {
+            throw new IllegalArgumentException("Ports per node and links per port must be at least one.");
+        }
+        this.ports = ports;
+        this.linksPerPort = linksPerPort;
+        return this;
+    }
+
+    /**
+     * Set the percentage of INNI and ENNI links, the remaining links are UNI.
+     *
+     * @param inni The percentage of INNI links.
+     * @param enni The percentage of ENNI links.
+     * @return this generator.
+     */
+    public NmwgGenerator withMix(int inni, int enni) {
+        if (inni < 0 || enni < 0 || inni + enni > 100) {
+            throw new IllegalArgumentException("Invalid link mix inni=" + inni + "%, enni=" + enni + "%.");
+        }
+        this.inni = inni;
+        this.enni = enni;
+        return this;
+    }
+
+    /**
+     * Set the VLANs available on links.  Each link is assigned one block
+     * of VLANs from the range, and the two ends of INNI and ENNI links are
+     * assigned the same block.
+     *
+     * @param min The lowest VLAN.
+     * @param max The highest VLAN.
+     * @param block The number of VLANs available on each link.
+     * @return this generator.
+     */
+    public NmwgGenerator withVlans(int min, int max, int block) {
+        if (min < 0 || max > 4095 || block < 1 || max - min + 1 < block) {
+            throw new IllegalArgumentException("Invalid VLAN range " + min + "-" + max + " with block size " + block + ".");
+        }
+        this.vlanMin = min;
+        this.vlanMax = max;
+        this.vlanBlock = block;
+        return this;
+    }
+
+    /**
+     * Set the port capacities in bits per second.  Each port is assigned
+     * one of the capacities.
+     *
+     * @param capacities The port capacities.
+     * @param granularity The minimum reservable capacity and granularity.
+     * @return this generator.
+     */
+    public NmwgGenerator withCapacities(long[] capacities, long granularity) {
+        if (capacities.length == 0) {
+            throw new IllegalArgumentException("At least one capacity must be provided.");
+        }
+        this.capacities = capacities.clone();
+        this.granularity = granularity;
+        return this;
+    }
+
+    /**
+     * Set the format used to name domains from their index.
+     *
+     * @param domainFormat Format string such as "gen%d.net".
+     * @return this generator.
+     */
+    public NmwgGenerator withDomainFormat(String domainFormat) {
+        this.domainFormat = domainFormat;
+        return this;
+    }
+
+    /**
+     * Set the NMWG server base URL used in the generated configurations.
+     *
+     * @param baseURL The NMWG server base URL.
+     * @return this generator.
+     */
+    public NmwgGenerator withBaseURL(String baseURL) {
+        this.baseURL = baseURL;
+        return this;
+    }
+
+    /**
+     * Set the DDS server URL used in the generated configurations.
+     *
+     * @param dds The DDS server URL.
+     * @return this generator.
+     */
+    public NmwgGenerator withDds(String dds) {
+        this.dds = Optional.ofNullable(dds);
+        return this;
+    }
+
+    /**
+     * Set the NMWG parser used in the generated configurations.
+     *
+     * @param parser The NMWG parser.
+     * @return this generator.
+     */
+    public NmwgGenerator withParser(NmwgParserType parser) {
+        this.parser = Optional.ofNullable(parser);
+        return this;
+    }
+
+    /**
+     * Set the document lifetime used in the generated configurations.
+     *
+     * @param lifeTime The lifetime in seconds.
+     * @return this generator.
+     */
+    public NmwgGenerator withLifeTime(long lifeTime) {
+        this.lifeTime = lifeTime;
+        return this;
+    }
+
+    /**
+     * Set the client keystore and truststore used in the generated
+     * configurations.  Both files must exist when the translator is run.
+     *
+     * @param keyStore Path of the keystore.
+     * @param trustStore Path of the truststore.
+     * @param password Password of both stores.
+     * @return this generator.
+     */
+    public NmwgGenerator withClient(String keyStore, String trustStore, String password) {
+        this.keyStore = keyStore;
+        this.trustStore = trustStore;
+        this.storePassword = password;
+        return this;
+    }
+
+    /**
+     * Set the seed from which link types and attributes are drawn.
+     *
+     * @param seed The seed.
+     * @return this generator.
+     */
+    public NmwgGenerator withSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    public int getDomains() {
+        return domains;
+    }
+
+    public int getLinks() {
+        return links;
+    }
+
+    /**
+     * Get the number of nodes in each domain.
+     *
+     * @return The number of nodes.
+     */
+    public int getNodes() {
+        int perNode = ports * linksPerPort;
+        return (links + perNode - 1) / perNode;
+    }
+
+    /**
+     * Get the name of a domain, as used in the NMWG "domain" query.
+     *
+     * @param domain The index of the domain.
+     * @return The domain name.
+     */
+    public String getDomainName(int domain) {
+        return String.format(domainFormat, domain);
+    }
+
+    /**
+     * Get the NSI network identifier of a domain.
+     *
+     * @param domain The index of the domain.
+     * @return The network identifier.
+     */
+    public String getNetworkId(int domain) {
+        return NsiUtilities.normalizeId(NMWG_URN + getDomainName(domain));
+    }
+
+    /**
+     * Get the NMWG identifier of a link.
+     *
+     * @param domain The index of the domain.
+     * @param index The index of the link within the domain.
+     * @return The NMWG link identifier.
+     */
+    public String getLinkId(int domain, int index) {
+        return getPortId(domain, index / linksPerPort) + ":link=l" + (index % linksPerPort);
+    }
+
+    /**
+     * Get the NMWG identifiers of all links in a domain.
+     *
+     * @param domain The index of the domain.
+     * @return The list of link identifiers.
+     */
+    public List<String> getLinkIds(int domain) {
+        List<String> ids = new ArrayList<>(links);
+        for (int index = 0; index < links; index++) {
+            ids.add(getLinkId(domain, index));
+        }
+
+        return ids;
+    }
+
+    /**
+     * Get the number of links of a type in a domain.
+     *
+     * @param domain The index of the domain.
+     * @param type The link type.
+     * @return The number of links.
+     */
+    public int getLinkCount(int domain, CtrlLinkType type) {
+        DomainLayout layout = getLayout(domain);
+        switch (type) {
+            case INNI:
+                return layout.getInniCount();
+            case ENNI:
+                return layout.getEnniCount();
+            case UNI:
+                return layout.getUniCount();
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Write the NMWG topology document of a domain.  The document is
+     * streamed so topologies of any size can be generated.
+     *
+     * @param domain The index of the domain.
+     * @param out The stream to write the document to, which is not closed.
+     * @throws XMLStreamException If the document could not be written.
+     */
+    public void writeTopology(int domain, OutputStream out) throws XMLStreamException {
+        DomainLayout layout = getLayout(domain);
+        DomainLayout next = getLayout((domain + 1) % domains);
+        DomainLayout previous = getLayout((domain + domains - 1) % domains);
+
+        XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(out, "UTF-8");
+        writer.writeStartDocument("UTF-8", "1.0");
+        writer.writeCharacters("\n");
+        writer.setPrefix("nmtopo", NMTOPO_NS);
+        writer.setPrefix("CtrlPlane", CTRLPLANE_NS);
+        writer.writeStartElement(NMTOPO_NS, "topology");
+        writer.writeNamespace("nmtopo", NMTOPO_NS);
+        writer.writeNamespace("CtrlPlane", CTRLPLANE_NS);
+        writer.writeCharacters("\n");
+
+        writer.writeStartElement(CTRLPLANE_NS, "domain");
+        writer.writeAttribute("id", NMWG_URN + getDomainName(domain));
+        writer.writeCharacters("\n");
+
+        int portCount = (links + linksPerPort - 1) / linksPerPort;
+        for (int port = 0; port < portCount; port++) {
+            if (port % ports == 0) {
+                if (port > 0) {
+                    writer.writeEndElement();
+                    writer.writeCharacters("\n");
+                }
+                writer.writeStartElement(CTRLPLANE_NS, "node");
+                writer.writeAttribute("id", getNodeId(domain, port / ports));
+                writer.writeCharacters("\n");
+            }
+
+            long capacity = capacities[(int) Long.remainderUnsigned(hash(SALT_PORT, domain, port), capacities.length)];
+            writer.writeStartElement(CTRLPLANE_NS, "port");
+            writer.writeAttribute("id", getPortId(domain, port));
+            writeElement(writer, "capacity", Long.toString(capacity));
+            writeElement(writer, "maximumReservableCapacity", Long.toString(capacity));
+            writeElement(writer, "minimumReservableCapacity", Long.toString(granularity));
+            writeElement(writer, "granularity", Long.toString(granularity));
+            writer.writeCharacters("\n");
+
+            for (int index = port * linksPerPort; index < Math.min(links, (port + 1) * linksPerPort); index++) {
+                writeLink(writer, domain, index, layout, next, previous);
+            }
+
+            writer.writeEndElement();
+            writer.writeCharacters("\n");
+        }
+
+        if (portCount > 0) {
+            writer.writeEndElement();
+            writer.writeCharacters("\n");
+        }
+
+        writer.writeEndElement();
+        writer.writeCharacters("\n");
+        writer.writeEndElement();
+        writer.writeCharacters("\n");
+        writer.writeEndDocument();
+        writer.flush();
+        writer.close();
+    }
+
+    private void writeLink(XMLStreamWriter writer, int domain, int index, DomainLayout layout, DomainLayout next, DomainLayout previous) throws XMLStreamException {
+        String remoteLinkId;
+        long vlanKey;
+        switch (layout.getRole(index)) {
+            case INNI:
+                remoteLinkId = getLinkId(domain, index ^ 1);
+                vlanKey = hash(SALT_LINK, domain, index & ~1);
+                break;
+            case ENNI:
+                int ordinal = layout.getEnniOrdinal(index);
+                int peer = getPeerDomain(domain, ordinal, layout.getEnniCount());
+                if (peer < 0) {
+                    remoteLinkId = NMWG_URN + EXTERNAL_DOMAIN + ":node=" + getDomainName(domain) + ":port=p" + ordinal + ":link=1";
+                    vlanKey = hash(SALT_LINK, domain, index);
+                }
+                else {
+                    DomainLayout peerLayout = (ordinal % 2 == 0) ? next : previous;
+                    remoteLinkId = getLinkId(peer, peerLayout.getEnniLink(ordinal ^ 1));
+                    vlanKey = (ordinal % 2 == 0) ? hash(SALT_PEER, domain, ordinal) : hash(SALT_PEER, peer, ordinal ^ 1);
+                }
+                break;
+            default:
+                remoteLinkId = NMWG_URN + getDomainName(domain) + ":node=client:port=c" + index + ":link=1";
+                vlanKey = hash(SALT_LINK, domain, index);
+                break;
+        }
+
+        writer.writeStartElement(CTRLPLANE_NS, "link");
+        writer.writeAttribute("id", getLinkId(domain, index));
+        writeElement(writer, "remoteLinkId", remoteLinkId);
+        writeElement(writer, "trafficEngineeringMetric", "10");
+        writer.writeStartElement(CTRLPLANE_NS, "SwitchingCapabilityDescriptors");
+        writeElement(writer, "switchingcapType", "l2sc");
+        writeElement(writer, "encodingType", "packet");
+        writer.writeStartElement(CTRLPLANE_NS, "switchingCapabilitySpecificInfo");
+        writeElement(writer, "interfaceMTU", "9000");
+        writeElement(writer, "vlanRangeAvailability", getVlanRange(vlanKey));
+        writeElement(writer, "vlanTranslation", Boolean.toString((vlanKey & 1) == 0));
+        writer.writeEndElement();
+        writer.writeEndElement();
+        writer.writeEndElement();
+        writer.writeCharacters("\n");
+    }
+
+    private static void writeElement(XMLStreamWriter writer, String name, String value) throws XMLStreamException {
+        writer.writeStartElement(CTRLPLANE_NS, name);
+        writer.writeCharacters(value);
+        writer.writeEndElement();
+    }
+
+    /**
+     * Get the service definitions used in the generated configurations.
+     * The first covers all ports, and the second is restricted by
+     * substring, regex, and glob rules to exercise the matcher.
+     *
+     * @return The list of service definitions.
+     */
+    public List<ServiceDefinitionType> getServiceDefinitions() {
+        List<ServiceDefinitionType> sds = new ArrayList<>();
+
+        ServiceDefinitionType all = factory.createServiceDefinitionType();
+        all.setId(Constants.SD_EVTS_AGOLE_ID);
+        all.setName(Constants.SD_EVTS_AGOLE_NAME);
+        all.setEncoding(Constants.NML_ETHERNET);
+        all.setLabelSwapping(true);
+        all.setLabelType(Constants.NML_ETHERNET_VLAN);
+        all.setServiceType(Constants.SD_EVTS_AGOLE_TYPE);
+        sds.add(all);
+
+        ServiceDefinitionType some = factory.createServiceDefinitionType();
+        some.setId(SD_RESTRICTED_ID);
+        some.setName(SD_RESTRICTED_NAME);
+        some.setEncoding(Constants.NML_ETHERNET);
+        some.setLabelSwapping(false);
+        some.setLabelType(Constants.NML_ETHERNET_VLAN);
+        some.setServiceType(Constants.SD_EVTS_AGOLE_TYPE);
+        some.getInclude().add(getPattern("rt1", null));
+        some.getInclude().add(getPattern("rt2[0-9]", PatternMatchType.REGEX));
+        some.getInclude().add(getPattern("*:xe-3_0_0*", PatternMatchType.GLOB));
+        some.getExclude().add(getPattern(":l3", null));
+        sds.add(some);
+
+        return sds;
+    }
+
+    private PatternType getPattern(String value, PatternMatchType type) {
+        PatternType pattern = factory.createPatternType();
+        pattern.setValue(value);
+        pattern.setType(type);
+        return pattern;
+    }
+
+    /**
+     * Get the peerings of a domain.  A peering is created for each ENNI
+     * link paired with a link in another generated domain.
+     *
+     * @param domain The index of the domain.
+     * @return The list of peerings.
+     */
+    public List<PeeringType> getPeerings(int domain) {
+        DomainLayout layout = getLayout(domain);
+        DomainLayout next = getLayout((domain + 1) % domains);
+        DomainLayout previous = getLayout((domain + domains - 1) % domains);
+
+        List<PeeringType> peerings = new ArrayList<>();
+        for (int ordinal = 0; ordinal < layout.getEnniCount(); ordinal++) {
+            int peer = getPeerDomain(domain, ordinal, layout.getEnniCount());
+            if (peer < 0) {
+                continue;
+            }
+
+            DomainLayout peerLayout = (ordinal % 2 == 0) ? next : previous;
+            String remoteLinkId = NsiUtilities.normalizeId(getLinkId(peer, peerLayout.getEnniLink(ordinal ^ 1)));
+            long vlanKey = (ordinal % 2 == 0) ? hash(SALT_PEER, domain, ordinal) : hash(SALT_PEER, peer, ordinal ^ 1);
+
+            ParameterType labels = factory.createParameterType();
+            labels.setType(Constants.NML_ETHERNET_VLAN);
+            labels.setValue(getVlanRange(vlanKey));
+
+            PeeringType peering = factory.createPeeringType();
+            peering.setId(NsiUtilities.normalizeId(getLinkId(domain, layout.getEnniLink(ordinal))));
+            peering.setInbound(NsiUtilities.getOutboundPort(remoteLinkId));
+            peering.setOutbound(NsiUtilities.getInboundPort(remoteLinkId));
+            peering.setLabels(labels);
+            peerings.add(peering);
+        }
+
+        return peerings;
+    }
+
+    /**
+     * Get the translator configuration of a domain.  Paths are relative to
+     * the translator base directory.
+     *
+     * @param domain The index of the domain.
+     * @param nsaFile Path of the NSA description document.
+     * @param outputDirectory Directory for the NML topology and mapping files.
+     * @return The translator configuration.
+     */
+    public ConfigurationType getConfiguration(int domain, String nsaFile, String outputDirectory) {
+        String name = getDomainName(domain);
+
+        SourceType nmwg = factory.createSourceType();
+        nmwg.setBaseURL(baseURL);
+        if (parser.isPresent()) {
+            nmwg.setParser(parser.get());
+        }
+
+        ConfigurationType conf = factory.createConfigurationType();
+        conf.setNmwg(nmwg);
+        conf.setNsa(nsaFile);
+        if (dds.isPresent()) {
+            DdsType ddsType = factory.createDdsType();
+            ddsType.setValue(dds.get());
+            conf.setDds(ddsType);
+        }
+        conf.setTopology(outputDirectory + "/topology-" + name + ".xml");
+        conf.setMapping(outputDirectory + "/mapping-" + name + ".json");
+        conf.setLifeTime(lifeTime);
+        conf.getServiceDefintion().addAll(getServiceDefinitions());
+        conf.getPeering().addAll(getPeerings(domain));
+
+        SecureType client = factory.createSecureType();
+        client.setKeyStore(getKeyStore(keyStore));
+        client.setTrustStore(getKeyStore(trustStore));
+        conf.setClient(client);
+        return conf;
+    }
+
+    private KeyStoreType getKeyStore(String file) {
+        KeyStoreType store = factory.createKeyStoreType();
+        store.setFile(file);
+        store.setPassword(storePassword);
+        store.setType(Properties.DEFAULT_SSL_KEYSTORE_TYPE);
+        return store;
+    }
+
+    /**
+     * Get the NSA description document of a domain.
+     *
+     * @param domain The index of the domain.
+     * @return The NSA description document.
+     * @throws DatatypeConfigurationException If the document times could not be created.
+     */
+    public NsaType getNsa(int domain) throws DatatypeConfigurationException {
+        String name = getDomainName(domain);
+        String networkId = getNetworkId(domain);
+        XMLGregorianCalendar now = NsiUtilities.xmlGregorianCalendar();
+
+        NsaType nsa = nsaFactory.createNsaType();
+        nsa.setId(networkId + "nsa");
+        nsa.setVersion(now);
+        nsa.setExpires(NsiUtilities.longToXMLGregorianCalendar(System.currentTimeMillis() + lifeTime * 1000));
+        nsa.setName("Generated " + name + " uPA");
+        nsa.setSoftwareVersion("generator");
+        nsa.getNetworkId().add(networkId);
+
+        InterfaceType provider = nsaFactory.createInterfaceType();
+        provider.setType(NSA_PROVIDER);
+        provider.setHref("https://" + name + "/nsi/ConnectionService");
+        nsa.getInterface().add(provider);
+
+        FeatureType upa = nsaFactory.createFeatureType();
+        upa.setType(NSA_UPA);
+        nsa.getFeature().add(upa);
+        return nsa;
+    }
+
+    private DomainLayout getLayout(int domain) {
+        return new DomainLayout(links, inni, enni, seed * 31 + domain);
+    }
+
+    /**
+     * Get the generated domain holding the peer of an ENNI link.  Even
+     * ENNI links pair with the odd ENNI link that follows them in the next
+     * domain, and odd ENNI links with the even ENNI link preceding them in
+     * the previous domain.
+     *
+     * @return The index of the peer domain, or -1 if the link peers with an
+     *      external domain.
+     */
+    private int getPeerDomain(int domain, int ordinal, int count) {
+        if (domains < 2 || (ordinal ^ 1) >= count) {
+            return -1;
+        }
+
+        return (ordinal % 2 == 0) ? (domain + 1) % domains : (domain + domains - 1) % domains;
+    }
+
+    private String getNodeId(int domain, int node) {
+        return NMWG_URN + getDomainName(domain) + ":node=rt" + node;
+    }
+
+    private String getPortId(int domain, int port) {
+        return getNodeId(domain, port / ports) + ":port=xe-" + (port % ports) + "/0/0";
+    }
+
+    private String getVlanRange(long key) {
+        int blocks = (vlanMax - vlanMin + 1) / vlanBlock;
+        int start = vlanMin + (int) Long.remainderUnsigned(key, blocks) * vlanBlock;
+        return start + "-" + (start + vlanBlock - 1);
+    }
+
+    /**
+     * Mix the seed and object coordinates into a well distributed value.
+     */
+    private long hash(long salt, long a, long b) {
+        long h = seed ^ salt;
+        h = mix(h + a * 0x9e3779b97f4a7c15L);
+        return mix(h + b * 0x9e3779b97f4a7c15L);
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
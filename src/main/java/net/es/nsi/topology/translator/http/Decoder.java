@@ -7,54 +7,42 @@ package net.es.nsi.topology.translator.http;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Base64;
 import java.util.zip.GZIPInputStream;
 import javax.xml.parsers.ParserConfigurationException;
 import net.es.nsi.topology.translator.jaxb.DomParser;
-import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.Document;
 import org.xml.sax.SAXException;
 
 /**
+ * Decodes a base64 encoded gzipped XML document into DOM.  The document is
+ * decoded, decompressed, and parsed as a single stream so the decompressed
+ * XML is never held in memory.
  *
  * @author hacksaw
  */
 public class Decoder {
     private final static Logger log = LoggerFactory.getLogger(Decoder.class);
 
-    public static Document decode(String source) throws IOException {
-        byte[] encoded = Base64.getDecoder().decode(source);
-        byte[] xml = decompress(encoded);
+    // Size of the gzip stream buffer.
+    private static final int GZIP_BUFFER_SIZE = 8 * 1024;
 
-        try {
-            Document doc = DomParser.xml2Dom(new ByteArrayInputStream(xml));
-            return doc;
+    public static Document decode(String source) throws IOException {
+        InputStream encoded = new ByteArrayInputStream(source.getBytes(StandardCharsets.US_ASCII));
+        try (InputStream is = new GZIPInputStream(Base64.getDecoder().wrap(encoded), GZIP_BUFFER_SIZE)) {
+            return DomParser.xml2Dom(is);
         }
         catch (ParserConfigurationException | SAXException ex) {
             log.error("decode: failed to parse document", ex);
             throw new IOException(ex.getMessage(), ex.getCause());
         }
-    }
-
-    private static byte[] decompress(byte[] source) throws IOException {
-        try (ByteArrayInputStream is = new ByteArrayInputStream(source)) {
-            return gunzip(is);
-        }
         catch (IOException io) {
             log.error("Failed to decompress document", io);
             throw io;
         }
     }
-
-    private static byte[] gunzip(ByteArrayInputStream is) throws IOException {
-        try (GZIPInputStream gis = new GZIPInputStream(is)) {
-            return IOUtils.toByteArray(gis);
-        }
-        catch (IOException io) {
-            log.error("Failed to gunzip document", io);
-            throw io;
-        }
-    }
 }
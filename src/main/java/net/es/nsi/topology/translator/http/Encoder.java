@@ -1,57 +1,92 @@
 package net.es.nsi.topology.translator.http;
 
+import com.google.common.io.CountingOutputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.Base64;
 import java.util.zip.GZIPOutputStream;
 import net.es.nsi.topology.translator.jaxb.DomParser;
+import net.es.nsi.topology.translator.jfr.EncodeEvent;
+import net.es.nsi.topology.translator.metrics.Metrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.Document;
+import org.w3c.dom.Element;
 
 /**
+ * Encodes a DOM document as base64 encoded gzipped XML.  The document is
+ * serialized directly into the gzip stream, which is base64 encoded as it
+ * is written into a single buffer, so no intermediate copy of the XML or
+ * compressed document is created.  Callers that know the expected encoded
+ * size, such as from a previous publication of the document, pass it so
+ * the buffer does not need to grow.
  *
  * @author hacksaw
  */
 public class Encoder {
     private final static Logger log = LoggerFactory.getLogger(Encoder.class);
 
+    // Initial size of the encoded document buffer.
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    // Size of the gzip stream buffer.
+    private static final int GZIP_BUFFER_SIZE = 8 * 1024;
+
+    /**
+     * Encode a DOM document of unknown size as base64 encoded gzipped XML.
+     *
+     * @param doc The document to encode.
+     * @return The encoded document.
+     * @throws IOException If the document could not be serialized or compressed.
+     */
     public static String encode(Document doc) throws IOException {
+        return encode(doc, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Encode a DOM document as base64 encoded gzipped XML.
+     *
+     * @param doc The document to encode.
+     * @param sizeHint The expected size of the encoded document in bytes.
+     * @return The encoded document.
+     * @throws IOException If the document could not be serialized or compressed.
+     */
+    public static String encode(Document doc, int sizeHint) throws IOException {
         if (doc == null) {
             return null;
         }
 
-        String toEncode;
-        try {
-            toEncode = DomParser.doc2Xml(doc);
-        } catch (Exception ex) {
-            log.error("Encoder: failed to serialize XML document", ex);
-            throw new IOException(ex);
-        }
-        byte[] compressed = compress(toEncode.getBytes(Charset.forName("UTF-8")));
-        String encoded = Base64.getEncoder().encodeToString(compressed);
-        return encoded;
-    }
+        EncodeEvent event = new EncodeEvent();
+        event.begin();
 
-    private static byte[] compress(byte[] source) throws IOException {
-        try (ByteArrayOutputStream os = new ByteArrayOutputStream(source.length)) {
-            return gzip(os, source).toByteArray();
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream(Math.max(sizeHint, 32));
+        long xmlBytes;
+        try (CountingOutputStream os = new CountingOutputStream(
+                new GZIPOutputStream(Base64.getEncoder().wrap(encoded), GZIP_BUFFER_SIZE))) {
+            DomParser.doc2Xml(doc, os);
+            xmlBytes = os.getCount();
         }
         catch (IOException io) {
-            log.error("Failed to compress source", io);
+            log.error("Encoder: failed to compress XML document", io);
             throw io;
         }
-    }
-
-    private static ByteArrayOutputStream gzip(ByteArrayOutputStream os, byte[] source) throws IOException {
-        try (GZIPOutputStream gos = new GZIPOutputStream(os)) {
-            gos.write(source);
-            return os;
+        catch (Exception ex) {
+            log.error("Encoder: failed to serialize XML document", ex);
+            throw new IOException(ex);
         }
-        catch (IOException io) {
-            log.error("Failed to gzip source stream", io);
-            throw io;
+
+        if (event.shouldCommit()) {
+            // Signatures have no identifier so are named by their element.
+            Element root = doc.getDocumentElement();
+            event.document = root.hasAttribute("id") ? root.getAttribute("id") : root.getLocalName();
+            event.domain = Metrics.getDomain(root.getAttribute("id"));
+            event.xmlBytes = xmlBytes;
+            event.encodedBytes = encoded.size();
+            event.commit();
         }
+
+        // Base64 output is ASCII so decode directly from the buffer.
+        return encoded.toString(StandardCharsets.US_ASCII.name());
     }
 }
@@ -12,6 +12,7 @@ import net.es.nsi.topology.translator.Properties;
 import net.es.nsi.topology.translator.jaxb.configuration.KeyStoreType;
 import net.es.nsi.topology.translator.jaxb.configuration.ObjectFactory;
 import net.es.nsi.topology.translator.jaxb.configuration.SecureType;
+import net.es.nsi.topology.translator.jaxb.configuration.TransportType;
 import org.glassfish.jersey.SslConfigurator;
 
 /**
@@ -22,6 +23,9 @@ import org.glassfish.jersey.SslConfigurator;
 public class HttpsConfig {
     private final ObjectFactory factory = new ObjectFactory();
     private final SecureType config;
+    private final KeyStoreType keyStore;
+    private final KeyStoreType trustStore;
+    private final TransportType transport;
 
     /**
      * 
@@ -30,6 +34,17 @@ public class HttpsConfig {
      * @throws IOException 
      */
     public HttpsConfig(String basedir, SecureType config) throws IOException {
+        this(basedir, config, null);
+    }
+
+    /**
+     *
+     * @param basedir
+     * @param config
+     * @param transport HTTP transport settings, or null for the defaults.
+     * @throws IOException
+     */
+    public HttpsConfig(String basedir, SecureType config, TransportType transport) throws IOException {
         if (config == null) {
             throw new IllegalArgumentException("HttpConfig: server configuration not provided");
         }
@@ -59,6 +74,9 @@ public class HttpsConfig {
         trustStore.setFile(pb.getRealPath(trustStore.getFile()));
 
         this.config = config;
+        this.keyStore = keyStore;
+        this.trustStore = trustStore;
+        this.transport = (transport == null) ? factory.createTransportType() : transport;
     }
 
     /**
@@ -73,16 +91,53 @@ public class HttpsConfig {
      */
     public SSLContext getSSLContext() throws KeyStoreException, IOException, NoSuchAlgorithmException, CertificateException, KeyManagementException, UnrecoverableKeyException {
         SslConfigurator sslConfig = SslConfigurator.newInstance()
-            .trustStoreFile(config.getTrustStore().getFile())
-            .trustStorePassword(config.getTrustStore().getPassword())
-            .trustStoreType(config.getTrustStore().getType())
-            .keyStoreFile(config.getKeyStore().getFile())
-            .keyPassword(config.getKeyStore().getPassword())
-            .keyStoreType(config.getKeyStore().getType())
+            .trustStoreFile(trustStore.getFile())
+            .trustStorePassword(trustStore.getPassword())
+            .trustStoreType(trustStore.getType())
+            .keyStoreFile(keyStore.getFile())
+            .keyPassword(keyStore.getPassword())
+            .keyStoreType(keyStore.getType())
             .securityProtocol("TLS");
         return sslConfig.createSSLContext();
     }
 
+    /**
+     * Get the HTTP transport settings.
+     *
+     * @return the transport settings.
+     */
+    public TransportType getTransport() {
+        return transport;
+    }
+
+    /**
+     * Get a key identifying the TLS and transport profile of this
+     * configuration.  Two configurations with the same profile can share an
+     * HTTP client.
+     *
+     * @return the profile key.
+     */
+    public String getProfile() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(isProduction())
+                .append('\0').append(keyStore.getFile())
+                .append('\0').append(keyStore.getType())
+                .append('\0').append(keyStore.getPassword())
+                .append('\0').append(trustStore.getFile())
+                .append('\0').append(trustStore.getType())
+                .append('\0').append(trustStore.getPassword())
+                .append('\0').append(transport.getMaxTotal())
+                .append('\0').append(transport.getMaxPerRoute())
+                .append('\0').append(transport.getConnectTimeout())
+                .append('\0').append(transport.getReadTimeout())
+                .append('\0').append(transport.getConnectionRequestTimeout())
+                .append('\0').append(transport.getTimeToLive())
+                .append('\0').append(transport.getValidateAfterInactivity())
+                .append('\0').append(transport.getIdleTimeout())
+                .append('\0').append(transport.getEvictionInterval());
+        return sb.toString();
+    }
+
     /**
      * 
      * @return 
@@ -1,5 +1,6 @@
 package net.es.nsi.topology.translator.http;
 
+import com.google.common.base.Optional;
 import net.es.nsi.topology.translator.model.NsiConstants;
 import java.io.IOException;
 import java.io.InputStream;
@@ -8,6 +9,7 @@ import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
 import java.security.UnrecoverableKeyException;
 import java.security.cert.CertificateException;
+import java.util.concurrent.TimeUnit;
 import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.SSLContext;
 import javax.ws.rs.client.Client;
@@ -21,6 +23,8 @@ import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response;
 import javax.xml.bind.JAXBElement;
 import net.es.nsi.topology.translator.Properties;
+import net.es.nsi.topology.translator.jaxb.JaxbContextResolver;
+import net.es.nsi.topology.translator.jaxb.configuration.TransportType;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.config.Registry;
 import org.apache.http.config.RegistryBuilder;
@@ -30,7 +34,9 @@ import org.apache.http.conn.socket.PlainConnectionSocketFactory;
 import org.apache.http.conn.ssl.DefaultHostnameVerifier;
 import org.apache.http.conn.ssl.NoopHostnameVerifier;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.IdleConnectionEvictor;
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
 import org.glassfish.jersey.message.GZipEncoder;
 import org.glassfish.jersey.apache.connector.ApacheClientProperties;
 import org.glassfish.jersey.apache.connector.ApacheConnectorProvider;
@@ -43,7 +49,9 @@ import org.slf4j.LoggerFactory;
 
 /**
  * A simple client wrapper around Jersey providing needed configuration for
- * Apache and SSL.
+ * Apache and SSL.  The Apache connection pool is sized and timed out
+ * according to the transport settings, and idle or expired connections are
+ * closed by a background evictor.
  * 
  * @author hacksaw
  */
@@ -51,13 +59,26 @@ public class RestClient {
     private final static Logger log = LoggerFactory.getLogger(RestClient.class);
     private final Client client;
     private final ClientConfig clientConfig;
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final Optional<IdleConnectionEvictor> evictor;
     
     /**
      * Create a simple RESTful client with no SSL configuration.
      */
     public RestClient() {
-        clientConfig = configureClient();
+        this(new TransportType());
+    }
+
+    /**
+     * Create a simple RESTful client with no SSL configuration.
+     *
+     * @param transport The HTTP transport settings.
+     */
+    public RestClient(TransportType transport) {
+        clientConfig = configureClient(transport);
         client = ClientBuilder.newBuilder().withConfig(clientConfig).build();
+        connectionManager = getConnectionManager(clientConfig);
+        evictor = startEvictor(connectionManager, transport);
     }
 
     /**
@@ -75,6 +96,32 @@ public class RestClient {
     public RestClient(HttpsConfig config) throws KeyStoreException, IOException, NoSuchAlgorithmException, CertificateException, KeyManagementException, UnrecoverableKeyException {
         clientConfig = configureSecureClient(config);
         client = ClientBuilder.newBuilder().withConfig(clientConfig).build();
+        connectionManager = getConnectionManager(clientConfig);
+        evictor = startEvictor(connectionManager, config.getTransport());
+    }
+
+    private static PoolingHttpClientConnectionManager getConnectionManager(ClientConfig clientConfig) {
+        return (PoolingHttpClientConnectionManager) clientConfig.getProperty(ApacheClientProperties.CONNECTION_MANAGER);
+    }
+
+    /**
+     * Start a background task closing expired connections and connections
+     * idle for longer than the configured idle timeout.
+     *
+     * @param connectionManager The connection pool to evict from.
+     * @param transport The HTTP transport settings.
+     * @return The evictor if one is configured.
+     */
+    private static Optional<IdleConnectionEvictor> startEvictor(PoolingHttpClientConnectionManager connectionManager, TransportType transport) {
+        if (transport.getEvictionInterval() <= 0) {
+            return Optional.absent();
+        }
+
+        IdleConnectionEvictor idle = new IdleConnectionEvictor(connectionManager,
+                transport.getEvictionInterval(), TimeUnit.MILLISECONDS,
+                Math.max(transport.getIdleTimeout(), 0), TimeUnit.MILLISECONDS);
+        idle.start();
+        return Optional.of(idle);
     }
 
     /**
@@ -116,8 +163,10 @@ public class RestClient {
                 .register("https", sslSocketFactory)
                 .build();
 
-        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(registry);
-        return getClientConfig(connectionManager);
+        TransportType transport = config.getTransport();
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(
+                registry, null, null, null, getTimeToLive(transport), TimeUnit.MILLISECONDS);
+        return getClientConfig(connectionManager, transport);
     }
 
     /**
@@ -125,26 +174,62 @@ public class RestClient {
      * @return The specific Jersey client configuration.
      */
     public static ClientConfig configureClient() {
-        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
-        return getClientConfig(connectionManager);
+        return configureClient(new TransportType());
     }
 
     /**
-     * Configure Jersey and Apache specific client parameters.
+     * Create a basic client configuration for a Jersey client backed by Apache.
+     *
+     * @param transport The HTTP transport settings.
+     * @return The specific Jersey client configuration.
+     */
+    public static ClientConfig configureClient(TransportType transport) {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(
+                getTimeToLive(transport), TimeUnit.MILLISECONDS);
+        return getClientConfig(connectionManager, transport);
+    }
+
+    private static long getTimeToLive(TransportType transport) {
+        return transport.getTimeToLive() > 0 ? transport.getTimeToLive() : -1;
+    }
+
+    /**
+     * Configure Jersey and Apache specific client parameters using the
+     * default transport settings.
      * 
      * @param connectionManager The configured connection manager that will be used by Jersey.
      * @return The Jersey client configuration.
      */
     public static ClientConfig getClientConfig(PoolingHttpClientConnectionManager connectionManager) {
+        return getClientConfig(connectionManager, new TransportType());
+    }
+
+    /**
+     * Configure Jersey and Apache specific client parameters.
+     *
+     * @param connectionManager The configured connection manager that will be used by Jersey.
+     * @param transport The HTTP transport settings.
+     * @return The Jersey client configuration.
+     */
+    public static ClientConfig getClientConfig(PoolingHttpClientConnectionManager connectionManager, TransportType transport) {
         ClientConfig clientConfig = new ClientConfig();
 
         // We want to use the Apache connector for chunk POST support.
         clientConfig.connectorProvider(new ApacheConnectorProvider());
-        connectionManager.setDefaultMaxPerRoute(20);
-        connectionManager.setMaxTotal(80);
+        connectionManager.setDefaultMaxPerRoute(transport.getMaxPerRoute());
+        connectionManager.setMaxTotal(transport.getMaxTotal());
+        connectionManager.setValidateAfterInactivity(transport.getValidateAfterInactivity());
         clientConfig.property(ApacheClientProperties.CONNECTION_MANAGER, connectionManager);
 
+        // Bound the time spent connecting and waiting for data so a slow
+        // server cannot hang a run.
+        clientConfig.property(ClientProperties.CONNECT_TIMEOUT, transport.getConnectTimeout());
+        clientConfig.property(ClientProperties.READ_TIMEOUT, transport.getReadTimeout());
+
         clientConfig.register(GZipEncoder.class);
+
+        // Marshal our JAXB entities with the shared contexts.
+        clientConfig.register(JaxbContextResolver.class);
         //clientConfig.register(new MoxyXmlFeature());
         //clientConfig.register(FollowRedirectFilter.class);
         clientConfig.property(ClientProperties.REQUEST_ENTITY_PROCESSING, RequestEntityProcessing.CHUNKED);
@@ -159,6 +244,9 @@ public class RestClient {
         custom.setExpectContinueEnabled(true);
         custom.setRelativeRedirectsAllowed(true);
         custom.setRedirectsEnabled(true);
+        custom.setConnectTimeout(transport.getConnectTimeout());
+        custom.setSocketTimeout(transport.getReadTimeout());
+        custom.setConnectionRequestTimeout(transport.getConnectionRequestTimeout());
         clientConfig.property(ApacheClientProperties.REQUEST_CONFIG, custom.build());
 
         return clientConfig;
@@ -172,12 +260,25 @@ public class RestClient {
         return client;
     }
 
+    /**
+     * Get the statistics of the connection pool.
+     *
+     * @return the leased, available, pending and maximum connection counts.
+     */
+    public PoolStats getPoolStats() {
+        return connectionManager.getTotalStats();
+    }
+
     /**
      * Close the Jersey HTTP client.  This specific instance can no longer be used
      * after this method has been invoked.
      */
     public void close() {
+        if (evictor.isPresent()) {
+            evictor.get().shutdown();
+        }
         client.close();
+        connectionManager.shutdown();
     }
 
     /**
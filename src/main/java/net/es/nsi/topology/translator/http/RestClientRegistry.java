@@ -0,0 +1,114 @@
+package net.es.nsi.topology.translator.http;
+
+import java.io.IOException;
+import java.security.KeyManagementException;
+import java.security.KeyStoreException;
+import java.security.NoSuchAlgorithmException;
+import java.security.UnrecoverableKeyException;
+import java.security.cert.CertificateException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A process-wide registry of RESTful clients with one pooled client per
+ * distinct TLS and transport profile.  Sharing a client means the keystores are loaded and
+ * the SSL context created once, pooled connections are reused across NMWG
+ * and DDS requests, and TLS sessions are resumed from the shared SSL context
+ * session cache rather than performing a full handshake each time.
+ *
+ * @author hacksaw
+ */
+public class RestClientRegistry {
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    private final Map<String, RestClient> clients = new HashMap<>();
+
+    /**
+     * Private constructor loads the registry on first use.
+     */
+    private RestClientRegistry() {
+    }
+
+    /**
+     * An internal static class that invokes our private constructor on object
+     * creation.
+     */
+    private static class RestClientRegistryHolder {
+        public static final RestClientRegistry INSTANCE = new RestClientRegistry();
+    }
+
+    /**
+     * Returns an instance of this singleton class.
+     *
+     * @return A RestClientRegistry object.
+     */
+    public static RestClientRegistry getInstance() {
+        return RestClientRegistryHolder.INSTANCE;
+    }
+
+    /**
+     * Get the shared client for the TLS profile of the provided
+     * configuration, creating it if needed.  The returned client must not be
+     * closed by the caller.
+     *
+     * @param config The SSL configuration for the RESTful client.
+     * @return The shared client.
+     *
+     * @throws KeyStoreException
+     * @throws IOException
+     * @throws NoSuchAlgorithmException
+     * @throws CertificateException
+     * @throws KeyManagementException
+     * @throws UnrecoverableKeyException
+     */
+    public synchronized RestClient get(HttpsConfig config) throws KeyStoreException, IOException, NoSuchAlgorithmException, CertificateException, KeyManagementException, UnrecoverableKeyException {
+        String profile = config.getProfile();
+        RestClient client = clients.get(profile);
+        if (client == null) {
+            log.debug("Creating shared REST client, profiles=" + (clients.size() + 1));
+            client = new RestClient(config);
+            clients.put(profile, client);
+        }
+
+        return client;
+    }
+
+    /**
+     * Log the connection pool statistics of all shared clients.
+     */
+    public void logPoolStats() {
+        List<RestClient> current;
+        synchronized (this) {
+            current = new ArrayList<>(clients.values());
+        }
+
+        int index = 0;
+        for (RestClient client : current) {
+            log.info("REST client " + index++ + " pool " + client.getPoolStats());
+        }
+    }
+
+    /**
+     * Close all shared clients and their connection pools.  Clients
+     * requested after this call are created anew.
+     */
+    public void closeAll() {
+        List<RestClient> closing;
+        synchronized (this) {
+            closing = new ArrayList<>(clients.values());
+            clients.clear();
+        }
+
+        for (RestClient client : closing) {
+            try {
+                client.close();
+            }
+            catch (RuntimeException ex) {
+                log.error("Failed to close REST client.", ex);
+            }
+        }
+    }
+}
@@ -8,6 +8,8 @@ package net.es.nsi.topology.translator.jaxb;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
 import java.nio.charset.StandardCharsets;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -26,6 +28,33 @@ import org.xml.sax.SAXException;
  * @author hacksaw
  */
 public class DomParser {
+    // Document builders are not thread safe, and creating the factory
+    // involves a service lookup, so keep a namespace aware builder per thread.
+    private static final ThreadLocal<DocumentBuilder> documentBuilder = new ThreadLocal<>();
+
+    /**
+     * Get a namespace aware document builder for use by the calling thread.
+     * The builder is reset to its original configuration on each call and
+     * must not be passed to another thread.
+     *
+     * @return The document builder.
+     * @throws ParserConfigurationException
+     */
+    public static DocumentBuilder getDocumentBuilder() throws ParserConfigurationException {
+        DocumentBuilder builder = documentBuilder.get();
+        if (builder == null) {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setNamespaceAware(true);
+            builder = factory.newDocumentBuilder();
+            documentBuilder.set(builder);
+        }
+        else {
+            builder.reset();
+        }
+
+        return builder;
+    }
+
     /**
      * Convert an InputStream to Dom Document.
      *
@@ -36,11 +65,7 @@ public class DomParser {
      * @throws IOException
      */
     public static Document xml2Dom(InputStream is) throws ParserConfigurationException, SAXException, IOException {
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-        factory.setNamespaceAware(true);
-        DocumentBuilder builder = factory.newDocumentBuilder();
-
-        return builder.parse(is);
+        return getDocumentBuilder().parse(is);
     }
 
     /**
@@ -52,12 +77,31 @@ public class DomParser {
      * @throws javax.xml.transform.TransformerConfigurationException
      */
     public static String doc2Xml(Document doc) throws TransformerException, TransformerConfigurationException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        doc2Xml(doc, baos);
+        try {
+            return baos.toString(StandardCharsets.UTF_8.name());
+        }
+        catch (UnsupportedEncodingException ex) {
+            // UTF-8 is always supported.
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Serialize a DOM Document as UTF-8 encoded XML directly to an output
+     * stream.  The stream is not closed.
+     *
+     * @param doc
+     * @param os
+     * @throws javax.xml.transform.TransformerException
+     * @throws javax.xml.transform.TransformerConfigurationException
+     */
+    public static void doc2Xml(Document doc, OutputStream os) throws TransformerException, TransformerConfigurationException {
         doc.setXmlStandalone(true);
         doc.setStrictErrorChecking(true);
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
         TransformerFactory tf = TransformerFactory.newInstance();
         Transformer trans = tf.newTransformer();
-        trans.transform(new DOMSource(doc), new StreamResult(baos));
-        return new String(baos.toByteArray(), StandardCharsets.UTF_8);
+        trans.transform(new DOMSource(doc), new StreamResult(os));
     }
 }
@@ -0,0 +1,116 @@
+package net.es.nsi.topology.translator.jaxb;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Holds the JAXBContext for each set of packages, created on first use and
+ * shared by every parser using exactly the same packages, and by Jersey
+ * through the JaxbContextResolver.  Creating a context is
+ * the dominant startup cost, so contexts known to be needed can be
+ * prefetched on a background thread while startup continues, and contexts
+ * that are never used are never created.  The time taken to create each
+ * context is logged.
+ *
+ * A context that fails to be created is not cached so the next request
+ * will try again.
+ *
+ * @author hacksaw
+ */
+public class JaxbContextCache {
+    private final static Logger log = LoggerFactory.getLogger(JaxbContextCache.class);
+
+    // Contexts indexed by normalized package list.
+    private final static ConcurrentHashMap<String, CompletableFuture<JAXBContext>> contexts = new ConcurrentHashMap<>();
+
+    // Daemon threads creating prefetched contexts.
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(
+            new ThreadFactoryBuilder().setNameFormat("jaxb-context-%d").setDaemon(true).build());
+
+    private JaxbContextCache() {
+    }
+
+    /**
+     * Get the context for the specified packages, creating it on the calling
+     * thread if it has not already been created or prefetched.
+     *
+     * @param packages Colon separated list of package names.
+     * @return The JAXBContext for the packages.
+     * @throws JAXBException If the context could not be created.
+     */
+    public static JAXBContext get(String packages) throws JAXBException {
+        String key = normalize(packages);
+
+        CompletableFuture<JAXBContext> future = contexts.get(key);
+        if (future == null) {
+            CompletableFuture<JAXBContext> created = new CompletableFuture<>();
+            future = contexts.putIfAbsent(key, created);
+            if (future == null) {
+                future = created;
+                create(key, created);
+            }
+        }
+
+        try {
+            return future.join();
+        }
+        catch (CompletionException ex) {
+            if (ex.getCause() instanceof JAXBException) {
+                throw (JAXBException) ex.getCause();
+            }
+
+            throw ex;
+        }
+    }
+
+    /**
+     * Start creating the context for the specified packages on a background
+     * thread if it has not already been created.
+     *
+     * @param packages Colon separated list of package names.
+     */
+    public static void prefetch(String packages) {
+        String key = normalize(packages);
+
+        CompletableFuture<JAXBContext> created = new CompletableFuture<>();
+        if (contexts.putIfAbsent(key, created) == null) {
+            EXECUTOR.execute(() -> create(key, created));
+        }
+    }
+
+    private static void create(String packages, CompletableFuture<JAXBContext> future) {
+        long start = System.nanoTime();
+        try {
+            JAXBContext jc = JAXBContext.newInstance(packages);
+            log.info("Created JAXBContext for " + packages + " in " +
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+            future.complete(jc);
+        }
+        catch (JAXBException | RuntimeException ex) {
+            log.error("Failed to load JAXB instance for packages " + packages, ex);
+            contexts.remove(packages, future);
+            future.completeExceptionally(ex);
+        }
+    }
+
+    /**
+     * Order the package list so the same packages listed in a different
+     * order share a context.
+     */
+    private static String normalize(String packages) {
+        List<String> names = Splitter.on(':').trimResults().omitEmptyStrings().splitToList(packages);
+        return Joiner.on(':').join(names.stream().distinct().sorted().iterator());
+    }
+}
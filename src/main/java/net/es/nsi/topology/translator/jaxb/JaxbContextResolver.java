@@ -0,0 +1,41 @@
+package net.es.nsi.topology.translator.jaxb;
+
+import javax.ws.rs.ext.ContextResolver;
+import javax.ws.rs.ext.Provider;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Supplies Jersey with the JAXBContext from the JaxbContextCache for our
+ * generated JAXB classes, so the entities sent and received over HTTP share
+ * the contexts used by the parsers rather than Jersey creating its own.
+ * Other classes are left to Jersey's default context handling.
+ *
+ * @author hacksaw
+ */
+@Provider
+public class JaxbContextResolver implements ContextResolver<JAXBContext> {
+    private final static Logger log = LoggerFactory.getLogger(JaxbContextResolver.class);
+
+    // Root package of the generated JAXB classes.
+    private static final String JAXB_PACKAGE = "net.es.nsi.topology.translator.jaxb.";
+
+    @Override
+    public JAXBContext getContext(Class<?> type) {
+        Package pkg = type.getPackage();
+        if (pkg == null || !pkg.getName().startsWith(JAXB_PACKAGE)) {
+            return null;
+        }
+
+        try {
+            return JaxbContextCache.get(pkg.getName());
+        }
+        catch (JAXBException ex) {
+            // Let Jersey try with a context of its own.
+            log.error("JaxbContextResolver: no context for " + type.getName(), ex);
+            return null;
+        }
+    }
+}
@@ -18,48 +18,84 @@ import javax.xml.bind.JAXBElement;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
 import javax.xml.bind.Unmarshaller;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamReader;
 import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.Document;
 
 /**
- * A singleton to load the very expensive JAXBContext once.
+ * A singleton to load the very expensive JAXBContext once.  The context is
+ * obtained from the JaxbContextCache on first use, so a parser that is never
+ * used costs nothing, and may be prefetched in the background.
+ *
+ * Marshallers and unmarshallers are not thread safe, so each thread is
+ * given its own, created on first use with our standard properties and
+ * reused for all later conversions on that thread.  All methods may be
+ * called concurrently.
  *
  * @author hacksaw
  */
 public class JaxbParser {
     // Get a logger just in case we encounter a problem.
     private final Logger log = LoggerFactory.getLogger(getClass());
-    private JAXBContext jc = null;
+    private final String packages;
+    private volatile JAXBContext jc = null;
+
+    // Per-thread marshaller and unmarshaller for this context.
+    private final ThreadLocal<Marshaller> marshallers = new ThreadLocal<>();
+    private final ThreadLocal<Unmarshaller> unmarshallers = new ThreadLocal<>();
 
     /**
-     * Private constructor loads the JAXB context once and prevents
-     * instantiation from other classes.
+     * Creates a parser for the specified packages.  The JAXB context is not
+     * loaded until first use.
      *
      * @param packages
      */
     public JaxbParser(String packages) {
-        try {
-            // Load a JAXB context.
-            jc = JAXBContext.newInstance(packages);
+        this.packages = packages;
+    }
+
+    /**
+     * Start loading the JAXB context for this parser in the background if
+     * it has not already been loaded.
+     */
+    public void prefetch() {
+        if (jc == null) {
+            JaxbContextCache.prefetch(packages);
         }
-        catch (JAXBException jaxb) {
-            log.error("JaxbParser: Failed to load JAXB instance for packages " + packages, jaxb);
+    }
+
+    private JAXBContext context() throws JAXBException {
+        JAXBContext context = jc;
+        if (context == null) {
+            context = JaxbContextCache.get(packages);
+            jc = context;
         }
+
+        return context;
     }
 
     private Marshaller marshaller() throws JAXBException {
-        Marshaller marshaller = jc.createMarshaller();
-        marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+        Marshaller marshaller = marshallers.get();
+        if (marshaller == null) {
+            marshaller = context().createMarshaller();
+            marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+            marshallers.set(marshaller);
+        }
+
         return marshaller;
     }
 
     private Unmarshaller unmarshaller() throws JAXBException {
-        return jc.createUnmarshaller();
+        Unmarshaller unmarshaller = unmarshallers.get();
+        if (unmarshaller == null) {
+            unmarshaller = context().createUnmarshaller();
+            unmarshallers.set(unmarshaller);
+        }
+
+        return unmarshaller;
     }
 
     /**
@@ -110,10 +146,7 @@ public class JaxbParser {
      */
     public Document jaxb2Dom(JAXBElement<?> jaxbElement) throws JAXBException, ParserConfigurationException {
         // Convert JAXB representation to DOM.
-        DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-        dbf.setNamespaceAware(true);
-        DocumentBuilder db = dbf.newDocumentBuilder();
-        Document doc = db.newDocument();
+        Document doc = DomParser.getDocumentBuilder().newDocument();
         marshaller().marshal(jaxbElement, doc);
         return doc;
     }
@@ -224,6 +257,28 @@ public class JaxbParser {
         throw new JAXBException("Expected XML for class " + xmlClass.getCanonicalName() + " but found " + element.getDeclaredType().getCanonicalName());
     }
 
+    /**
+     * Convert the XML document read from the XMLStreamReader to a JAXB object.
+     *
+     * @param <T> Target type of the JAXB object.
+     * @param xmlClass The target class of the JAXB object.
+     * @param reader XMLStreamReader positioned at the start of the XML document.
+     * @return JAXB object representing the XML document.
+     * @throws JAXBException Could not parse the specified XML document.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Object> T xml2Jaxb(Class<T> xmlClass, XMLStreamReader reader) throws JAXBException {
+        JAXBElement<T> element = (JAXBElement<T>) unmarshaller().unmarshal(reader);
+        if (element == null) {
+            throw new IllegalArgumentException("Unable to convert stream to JAXB, class=" + xmlClass.getName());
+        }
+        else if (element.getDeclaredType() == xmlClass) {
+            return element.getValue();
+        }
+
+        throw new JAXBException("Expected XML for class " + xmlClass.getCanonicalName() + " but found " + element.getDeclaredType().getCanonicalName());
+    }
+
     // Size of the lookahead buffer for reader.
     private final static int LOOKAHEAD = 1024;
 
@@ -0,0 +1,13 @@
+package net.es.nsi.topology.translator.jfr;
+
+/**
+ * Flight Recorder event covering the gzip and base64 encoding of a
+ * document.
+ *
+ * @author hacksaw
+ */
+public class EncodeEvent extends TranslatorEvent {
+    public String document;
+    public long xmlBytes;
+    public long encodedBytes;
+}
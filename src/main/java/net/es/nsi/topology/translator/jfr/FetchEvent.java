@@ -0,0 +1,16 @@
+package net.es.nsi.topology.translator.jfr;
+
+/**
+ * Flight Recorder event covering the retrieval of an NMWG topology, from
+ * the query to the parsed domain.  The document is streamed into the
+ * parser so the parse event is nested within this event.
+ *
+ * @author hacksaw
+ */
+public class FetchEvent extends TranslatorEvent {
+    public String url;
+    public int status;
+    public long bytes;
+    public int links;
+    public boolean snapshot;
+}
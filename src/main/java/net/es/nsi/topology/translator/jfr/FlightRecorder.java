@@ -0,0 +1,107 @@
+package net.es.nsi.topology.translator.jfr;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Entry point to the Java Flight Recorder.  The jdk.jfr API is only present
+ * in JDK 11 or later, and JDK 8u262 or later, so all use of it is confined
+ * to the Jfr classes of this package, which are loaded only after the API
+ * has been found.  On other JVMs events are ignored and recordings cannot
+ * be started.
+ *
+ * @author hacksaw
+ */
+public final class FlightRecorder {
+    private final static Logger log = LoggerFactory.getLogger(FlightRecorder.class);
+
+    // The recorder using the jdk.jfr API, named so it is not linked here.
+    private static final String JFR_RECORDER = "net.es.nsi.topology.translator.jfr.JfrRecorder";
+
+    private static final Recorder RECORDER = load();
+
+    private FlightRecorder() {
+    }
+
+    private static Recorder load() {
+        try {
+            Class.forName("jdk.jfr.Event");
+        }
+        catch (ClassNotFoundException ex) {
+            log.info("FlightRecorder: jdk.jfr is not available, flight recorder events are disabled.");
+            return new Disabled();
+        }
+
+        try {
+            return (Recorder) Class.forName(JFR_RECORDER).getDeclaredConstructor().newInstance();
+        }
+        catch (ReflectiveOperationException | LinkageError ex) {
+            log.error("FlightRecorder: could not load " + JFR_RECORDER + ", flight recorder events are disabled.", ex);
+            return new Disabled();
+        }
+    }
+
+    /**
+     * Is the Flight Recorder available in this JVM?
+     *
+     * @return true if events can be recorded.
+     */
+    public static boolean isAvailable() {
+        return !(RECORDER instanceof Disabled);
+    }
+
+    /**
+     * Start timing an event.
+     *
+     * @param event The event to time.
+     * @return The timing of the event.
+     */
+    static Span begin(TranslatorEvent event) {
+        return RECORDER.begin(event);
+    }
+
+    /**
+     * Start a recording written to the specified file when it is stopped or
+     * the JVM exits.  The recording keeps only the most recent data, so it
+     * can run for the life of a daemon.  A failure to start the recording
+     * is logged and does not prevent the run.
+     *
+     * @param file The destination of the recording.
+     * @return The running recording if it was started.
+     */
+    public static Optional<FlightRecording> start(Path file) {
+        if (!isAvailable()) {
+            log.error("FlightRecorder: jdk.jfr is not available, not recording to " + file);
+            return Optional.empty();
+        }
+
+        try {
+            FlightRecording recording = RECORDER.start(file);
+            log.info("Flight recording started, destination=" + file);
+            return Optional.of(recording);
+        }
+        catch (IOException | ParseException | IllegalStateException | SecurityException ex) {
+            log.error("FlightRecorder: could not start recording to " + file, ex);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Recorder for JVMs without the Flight Recorder.
+     */
+    private static final class Disabled implements Recorder {
+        @Override
+        public Span begin(TranslatorEvent event) {
+            return Span.NONE;
+        }
+
+        @Override
+        public FlightRecording start(Path file) {
+            throw new IllegalStateException("jdk.jfr is not available");
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package net.es.nsi.topology.translator.jfr;
+
+import java.nio.file.Path;
+
+/**
+ * A running Flight Recorder recording started by the FlightRecorder.
+ *
+ * @author hacksaw
+ */
+public interface FlightRecording {
+    /**
+     * Get the file the recording is written to.
+     *
+     * @return The destination of the recording.
+     */
+    Path getDestination();
+
+    /**
+     * Stop the recording and write it to the destination file.  Stopping a
+     * recording that has already stopped has no effect.
+     */
+    void stop();
+}
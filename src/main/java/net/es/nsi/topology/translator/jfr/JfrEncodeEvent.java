@@ -0,0 +1,40 @@
+package net.es.nsi.topology.translator.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder form of the EncodeEvent.
+ *
+ * @author hacksaw
+ */
+@Name("net.es.nsi.topology.translator.Encode")
+@Label("Encode")
+@Description("Serialization, compression and base64 encoding of a document.")
+@Category({"NSI Translator", "Pipeline"})
+@StackTrace(false)
+final class JfrEncodeEvent extends JfrTranslatorEvent {
+    @Label("Document")
+    public String document;
+
+    @Label("XML Bytes")
+    @Description("Size of the serialized document before compression.")
+    @DataAmount
+    public long xmlBytes;
+
+    @Label("Encoded Bytes")
+    @DataAmount
+    public long encodedBytes;
+
+    @Override
+    protected void set(TranslatorEvent event) {
+        EncodeEvent e = (EncodeEvent) event;
+        document = e.document;
+        xmlBytes = e.xmlBytes;
+        encodedBytes = e.encodedBytes;
+    }
+}
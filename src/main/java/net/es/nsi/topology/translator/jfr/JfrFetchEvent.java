@@ -0,0 +1,49 @@
+package net.es.nsi.topology.translator.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder form of the FetchEvent.
+ *
+ * @author hacksaw
+ */
+@Name("net.es.nsi.topology.translator.Fetch")
+@Label("NMWG Fetch")
+@Description("Query and parse of the NMWG topology of a domain.")
+@Category({"NSI Translator", "Pipeline"})
+@StackTrace(false)
+final class JfrFetchEvent extends JfrTranslatorEvent {
+    @Label("URL")
+    public String url;
+
+    @Label("HTTP Status")
+    @Description("Status of the NMWG query, or 0 if the server could not be reached.")
+    public int status;
+
+    @Label("Bytes")
+    @Description("Size of the NMWG document received.")
+    @DataAmount
+    public long bytes;
+
+    @Label("Links")
+    public int links;
+
+    @Label("Snapshot")
+    @Description("The cached snapshot of the topology was used.")
+    public boolean snapshot;
+
+    @Override
+    protected void set(TranslatorEvent event) {
+        FetchEvent e = (FetchEvent) event;
+        url = e.url;
+        status = e.status;
+        bytes = e.bytes;
+        links = e.links;
+        snapshot = e.snapshot;
+    }
+}
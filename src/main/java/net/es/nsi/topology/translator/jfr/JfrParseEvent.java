@@ -0,0 +1,32 @@
+package net.es.nsi.topology.translator.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder form of the ParseEvent.
+ *
+ * @author hacksaw
+ */
+@Name("net.es.nsi.topology.translator.Parse")
+@Label("NMWG Parse")
+@Description("Parse, conversion and link classification of an NMWG document.")
+@Category({"NSI Translator", "Pipeline"})
+@StackTrace(false)
+final class JfrParseEvent extends JfrTranslatorEvent {
+    @Label("Parser")
+    public String parser;
+
+    @Label("Links")
+    public int links;
+
+    @Override
+    protected void set(TranslatorEvent event) {
+        ParseEvent e = (ParseEvent) event;
+        parser = e.parser;
+        links = e.links;
+    }
+}
@@ -0,0 +1,53 @@
+package net.es.nsi.topology.translator.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder form of the PublishEvent.
+ *
+ * @author hacksaw
+ */
+@Name("net.es.nsi.topology.translator.Publish")
+@Label("DDS Publish")
+@Description("Write of a document to the DDS.")
+@Category({"NSI Translator", "Pipeline"})
+@StackTrace(false)
+final class JfrPublishEvent extends JfrTranslatorEvent {
+    @Label("Document Type")
+    public String type;
+
+    @Label("Document")
+    public String document;
+
+    @Label("Operation")
+    @Description("The last HTTP operation performed.")
+    public String operation;
+
+    @Label("HTTP Status")
+    @Description("Status of the last HTTP operation, or 0 if the DDS could not be reached.")
+    public int status;
+
+    @Label("Requests")
+    public int requests;
+
+    @Label("Bytes")
+    @Description("Size of the encoded document and signature.")
+    @DataAmount
+    public long bytes;
+
+    @Override
+    protected void set(TranslatorEvent event) {
+        PublishEvent e = (PublishEvent) event;
+        type = e.type;
+        document = e.document;
+        operation = e.operation;
+        status = e.status;
+        requests = e.requests;
+        bytes = e.bytes;
+    }
+}
@@ -0,0 +1,93 @@
+package net.es.nsi.topology.translator.jfr;
+
+import com.google.common.collect.ImmutableMap;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.Supplier;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+/**
+ * Recorder using the jdk.jfr API, loaded by the FlightRecorder only when
+ * the API is available.  Recordings use the JDK "default" settings,
+ * intended for continuous use in production, with the translator events
+ * enabled, and keep at most the last 24 hours or 256 MB of data.
+ *
+ * @author hacksaw
+ */
+final class JfrRecorder implements Recorder {
+    // Settings applied to the recording.
+    private static final String SETTINGS = "default";
+
+    // Limits on the data kept by a recording, so a daemon recording does
+    // not grow without bound.  The oldest data is discarded first.
+    private static final Duration MAX_AGE = Duration.ofHours(24);
+    private static final long MAX_SIZE = 256L * 1024 * 1024;
+
+    // The Flight Recorder form of each event.
+    private static final Map<Class<? extends TranslatorEvent>, Supplier<JfrTranslatorEvent>> EVENTS =
+            ImmutableMap.<Class<? extends TranslatorEvent>, Supplier<JfrTranslatorEvent>>builder()
+                    .put(FetchEvent.class, JfrFetchEvent::new)
+                    .put(ParseEvent.class, JfrParseEvent::new)
+                    .put(TranslateEvent.class, JfrTranslateEvent::new)
+                    .put(SignEvent.class, JfrSignEvent::new)
+                    .put(EncodeEvent.class, JfrEncodeEvent::new)
+                    .put(PublishEvent.class, JfrPublishEvent::new)
+                    .build();
+
+    @Override
+    public Span begin(TranslatorEvent event) {
+        Supplier<JfrTranslatorEvent> supplier = EVENTS.get(event.getClass());
+        if (supplier == null) {
+            throw new IllegalArgumentException("No flight recorder event for " + event.getClass().getName());
+        }
+
+        JfrTranslatorEvent jfr = supplier.get();
+        jfr.begin();
+        return jfr;
+    }
+
+    @Override
+    public FlightRecording start(Path file) throws IOException, ParseException {
+        Recording recording = new Recording(Configuration.getConfiguration(SETTINGS));
+        recording.setName("nsi-translator");
+        recording.setToDisk(true);
+        recording.setMaxAge(MAX_AGE);
+        recording.setMaxSize(MAX_SIZE);
+        recording.setDestination(file);
+        recording.setDumpOnExit(true);
+        recording.start();
+        return new JfrRecording(recording, file);
+    }
+
+    /**
+     * A running recording, written to the destination when stopped.
+     */
+    private static final class JfrRecording implements FlightRecording {
+        private final Recording recording;
+        private final Path destination;
+
+        JfrRecording(Recording recording, Path destination) {
+            this.recording = recording;
+            this.destination = destination;
+        }
+
+        @Override
+        public Path getDestination() {
+            return destination;
+        }
+
+        @Override
+        public synchronized void stop() {
+            try {
+                recording.stop();
+            }
+            catch (IllegalStateException ex) {
+                // Already stopped or closed.
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package net.es.nsi.topology.translator.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder form of the SignEvent.
+ *
+ * @author hacksaw
+ */
+@Name("net.es.nsi.topology.translator.Sign")
+@Label("Sign")
+@Description("Generation of an external XML signature for a document.")
+@Category({"NSI Translator", "Pipeline"})
+@StackTrace(false)
+final class JfrSignEvent extends JfrTranslatorEvent {
+    @Label("Document")
+    public String document;
+
+    @Label("Key Alias")
+    public String alias;
+
+    @Label("Signature Method")
+    public String method;
+
+    @Override
+    protected void set(TranslatorEvent event) {
+        SignEvent e = (SignEvent) event;
+        document = e.document;
+        alias = e.alias;
+        method = e.method;
+    }
+}
@@ -0,0 +1,37 @@
+package net.es.nsi.topology.translator.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder form of the TranslateEvent.
+ *
+ * @author hacksaw
+ */
+@Name("net.es.nsi.topology.translator.Translate")
+@Label("NML Translate")
+@Description("Translation of an NMWG domain to an NML topology.")
+@Category({"NSI Translator", "Pipeline"})
+@StackTrace(false)
+final class JfrTranslateEvent extends JfrTranslatorEvent {
+    @Label("Links")
+    public int links;
+
+    @Label("Incremental")
+    @Description("The previous topology was patched rather than rebuilt.")
+    public boolean incremental;
+
+    @Label("Parallel")
+    public boolean parallel;
+
+    @Override
+    protected void set(TranslatorEvent event) {
+        TranslateEvent e = (TranslateEvent) event;
+        links = e.links;
+        incremental = e.incremental;
+        parallel = e.parallel;
+    }
+}
@@ -0,0 +1,29 @@
+package net.es.nsi.topology.translator.jfr;
+
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+
+/**
+ * Base of the Flight Recorder forms of the translator events, which copy
+ * the fields of the TranslatorEvent when it is committed.
+ *
+ * @author hacksaw
+ */
+abstract class JfrTranslatorEvent extends Event implements Span {
+    @Label("Domain")
+    public String domain;
+
+    @Override
+    public void commit(TranslatorEvent event) {
+        domain = event.domain;
+        set(event);
+        commit();
+    }
+
+    /**
+     * Copy the fields specific to the event.
+     *
+     * @param event The event being committed.
+     */
+    protected abstract void set(TranslatorEvent event);
+}
@@ -0,0 +1,12 @@
+package net.es.nsi.topology.translator.jfr;
+
+/**
+ * Flight Recorder event covering the parse of an NMWG document into the
+ * classified internal model.
+ *
+ * @author hacksaw
+ */
+public class ParseEvent extends TranslatorEvent {
+    public String parser;
+    public int links;
+}
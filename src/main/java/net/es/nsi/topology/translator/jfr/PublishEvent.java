@@ -0,0 +1,16 @@
+package net.es.nsi.topology.translator.jfr;
+
+/**
+ * Flight Recorder event covering the write of a document to the DDS,
+ * including any existence check and fallback operation.
+ *
+ * @author hacksaw
+ */
+public class PublishEvent extends TranslatorEvent {
+    public String type;
+    public String document;
+    public String operation;
+    public int status;
+    public int requests;
+    public long bytes;
+}
@@ -0,0 +1,30 @@
+package net.es.nsi.topology.translator.jfr;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+
+/**
+ * The implementation of the FlightRecorder for a JVM.
+ *
+ * @author hacksaw
+ */
+interface Recorder {
+    /**
+     * Start timing an event.
+     *
+     * @param event The event to time.
+     * @return The timing of the event.
+     */
+    Span begin(TranslatorEvent event);
+
+    /**
+     * Start a recording written to the specified file.
+     *
+     * @param file The destination of the recording.
+     * @return The running recording.
+     * @throws IOException If the settings could not be read.
+     * @throws ParseException If the settings could not be parsed.
+     */
+    FlightRecording start(Path file) throws IOException, ParseException;
+}
@@ -0,0 +1,12 @@
+package net.es.nsi.topology.translator.jfr;
+
+/**
+ * Flight Recorder event covering the generation of an external signature.
+ *
+ * @author hacksaw
+ */
+public class SignEvent extends TranslatorEvent {
+    public String document;
+    public String alias;
+    public String method;
+}
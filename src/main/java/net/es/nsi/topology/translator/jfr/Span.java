@@ -0,0 +1,24 @@
+package net.es.nsi.topology.translator.jfr;
+
+/**
+ * The timing of a TranslatorEvent by the recorder.
+ *
+ * @author hacksaw
+ */
+interface Span {
+    // Used when there is no Flight Recorder.
+    static final Span NONE = new Span() {
+        @Override
+        public boolean shouldCommit() {
+            return false;
+        }
+
+        @Override
+        public void commit(TranslatorEvent event) {
+        }
+    };
+
+    boolean shouldCommit();
+
+    void commit(TranslatorEvent event);
+}
@@ -0,0 +1,13 @@
+package net.es.nsi.topology.translator.jfr;
+
+/**
+ * Flight Recorder event covering the translation of an NMWG domain to an
+ * NML topology.
+ *
+ * @author hacksaw
+ */
+public class TranslateEvent extends TranslatorEvent {
+    public int links;
+    public boolean incremental;
+    public boolean parallel;
+}
@@ -0,0 +1,45 @@
+package net.es.nsi.topology.translator.jfr;
+
+/**
+ * Base of the Flight Recorder events emitted by the translator, identifying
+ * the domain being processed.  Events are enabled when a recording is
+ * started with the "-jfr" option or externally, for example through
+ * "jcmd <pid> JFR.start", and cost little more than a flag check when not
+ * recorded.  Fields are only populated when shouldCommit() is true.
+ *
+ * These events do not reference the jdk.jfr API, so they can be used on
+ * JVMs without the flight recorder.  The FlightRecorder maps each event to
+ * its Flight Recorder form when the API is available and ignores the event
+ * otherwise.
+ *
+ * @author hacksaw
+ */
+public abstract class TranslatorEvent {
+    public String domain;
+
+    // The Flight Recorder event timing this event, if any.
+    private Span span = Span.NONE;
+
+    /**
+     * Start timing the event.
+     */
+    public void begin() {
+        span = FlightRecorder.begin(this);
+    }
+
+    /**
+     * Is the event to be recorded?
+     *
+     * @return true if a recording is running with the event enabled.
+     */
+    public boolean shouldCommit() {
+        return span.shouldCommit();
+    }
+
+    /**
+     * Record the event with its current field values.
+     */
+    public void commit() {
+        span.commit(this);
+    }
+}
@@ -0,0 +1,38 @@
+package net.es.nsi.topology.translator.metrics;
+
+/**
+ * The throughput counters of the translation pipeline.
+ *
+ * @author hacksaw
+ */
+public enum Counter {
+    LINKS_PROCESSED("links_processed_total", "NMWG links parsed and classified."),
+    BYTES_FETCHED("bytes_fetched_total", "Bytes of NMWG documents received from the topology server."),
+    BYTES_PUBLISHED("bytes_published_total", "Bytes of encoded documents and signatures written to the DDS.");
+
+    private final String name;
+    private final String help;
+
+    private Counter(String name, String help) {
+        this.name = name;
+        this.help = help;
+    }
+
+    /**
+     * Get the name of this counter used in exported metrics.
+     *
+     * @return The counter name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the description of this counter used in exported metrics.
+     *
+     * @return The counter description.
+     */
+    public String getHelp() {
+        return help;
+    }
+}
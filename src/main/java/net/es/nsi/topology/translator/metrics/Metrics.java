@@ -0,0 +1,385 @@
+package net.es.nsi.topology.translator.metrics;
+
+import com.google.common.base.Strings;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import net.es.nsi.topology.translator.Properties;
+import net.es.nsi.topology.translator.model.Constants;
+import net.es.nsi.topology.translator.utilities.NsiUtilities;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Process-wide timers and counters for the stages of the translation
+ * pipeline, kept per domain so the slowest stages can be found across all
+ * domains of a batch.  Metrics are cumulative for the life of the process,
+ * are exported through JMX, and are written as a Prometheus text file at
+ * the end of each run if the "metrics" system property names a file.
+ *
+ * A stage is timed with a sample closed when the stage completes:
+ *
+ *   try (Metrics.Sample sample = Metrics.getInstance().start(Stage.TRANSLATE, domain)) {
+ *       ...
+ *   }
+ *
+ * @author hacksaw
+ */
+public class Metrics implements MetricsMXBean {
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    public static final String OBJECT_NAME = "net.es.nsi.topology.translator:type=Metrics";
+
+    // Domain label used when a stage cannot be attributed to a domain.
+    public static final String UNKNOWN_DOMAIN = "unknown";
+
+    // Prefix of all exported metric names.
+    private static final String PREFIX = "nsi_translator_";
+
+    private final Map<Stage, ConcurrentHashMap<String, Timer>> timers = new EnumMap<>(Stage.class);
+    private final Map<Counter, ConcurrentHashMap<String, LongAdder>> counters = new EnumMap<>(Counter.class);
+
+    /**
+     * Private constructor registers the metrics with the platform MBean
+     * server on first use.
+     */
+    private Metrics() {
+        for (Stage stage : Stage.values()) {
+            timers.put(stage, new ConcurrentHashMap<>());
+        }
+
+        for (Counter counter : Counter.values()) {
+            counters.put(counter, new ConcurrentHashMap<>());
+        }
+
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+        }
+        catch (JMException ex) {
+            // Metrics are still collected and written to file.
+            log.error("Metrics: could not register " + OBJECT_NAME, ex);
+        }
+    }
+
+    /**
+     * An internal static class that invokes our private constructor on object
+     * creation.
+     */
+    private static class MetricsHolder {
+        public static final Metrics INSTANCE = new Metrics();
+    }
+
+    /**
+     * Returns an instance of this singleton class.
+     *
+     * @return A Metrics object.
+     */
+    public static Metrics getInstance() {
+        return MetricsHolder.INSTANCE;
+    }
+
+    /**
+     * Get the domain label for an NSI identifier such as an NSA or network
+     * identifier.
+     *
+     * @param id The NSI identifier.
+     * @return The domain name, or the identifier if it is not an NSI URN.
+     */
+    public static String getDomain(String id) {
+        if (Strings.isNullOrEmpty(id)) {
+            return UNKNOWN_DOMAIN;
+        }
+
+        if (!id.startsWith(Constants.NSI_URN_OGF_NETWORK)) {
+            return id;
+        }
+
+        return NsiUtilities.getNsiDomainName(id);
+    }
+
+    /**
+     * Start timing a stage for a domain.  The duration is recorded when the
+     * returned sample is closed.
+     *
+     * @param stage The pipeline stage.
+     * @param domain The domain being processed.
+     * @return The running sample.
+     */
+    public Sample start(Stage stage, String domain) {
+        return new Sample(timer(stage, domain));
+    }
+
+    /**
+     * Record the duration of a stage for a domain.
+     *
+     * @param stage The pipeline stage.
+     * @param domain The domain being processed.
+     * @param nanos The duration in nanoseconds.
+     */
+    public void record(Stage stage, String domain, long nanos) {
+        timer(stage, domain).record(nanos);
+    }
+
+    /**
+     * Add to a counter for a domain.
+     *
+     * @param counter The counter.
+     * @param domain The domain being processed.
+     * @param value The amount to add.
+     */
+    public void add(Counter counter, String domain, long value) {
+        counters.get(counter).computeIfAbsent(label(domain), k -> new LongAdder()).add(value);
+    }
+
+    /**
+     * Get the timer of a stage for a domain if the stage has been timed.
+     *
+     * @param stage The pipeline stage.
+     * @param domain The domain.
+     * @return The timer.
+     */
+    public Optional<Timer> getTimer(Stage stage, String domain) {
+        return Optional.ofNullable(timers.get(stage).get(label(domain)));
+    }
+
+    /**
+     * Get the value of a counter for a domain.
+     *
+     * @param counter The counter.
+     * @param domain The domain.
+     * @return The counter value.
+     */
+    public long getCount(Counter counter, String domain) {
+        LongAdder value = counters.get(counter).get(label(domain));
+        return value == null ? 0 : value.sum();
+    }
+
+    private Timer timer(Stage stage, String domain) {
+        return timers.get(stage).computeIfAbsent(label(domain), k -> new Timer());
+    }
+
+    private static String label(String domain) {
+        return Strings.isNullOrEmpty(domain) ? UNKNOWN_DOMAIN : domain;
+    }
+
+    @Override
+    public List<StageStatistics> getStageStatistics() {
+        List<StageStatistics> result = new ArrayList<>();
+        for (Map.Entry<Stage, ConcurrentHashMap<String, Timer>> stage : timers.entrySet()) {
+            for (Map.Entry<String, Timer> domain : new TreeMap<>(stage.getValue()).entrySet()) {
+                Timer timer = domain.getValue();
+                result.add(new StageStatistics(stage.getKey().getLabel(), domain.getKey(),
+                        timer.getCount(), millis(timer.getTotalNanos()), millis(timer.getMaxNanos())));
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public List<StageStatistics> getStageTotals() {
+        List<StageStatistics> result = new ArrayList<>();
+        for (Map.Entry<Stage, ConcurrentHashMap<String, Timer>> stage : timers.entrySet()) {
+            if (stage.getValue().isEmpty()) {
+                continue;
+            }
+
+            long count = 0, total = 0, max = 0;
+            for (Timer timer : stage.getValue().values()) {
+                count += timer.getCount();
+                total += timer.getTotalNanos();
+                max = Math.max(max, timer.getMaxNanos());
+            }
+
+            result.add(new StageStatistics(stage.getKey().getLabel(), "*", count, millis(total), millis(max)));
+        }
+
+        Collections.sort(result, (a, b) -> Double.compare(b.getTotalMillis(), a.getTotalMillis()));
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getCounters() {
+        Map<String, Long> result = new TreeMap<>();
+        for (Map.Entry<Counter, ConcurrentHashMap<String, LongAdder>> counter : counters.entrySet()) {
+            for (Map.Entry<String, LongAdder> domain : counter.getValue().entrySet()) {
+                result.put(counter.getKey().getName() + "/" + domain.getKey(), domain.getValue().sum());
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public String getPrometheusText() {
+        StringWriter writer = new StringWriter();
+        try {
+            write(writer);
+        }
+        catch (IOException ex) {
+            // Not thrown by a StringWriter.
+            throw new IllegalStateException(ex);
+        }
+
+        return writer.toString();
+    }
+
+    @Override
+    public void reset() {
+        for (ConcurrentHashMap<String, Timer> stage : timers.values()) {
+            stage.values().forEach(Timer::reset);
+        }
+
+        for (ConcurrentHashMap<String, LongAdder> counter : counters.values()) {
+            counter.values().forEach(LongAdder::reset);
+        }
+    }
+
+    /**
+     * Write all metrics in the Prometheus text exposition format.
+     *
+     * @param writer The destination of the metrics.
+     * @throws IOException If the metrics could not be written.
+     */
+    public void write(Writer writer) throws IOException {
+        String name = PREFIX + "stage_seconds";
+        writer.write("# HELP " + name + " Time spent in each stage of the translation pipeline.\n");
+        writer.write("# TYPE " + name + " histogram\n");
+        for (Map.Entry<Stage, ConcurrentHashMap<String, Timer>> stage : timers.entrySet()) {
+            for (Map.Entry<String, Timer> domain : new TreeMap<>(stage.getValue()).entrySet()) {
+                String labels = "stage=\"" + stage.getKey().getLabel() + "\",domain=\"" + escape(domain.getKey()) + "\"";
+                Timer timer = domain.getValue();
+                long[] counts = timer.getCumulativeCounts();
+                for (int i = 0; i < Timer.BOUNDS.length; i++) {
+                    writer.write(name + "_bucket{" + labels + ",le=\"" + Timer.BOUNDS[i] + "\"} " + counts[i] + "\n");
+                }
+                writer.write(name + "_bucket{" + labels + ",le=\"+Inf\"} " + counts[counts.length - 1] + "\n");
+                writer.write(name + "_sum{" + labels + "} " + seconds(timer.getTotalNanos()) + "\n");
+                writer.write(name + "_count{" + labels + "} " + counts[counts.length - 1] + "\n");
+            }
+        }
+
+        name = PREFIX + "stage_max_seconds";
+        writer.write("# HELP " + name + " Longest time spent in each stage of the translation pipeline.\n");
+        writer.write("# TYPE " + name + " gauge\n");
+        for (Map.Entry<Stage, ConcurrentHashMap<String, Timer>> stage : timers.entrySet()) {
+            for (Map.Entry<String, Timer> domain : new TreeMap<>(stage.getValue()).entrySet()) {
+                writer.write(name + "{stage=\"" + stage.getKey().getLabel() + "\",domain=\"" + escape(domain.getKey()) + "\"} "
+                        + seconds(domain.getValue().getMaxNanos()) + "\n");
+            }
+        }
+
+        for (Map.Entry<Counter, ConcurrentHashMap<String, LongAdder>> counter : counters.entrySet()) {
+            name = PREFIX + counter.getKey().getName();
+            writer.write("# HELP " + name + " " + counter.getKey().getHelp() + "\n");
+            writer.write("# TYPE " + name + " counter\n");
+            for (Map.Entry<String, LongAdder> domain : new TreeMap<>(counter.getValue()).entrySet()) {
+                writer.write(name + "{domain=\"" + escape(domain.getKey()) + "\"} " + domain.getValue().sum() + "\n");
+            }
+        }
+    }
+
+    /**
+     * Write all metrics to a Prometheus text file.  The file is replaced
+     * atomically so a collector never reads a partial file.
+     *
+     * @param file The metrics file.
+     * @throws IOException If the file could not be written.
+     */
+    public void writeFile(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                write(writer);
+            }
+
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch (AtomicMoveNotSupportedException ex) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Complete a run by logging the time spent in each stage across all
+     * domains and writing the metrics file if one is configured.
+     */
+    public void export() {
+        StringBuilder sb = new StringBuilder("Stage totals:");
+        for (StageStatistics stage : getStageTotals()) {
+            sb.append(String.format(" %s=%.1f ms (%d)", stage.getStage(), stage.getTotalMillis(), stage.getCount()));
+        }
+        log.info(sb.toString());
+
+        String file = System.getProperty(Properties.SYSTEM_PROPERTY_METRICS);
+        if (Strings.isNullOrEmpty(file)) {
+            return;
+        }
+
+        try {
+            writeFile(Paths.get(file));
+        }
+        catch (IOException ex) {
+            // A failure to export metrics must not fail the run.
+            log.error("Metrics: could not write metrics file " + file, ex);
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    private static double seconds(long nanos) {
+        return nanos / (double) TimeUnit.SECONDS.toNanos(1);
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    /**
+     * A running measurement of one stage, recorded when closed.
+     */
+    public static final class Sample implements AutoCloseable {
+        private final Timer timer;
+        private final long start = System.nanoTime();
+
+        private Sample(Timer timer) {
+            this.timer = timer;
+        }
+
+        @Override
+        public void close() {
+            timer.record(System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package net.es.nsi.topology.translator.metrics;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Management interface exporting the translator pipeline metrics through
+ * JMX as "net.es.nsi.topology.translator:type=Metrics".
+ *
+ * @author hacksaw
+ */
+public interface MetricsMXBean {
+    /**
+     * Get the time spent in each stage for each domain.
+     *
+     * @return Statistics per stage and domain.
+     */
+    public List<StageStatistics> getStageStatistics();
+
+    /**
+     * Get the time spent in each stage summed across all domains, slowest
+     * stage first.
+     *
+     * @return Statistics per stage.
+     */
+    public List<StageStatistics> getStageTotals();
+
+    /**
+     * Get the throughput counters indexed by "counter/domain".
+     *
+     * @return The counter values.
+     */
+    public Map<String, Long> getCounters();
+
+    /**
+     * Get all metrics in the Prometheus text exposition format.
+     *
+     * @return The formatted metrics.
+     */
+    public String getPrometheusText();
+
+    /**
+     * Reset all timers and counters.
+     */
+    public void reset();
+}
@@ -0,0 +1,35 @@
+package net.es.nsi.topology.translator.metrics;
+
+/**
+ * The timed stages of the NMWG to NML translation pipeline.
+ *
+ * @author hacksaw
+ */
+public enum Stage {
+    FETCH("fetch"),             // NMWG query and receipt of the response body.
+    UNMARSHAL("unmarshal"),     // NMWG namespace fix-up and parse, including conversion when using StAX, excluding receipt of the body.
+    CONVERT("convert"),         // JAXB NMWG tree to internal model.
+    MARK_LINKS("mark_links"),   // Classification of links as INNI, ENNI or UNI.
+    TRANSLATE("translate"),     // Internal model to NML topology.
+    JAXB2DOM("jaxb2dom"),       // JAXB NSA or NML document to DOM.
+    SIGN("sign"),               // External signature of a DOM document.
+    ENCODE("encode"),           // Gzip and base64 encoding of a document and its signature.
+    DDS_HEAD("dds_head"),       // DDS query for the existence of a document.
+    DDS_PUT("dds_put"),         // DDS update of an existing document.
+    DDS_POST("dds_post");       // DDS addition of a new document.
+
+    private final String label;
+
+    private Stage(String label) {
+        this.label = label;
+    }
+
+    /**
+     * Get the name of this stage used in exported metrics.
+     *
+     * @return The stage label.
+     */
+    public String getLabel() {
+        return label;
+    }
+}
@@ -0,0 +1,50 @@
+package net.es.nsi.topology.translator.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * A snapshot of the time spent in one stage, for a single domain or
+ * summed across all domains, as reported through JMX.
+ *
+ * @author hacksaw
+ */
+public class StageStatistics {
+    private final String stage;
+    private final String domain;
+    private final long count;
+    private final double totalMillis;
+    private final double maxMillis;
+
+    @ConstructorProperties({"stage", "domain", "count", "totalMillis", "maxMillis"})
+    public StageStatistics(String stage, String domain, long count, double totalMillis, double maxMillis) {
+        this.stage = stage;
+        this.domain = domain;
+        this.count = count;
+        this.totalMillis = totalMillis;
+        this.maxMillis = maxMillis;
+    }
+
+    public String getStage() {
+        return stage;
+    }
+
+    public String getDomain() {
+        return domain;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getTotalMillis() {
+        return totalMillis;
+    }
+
+    public double getMaxMillis() {
+        return maxMillis;
+    }
+
+    public double getMeanMillis() {
+        return count == 0 ? 0 : totalMillis / count;
+    }
+}
@@ -0,0 +1,99 @@
+package net.es.nsi.topology.translator.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A latency histogram for one stage of one domain.  Durations are counted
+ * in fixed buckets so histograms can be aggregated across domains and
+ * runs, and are updated without locking by concurrent writers.
+ *
+ * @author hacksaw
+ */
+public class Timer {
+    // Upper bounds of the histogram buckets in seconds.
+    static final double[] BOUNDS = {
+        0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60, 300
+    };
+
+    // Bucket upper bounds in nanoseconds for recording.
+    private static final long[] BOUNDS_NANOS = new long[BOUNDS.length];
+    static {
+        for (int i = 0; i < BOUNDS.length; i++) {
+            BOUNDS_NANOS[i] = (long) (BOUNDS[i] * TimeUnit.SECONDS.toNanos(1));
+        }
+    }
+
+    // The last bucket counts durations above the largest bound.
+    private final LongAdder[] buckets = new LongAdder[BOUNDS.length + 1];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    Timer() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Record the duration of one execution of the stage.
+     *
+     * @param nanos The duration in nanoseconds.
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+
+        int bucket = 0;
+        while (bucket < BOUNDS_NANOS.length && nanos > BOUNDS_NANOS[bucket]) {
+            bucket++;
+        }
+
+        buckets[bucket].increment();
+        count.increment();
+        total.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getTotalNanos() {
+        return total.sum();
+    }
+
+    public long getMaxNanos() {
+        return max.get();
+    }
+
+    /**
+     * Get the cumulative count of durations at or below each bucket bound,
+     * with a final entry holding the count of all durations.
+     *
+     * @return The cumulative bucket counts.
+     */
+    public long[] getCumulativeCounts() {
+        long[] counts = new long[buckets.length];
+        long sum = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            sum += buckets[i].sum();
+            counts[i] = sum;
+        }
+
+        return counts;
+    }
+
+    void reset() {
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+
+        count.reset();
+        total.reset();
+        max.reset();
+    }
+}
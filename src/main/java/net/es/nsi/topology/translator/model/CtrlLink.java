@@ -1,6 +1,7 @@
 package net.es.nsi.topology.translator.model;
 
 import com.google.common.base.Optional;
+import java.util.Objects;
 
 /**
  * A NMWG control plane link.
@@ -293,4 +294,32 @@ public class CtrlLink {
     public void setEncodingType(Optional<String> encodingType) {
         this.encodingType = encodingType;
     }
+
+    /**
+     * Determine if the provided link has the same attribute values as this
+     * link, including the classified link type.
+     *
+     * @param other The link to compare against.
+     * @return true if all link attributes are equal.
+     */
+    public boolean isEquivalent(CtrlLink other) {
+        if (other == this) {
+            return true;
+        }
+        else if (other == null) {
+            return false;
+        }
+
+        return Objects.equals(id, other.id) &&
+                Objects.equals(originalId, other.originalId) &&
+                linkType == other.linkType &&
+                Objects.equals(remoteLinkId, other.remoteLinkId) &&
+                Objects.equals(vlanRangeAvailability, other.vlanRangeAvailability) &&
+                vlanTranslation == other.vlanTranslation &&
+                Objects.equals(encodingType, other.encodingType) &&
+                Objects.equals(capacity, other.capacity) &&
+                Objects.equals(maximumReservableCapacity, other.maximumReservableCapacity) &&
+                Objects.equals(minimumReservableCapacity, other.minimumReservableCapacity) &&
+                Objects.equals(granularity, other.granularity);
+    }
 }
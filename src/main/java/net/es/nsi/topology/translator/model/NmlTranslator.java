@@ -3,11 +3,20 @@ package net.es.nsi.topology.translator.model;
 import com.google.common.base.Optional;
 import com.google.common.base.Strings;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 import javax.xml.bind.JAXBElement;
 import javax.xml.datatype.DatatypeConfigurationException;
 import javax.xml.datatype.XMLGregorianCalendar;
+import net.es.nsi.topology.translator.jaxb.configuration.PatternType;
 import net.es.nsi.topology.translator.jaxb.configuration.PeeringType;
 import net.es.nsi.topology.translator.jaxb.configuration.ServiceDefinitionType;
 import net.es.nsi.topology.translator.jaxb.nml.NmlBidirectionalPortType;
@@ -21,6 +30,8 @@ import net.es.nsi.topology.translator.jaxb.nml.NmlTopologyRelationType;
 import net.es.nsi.topology.translator.jaxb.nml.NmlTopologyType;
 import net.es.nsi.topology.translator.jaxb.nml.NsiServiceDefinitionType;
 import net.es.nsi.topology.translator.jaxb.nml.ObjectFactory;
+import net.es.nsi.topology.translator.jfr.TranslateEvent;
+import net.es.nsi.topology.translator.metrics.Metrics;
 import net.es.nsi.topology.translator.utilities.NsiUtilities;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,6 +39,16 @@ import org.slf4j.LoggerFactory;
 /**
  * Converts the NMWG topology to an equivalent NSI/NML topology representation.
  *
+ * The translator retains the NML topology generated on the previous call to
+ * translate() along with the NMWG links it was generated from.  If the
+ * configuration has not changed, the next call compares the new NMWG links
+ * against the previous set and patches only the NML ports, port groups, and
+ * SwitchingService relations of links that were added, removed, or changed.
+ * Links always appear in identifier order, so a patched topology is
+ * identical to a full rebuild from the same links.  In parallel mode the NML
+ * elements for large sets of links are created concurrently and merged in
+ * that same order.  A translator instance is not thread safe.
+ *
  * @author hacksaw
  */
 public class NmlTranslator {
@@ -40,6 +61,60 @@ public class NmlTranslator {
         OUTBOUND
     }
 
+    // Minimum number of links before conversion is done in parallel.
+    private static final int PARALLEL_THRESHOLD = 256;
+
+    // Convert links on the fork/join pool.
+    private final boolean parallel;
+
+    // The NML topology generated by the previous translation.
+    private NmlTopologyType nmlTopology;
+
+    // Fingerprint of the configuration used to generate nmlTopology.
+    private String fingerprint;
+
+    // The SwitchingService mappings and port holders within nmlTopology.
+    private List<ServiceDefinitionMap> sdList;
+    private ServiceDefinitionMatcher matcher;
+    private NmlTopologyRelationType inbound;
+    private NmlTopologyRelationType outbound;
+
+    // The NMWG links used to generate nmlTopology.
+    private Map<String, CtrlLink> links = new HashMap<>();
+
+    // The NML elements generated for each NMWG link indexed by link id.
+    private final Map<String, NmlPort> ports = new HashMap<>();
+
+    /**
+     * The NML elements generated for a single NMWG link.
+     */
+    private static class NmlPort {
+        private String id;
+        private NmlBidirectionalPortType port;
+        private NmlPortGroupType in;
+        private NmlPortGroupType out;
+        private Optional<NmlPortGroupType> inPort;
+        private Optional<NmlPortGroupType> outPort;
+        private final List<NmlSwitchingServiceRelationType> inRelations = new ArrayList<>();
+        private final List<NmlSwitchingServiceRelationType> outRelations = new ArrayList<>();
+    }
+
+    /**
+     * Create a translator that converts links serially.
+     */
+    public NmlTranslator() {
+        this(false);
+    }
+
+    /**
+     * Create a translator.
+     *
+     * @param parallel Convert links in parallel if the domain is large enough.
+     */
+    public NmlTranslator(boolean parallel) {
+        this.parallel = parallel;
+    }
+
     /**
      * Convert the NMWG topology to NSI/NML topology based on provided
      * configuration information.
@@ -52,30 +127,92 @@ public class NmlTranslator {
      * @throws DatatypeConfigurationException Could not convert the topology.
      */
     public NmlTopologyType translate(CtrlDomain domain, long lifetime, List<ServiceDefinitionType> serviceDefinitions, Map<String, PeeringType> peerings) throws DatatypeConfigurationException {
+        TranslateEvent event = new TranslateEvent();
+        event.begin();
+        try {
+            // Only patch the previous topology if it was generated from the
+            // same configuration.
+            String current = getFingerprint(domain.getId(), serviceDefinitions, peerings);
+            if (nmlTopology == null || !current.equals(fingerprint)) {
+                build(domain, serviceDefinitions, peerings);
+                fingerprint = current;
+            }
+            else {
+                update(domain, peerings);
+                event.incremental = true;
+            }
+
+            links = new HashMap<>(domain.getLinkMap());
+
+            // The version is based on the time we generate the topology.
+            XMLGregorianCalendar startTime = NsiUtilities.xmlGregorianCalendar();
+            nmlTopology.setVersion(startTime);
+
+            // Lifetime goes from now until the configurable end time.
+            NmlLifeTimeType life = factory.createNmlLifeTimeType();
+            life.setStart(startTime);
+            life.setEnd(NsiUtilities.longToXMLGregorianCalendar(System.currentTimeMillis() + lifetime*1000));
+            nmlTopology.setLifetime(life);
+
+            return nmlTopology;
+        }
+        catch (DatatypeConfigurationException | RuntimeException ex) {
+            // Do not patch a partially generated topology next time.
+            reset();
+            throw ex;
+        }
+        finally {
+            if (event.shouldCommit()) {
+                event.domain = Metrics.getDomain(domain.getId());
+                event.links = domain.getLinks().size();
+                event.parallel = parallel && event.links >= PARALLEL_THRESHOLD;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Discard the previous translation so the next one is a full rebuild.
+     */
+    public void reset() {
+        nmlTopology = null;
+        fingerprint = null;
+        sdList = null;
+        matcher = null;
+        inbound = null;
+        outbound = null;
+        links = new HashMap<>();
+        ports.clear();
+    }
+
+    /**
+     * Generate a new NML topology for all links in the NMWG domain.
+     *
+     * @param domain NMWG domain object for conversion.
+     * @param serviceDefinitions the service definitions used to build the NML switching service.
+     * @param peerings Port peering information used to override the default isAlias mapping.
+     */
+    private void build(CtrlDomain domain, List<ServiceDefinitionType> serviceDefinitions, Map<String, PeeringType> peerings) {
+        ports.clear();
+
         // Generate the NML topology.
-        NmlTopologyType nmlTopology = factory.createNmlTopologyType();
+        nmlTopology = factory.createNmlTopologyType();
 
         // The topology is named after the domain name.
         nmlTopology.setId(domain.getId());
         nmlTopology.setName(NsiUtilities.getNsiDomainName(nmlTopology.getId()));
 
-        // The version is based on the time we generate the topology.
-        XMLGregorianCalendar startTime = NsiUtilities.xmlGregorianCalendar();
-        nmlTopology.setVersion(startTime);
-
-        // Lifetime goes from now until the configurable end time.
-        NmlLifeTimeType life = factory.createNmlLifeTimeType();
-        life.setStart(startTime);
-        life.setEnd(NsiUtilities.longToXMLGregorianCalendar(System.currentTimeMillis() + lifetime*1000));
-        nmlTopology.setLifetime(life);
-
         // Create the ServiceDefinitions.
         List<Object> sd = getNsiServiceDefinitions(domain.getId(), serviceDefinitions);
         nmlTopology.getAny().addAll(sd);
 
         // Create the SwitchingService objects that will be populated when
         // creating the individual unidirectional ports.
-        List<ServiceDefinitionMap> sdList = getServiceDefinitionMap(domain.getId(), serviceDefinitions);
+        sdList = getServiceDefinitionMap(domain.getId(), serviceDefinitions);
+
+        // Compile the include/exclude rules used to match links to
+        // SwitchingServices.
+        matcher = new ServiceDefinitionMatcher(serviceDefinitions);
 
         // Wrap the switching service in a service relationship.
         for (ServiceDefinitionMap sdm : sdList) {
@@ -86,73 +223,295 @@ public class NmlTranslator {
         }
 
         // Create the inbound port holder we will fill with inbound ports.
-        NmlTopologyRelationType inbound = factory.createNmlTopologyRelationType();
+        inbound = factory.createNmlTopologyRelationType();
         inbound.setType(Constants.NML_PORT_INBOUND);
         nmlTopology.getRelation().add(inbound);
 
         // Create the outbound port holder we will fill with outbount ports.
-        NmlTopologyRelationType outbound = factory.createNmlTopologyRelationType();
+        outbound = factory.createNmlTopologyRelationType();
         outbound.setType(Constants.NML_PORT_OUTBOUND);
         nmlTopology.getRelation().add(outbound);
 
         // Convert the NMWG links into NML ports.
+        addLinks(domain.getLinks(), peerings);
+
+        log.debug("Full translation of " + domain.getId() + ", links=" + domain.getLinkMap().size());
+    }
+
+    /**
+     * Patch the previous NML topology with the links that were added,
+     * removed, or changed since the previous translation.
+     *
+     * @param domain NMWG domain object for conversion.
+     * @param peerings Port peering information used to override the default isAlias mapping.
+     */
+    private void update(CtrlDomain domain, Map<String, PeeringType> peerings) {
+        List<NmlPort> removed = new ArrayList<>();
+        List<CtrlLink> added = new ArrayList<>();
+
+        // Find links that have been removed or changed.
+        for (CtrlLink previous : links.values()) {
+            CtrlLink link = domain.getLink(previous.getId());
+            if (link == null || !link.isEquivalent(previous)) {
+                NmlPort port = ports.remove(previous.getId());
+                if (port != null) {
+                    removed.add(port);
+                }
+
+                if (link != null) {
+                    added.add(link);
+                }
+            }
+        }
+
+        // Find links that are new.
         for (CtrlLink link : domain.getLinks()) {
-            // Determine which SwitchingService elements this link can
-            // potentially match.
-            List<NmlSwitchingServiceType> ssList = match(link.getId(), sdList);
+            if (!links.containsKey(link.getId())) {
+                added.add(link);
+            }
+        }
 
-            // Now we create the Bidirectional port groups and unidirectional
-            // relations for all ENNI and UNI links.
-            if (!ssList.isEmpty() && (link.getLinkType() == CtrlLinkType.ENNI ||
-                    link.getLinkType() == CtrlLinkType.UNI ||
-                    link.getLinkType() == CtrlLinkType.UNKNOWN)) {
+        removeLinks(removed);
 
-                // Bidirectional port group first.
-                NmlBidirectionalPortType port = factory.createNmlBidirectionalPortType();
-                port.setId(link.getId());
+        // Added links are appended so must be moved into identifier order.
+        if (!added.isEmpty()) {
+            addLinks(added, peerings);
+            sortPorts();
+        }
 
-                NmlPortGroupType in = factory.createNmlPortGroupType();
-                in.setId(NsiUtilities.getInboundPort(link.getId()));
+        log.debug("Incremental translation of " + domain.getId() + ", links=" + domain.getLinkMap().size()
+                + ", removed=" + removed.size() + ", added=" + added.size());
+    }
 
-                NmlPortGroupType out = factory.createNmlPortGroupType();
-                out.setId(NsiUtilities.getOutboundPort(link.getId()));
+    /**
+     * Create the NML elements for a set of NMWG links and add them to the
+     * topology in link identifier order.  In parallel mode the elements for
+     * each link are created on the common fork/join pool and then added to
+     * the topology sequentially, so the resulting document is identical to
+     * that of a serial translation.
+     *
+     * @param links The NMWG links to convert.
+     * @param peerings Port peering information used to override the default isAlias mapping.
+     */
+    private void addLinks(Collection<CtrlLink> links, Map<String, PeeringType> peerings) {
+        List<CtrlLink> sorted = new ArrayList<>(links);
+        sorted.sort((a, b) -> a.getId().compareTo(b.getId()));
+
+        List<Optional<NmlPort>> results;
+        if (parallel && sorted.size() >= PARALLEL_THRESHOLD) {
+            results = sorted.parallelStream()
+                    .map(link -> createPort(link, peerings))
+                    .collect(Collectors.toList());
+        }
+        else {
+            results = new ArrayList<>(sorted.size());
+            for (CtrlLink link : sorted) {
+                results.add(createPort(link, peerings));
+            }
+        }
 
-                port.getRest().add(factory.createPortGroup(in));
-                port.getRest().add(factory.createPortGroup(out));
+        for (Optional<NmlPort> result : results) {
+            if (result.isPresent()) {
+                addPort(result.get());
+            }
+        }
+    }
 
-                nmlTopology.getGroup().add(port);
+    /**
+     * Create the NML elements for an NMWG link without modifying the
+     * topology.  This only reads shared translator state so may be called
+     * concurrently for different links.
+     *
+     * @param link The NMWG link to convert.
+     * @param peerings Port peering information used to override the default isAlias mapping.
+     * @return The NML elements if the link is modelled in NSI topology.
+     */
+    private Optional<NmlPort> createPort(CtrlLink link, Map<String, PeeringType> peerings) {
+        // Determine which SwitchingService elements this link can
+        // potentially match.
+        List<NmlSwitchingServiceType> ssList = match(link.getId());
+
+        // Now we create the Bidirectional port groups and unidirectional
+        // relations for all ENNI and UNI links.
+        if (ssList.isEmpty() || (link.getLinkType() != CtrlLinkType.ENNI &&
+                link.getLinkType() != CtrlLinkType.UNI &&
+                link.getLinkType() != CtrlLinkType.UNKNOWN)) {
+            return Optional.absent();
+        }
 
-                // Now for the unidirectional relations.
-                PeeringType peering = peerings.get(link.getId());
-                Optional<NmlPortGroupType> inPort = getNmlPortGroup(link, Direction.INBOUND, peering);
-                if (inPort.isPresent()) {
-                    inbound.getPortGroup().add(inPort.get());
+        NmlPort nmlPort = new NmlPort();
+        nmlPort.id = link.getId();
+
+        // Bidirectional port group first.
+        NmlBidirectionalPortType port = factory.createNmlBidirectionalPortType();
+        port.setId(link.getId());
+
+        NmlPortGroupType in = factory.createNmlPortGroupType();
+        in.setId(NsiUtilities.getInboundPort(link.getId()));
+
+        NmlPortGroupType out = factory.createNmlPortGroupType();
+        out.setId(NsiUtilities.getOutboundPort(link.getId()));
+
+        port.getRest().add(factory.createPortGroup(in));
+        port.getRest().add(factory.createPortGroup(out));
+
+        nmlPort.port = port;
+        nmlPort.in = in;
+        nmlPort.out = out;
+
+        // Now for the unidirectional relations.
+        PeeringType peering = peerings.get(link.getId());
+        Optional<NmlPortGroupType> inPort = getNmlPortGroup(link, Direction.INBOUND, peering);
+        Optional<NmlPortGroupType> outPort = getNmlPortGroup(link, Direction.OUTBOUND, peering);
+        nmlPort.inPort = inPort;
+        nmlPort.outPort = outPort;
+
+        // Now we determine the SwitchingService relations that will hold
+        // the unidirectional port references.
+        for (NmlSwitchingServiceType ss : ssList) {
+            // We need to determine how a port matches a SwitchingService.
+            for (NmlSwitchingServiceRelationType relation : ss.getRelation()) {
+                if (relation.getType().contentEquals(Constants.NML_PORT_INBOUND) &&
+                        ss.getEncoding().equalsIgnoreCase(inPort.get().getEncoding())) {
+                    nmlPort.inRelations.add(relation);
                 }
-
-                Optional<NmlPortGroupType> outPort = getNmlPortGroup(link, Direction.OUTBOUND, peering);
-                if (outPort.isPresent()) {
-                    outbound.getPortGroup().add(outPort.get());
+                else if (relation.getType().contentEquals(Constants.NML_PORT_OUTBOUND) &&
+                        ss.getEncoding().equalsIgnoreCase(outPort.get().getEncoding())) {
+                    nmlPort.outRelations.add(relation);
                 }
+            }
+        }
 
-                // Now we put the unidirectional port references in applicable
-                // switching services.
-                for (NmlSwitchingServiceType ss : ssList) {
-                    // We need to determine how a port matches a SwitchingService.
-                    for (NmlSwitchingServiceRelationType relation : ss.getRelation()) {
-                        if (relation.getType().contentEquals(Constants.NML_PORT_INBOUND) &&
-                                ss.getEncoding().equalsIgnoreCase(inPort.get().getEncoding())) {
-                            relation.getPortGroup().add(in);
-                        }
-                        else if (relation.getType().contentEquals(Constants.NML_PORT_OUTBOUND) &&
-                                ss.getEncoding().equalsIgnoreCase(outPort.get().getEncoding())) {
-                            relation.getPortGroup().add(out);
-                        }
-                    }
-                }
+        return Optional.of(nmlPort);
+    }
+
+    /**
+     * Add the NML elements created for an NMWG link to the topology.
+     *
+     * @param nmlPort The NML elements to add.
+     */
+    private void addPort(NmlPort nmlPort) {
+        nmlTopology.getGroup().add(nmlPort.port);
+
+        if (nmlPort.inPort.isPresent()) {
+            inbound.getPortGroup().add(nmlPort.inPort.get());
+        }
+
+        if (nmlPort.outPort.isPresent()) {
+            outbound.getPortGroup().add(nmlPort.outPort.get());
+        }
+
+        // Now we put the unidirectional port references in applicable
+        // switching services.
+        for (NmlSwitchingServiceRelationType relation : nmlPort.inRelations) {
+            relation.getPortGroup().add(nmlPort.in);
+        }
+
+        for (NmlSwitchingServiceRelationType relation : nmlPort.outRelations) {
+            relation.getPortGroup().add(nmlPort.out);
+        }
+
+        ports.put(nmlPort.id, nmlPort);
+    }
+
+    /**
+     * Remove the NML elements of the specified links from the topology.  All
+     * removals are made in a single pass over each list.
+     *
+     * @param removed The NML elements to remove.
+     */
+    private void removeLinks(List<NmlPort> removed) {
+        if (removed.isEmpty()) {
+            return;
+        }
+
+        Set<Object> groups = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<Object> portGroups = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (NmlPort port : removed) {
+            groups.add(port.port);
+            portGroups.add(port.in);
+            portGroups.add(port.out);
+            if (port.inPort.isPresent()) {
+                portGroups.add(port.inPort.get());
+            }
+            if (port.outPort.isPresent()) {
+                portGroups.add(port.outPort.get());
             }
         }
 
-        return nmlTopology;
+        nmlTopology.getGroup().removeIf(groups::contains);
+        inbound.getPortGroup().removeIf(portGroups::contains);
+        outbound.getPortGroup().removeIf(portGroups::contains);
+        for (ServiceDefinitionMap sdm : sdList) {
+            for (NmlSwitchingServiceRelationType relation : sdm.getSwitchingService().getRelation()) {
+                relation.getPortGroup().removeIf(portGroups::contains);
+            }
+        }
+    }
+
+    /**
+     * Put the NML elements of all links back into link identifier order,
+     * the order in which a full translation adds them.
+     */
+    private void sortPorts() {
+        List<NmlPort> sorted = new ArrayList<>(ports.values());
+        sorted.sort((a, b) -> a.id.compareTo(b.id));
+
+        nmlTopology.getGroup().clear();
+        inbound.getPortGroup().clear();
+        outbound.getPortGroup().clear();
+        for (ServiceDefinitionMap sdm : sdList) {
+            for (NmlSwitchingServiceRelationType relation : sdm.getSwitchingService().getRelation()) {
+                relation.getPortGroup().clear();
+            }
+        }
+
+        for (NmlPort port : sorted) {
+            addPort(port);
+        }
+    }
+
+    /**
+     * Build a fingerprint of the configuration values that affect the
+     * generated topology so we can detect when a full rebuild is required.
+     *
+     * @param domainId The NSI identifier of the domain.
+     * @param serviceDefinitions the service definitions used to build the NML switching service.
+     * @param peerings Port peering information used to override the default isAlias mapping.
+     * @return the configuration fingerprint.
+     */
+    private String getFingerprint(String domainId, List<ServiceDefinitionType> serviceDefinitions, Map<String, PeeringType> peerings) {
+        StringBuilder sb = new StringBuilder(domainId);
+        for (ServiceDefinitionType sd : serviceDefinitions) {
+            sb.append('\0').append(sd.getId())
+                    .append('\0').append(sd.getName())
+                    .append('\0').append(sd.getEncoding())
+                    .append('\0').append(sd.isLabelSwapping())
+                    .append('\0').append(sd.getLabelType())
+                    .append('\0').append(sd.getServiceType())
+                    .append('\0').append(getFingerprint(sd.getInclude()))
+                    .append('\0').append(getFingerprint(sd.getExclude()));
+        }
+
+        for (PeeringType peer : new TreeMap<>(peerings).values()) {
+            sb.append('\0').append(peer.getId())
+                    .append('\0').append(peer.getInbound())
+                    .append('\0').append(peer.getOutbound());
+            if (peer.getLabels() != null) {
+                sb.append('\0').append(peer.getLabels().getType())
+                        .append('\0').append(peer.getLabels().getValue());
+            }
+        }
+
+        return sb.toString();
+    }
+
+    private String getFingerprint(List<PatternType> patterns) {
+        StringBuilder sb = new StringBuilder();
+        for (PatternType pattern : patterns) {
+            sb.append(pattern.getType().value()).append(':').append(pattern.getValue()).append('\n');
+        }
+        return sb.toString();
     }
 
     /**
@@ -373,42 +732,18 @@ public class NmlTranslator {
     }
 
     /**
+     * Determine the SwitchingServices whose service definition include and
+     * exclude rules match the link identifier.
      *
-     * @param id
-     * @param sdList
-     * @return
+     * @param id The link identifier.
+     * @return The matching SwitchingServices in service definition order.
      */
-    private List<NmlSwitchingServiceType> match(String id, List<ServiceDefinitionMap> sdList) {
+    private List<NmlSwitchingServiceType> match(String id) {
         List<NmlSwitchingServiceType> result = new ArrayList<>();
 
-        for (ServiceDefinitionMap sd : sdList) {
-            boolean match = false;
-            List<String> includes = sd.getServiceDefinition().getInclude();
-            if (includes.isEmpty()) {
-                match = true;
-            }
-            else {
-                for (String pattern : includes) {
-                    if (id.contains(pattern)) {
-                        match = true;
-                        break;
-                    }
-                }
-            }
-
-            List<String> excludes = sd.getServiceDefinition().getExclude();
-            if (!excludes.isEmpty()) {
-                for (String pattern : excludes) {
-                    if (id.contains(pattern)) {
-                        match = false;
-                        break;
-                    }
-                }
-            }
-
-            if (match) {
-                result.add(sd.getSwitchingService());
-            }
+        BitSet matches = matcher.match(id);
+        for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+            result.add(sdList.get(i).getSwitchingService());
         }
 
         return result;
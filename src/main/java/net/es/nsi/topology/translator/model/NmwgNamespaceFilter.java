@@ -0,0 +1,60 @@
+package net.es.nsi.topology.translator.model;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.util.StreamReaderDelegate;
+
+/**
+ * The NMWG schema returned from the Internet2 repository is not a correct
+ * instance of CtrlPlane schema as the root element is an nmtopo:topology
+ * instead of a CtrlPlane:topology.  This filter sits between the HTTP stream
+ * and the parser remapping the nmtopo:topology element into the CtrlPlane
+ * namespace as events are read, so the document is corrected without
+ * buffering or copying it.
+ *
+ * @author hacksaw
+ */
+public class NmwgNamespaceFilter extends StreamReaderDelegate {
+    // The incorrect namespace used on the root topology element.
+    public static final String NMTOPO_NS = "http://ogf.org/schema/network/topology/base/20070828/";
+
+    private static final String TOPOLOGY = "topology";
+
+    /**
+     * Wrap the provided stream reader.
+     *
+     * @param reader The stream reader to filter.
+     */
+    public NmwgNamespaceFilter(XMLStreamReader reader) {
+        super(reader);
+    }
+
+    /**
+     * Is the reader currently positioned on an nmtopo:topology element?
+     *
+     * @return true if the current element needs to be remapped.
+     */
+    private boolean isNmtopoTopology() {
+        int event = super.getEventType();
+        return (event == XMLStreamConstants.START_ELEMENT || event == XMLStreamConstants.END_ELEMENT)
+                && TOPOLOGY.equals(super.getLocalName())
+                && NMTOPO_NS.equals(super.getNamespaceURI());
+    }
+
+    @Override
+    public String getNamespaceURI() {
+        if (isNmtopoTopology()) {
+            return NmwgStaxReader.CTRLPLANE_NS;
+        }
+        return super.getNamespaceURI();
+    }
+
+    @Override
+    public QName getName() {
+        if (isNmtopoTopology()) {
+            return new QName(NmwgStaxReader.CTRLPLANE_NS, TOPOLOGY, super.getPrefix());
+        }
+        return super.getName();
+    }
+}
@@ -0,0 +1,277 @@
+package net.es.nsi.topology.translator.model;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Strings;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Maintains a local snapshot of the last NMWG topology document retrieved
+ * for a domain along with the HTTP cache validators (ETag and Last-Modified)
+ * returned by the topology server.  The validators are used to issue
+ * conditional GET requests, and the snapshot is reused when the server
+ * reports the document as unmodified, or when the server is unreachable and
+ * the snapshot is within the configured staleness budget.
+ *
+ * Snapshots are written to a temporary file and atomically moved into place
+ * so a failed or concurrent download never leaves a partial document behind.
+ * The parsed domain of the current snapshot is also held in memory so a
+ * resident process can skip the parse when the document is unchanged.
+ *
+ * One instance exists per cache directory and domain.  The staleness budget
+ * and the request URI belong to the configuration using the snapshot, so
+ * they are provided on each check rather than fixed when the instance is
+ * created.  The request URI, including its query parameters, is recorded
+ * with the snapshot, and a snapshot retrieved from a different URI is
+ * discarded rather than revalidated against, or served in place of, the
+ * current source.
+ *
+ * @author hacksaw
+ */
+public class NmwgSnapshotCache {
+    private final static Logger log = LoggerFactory.getLogger(NmwgSnapshotCache.class);
+
+    private final static ConcurrentHashMap<Path, NmwgSnapshotCache> instances = new ConcurrentHashMap<>();
+
+    // Property names for the snapshot metadata.
+    private static final String ETAG = "etag";
+    private static final String LAST_MODIFIED = "lastModified";
+    private static final String VALIDATED = "validated";
+    private static final String SOURCE = "source";
+
+    private final Path snapshotFile;
+    private final Path metadataFile;
+
+    // Snapshot metadata.
+    private Optional<String> etag = Optional.absent();
+    private Optional<String> lastModified = Optional.absent();
+    private long validated = 0;
+    private Optional<String> source = Optional.absent();
+
+    // Domain parsed from the current snapshot.
+    private Optional<CtrlDomain> parsedDomain = Optional.absent();
+
+    /**
+     * Get the snapshot cache for the specified domain.
+     *
+     * @param directory Directory holding the cached snapshots.
+     * @param domain The NSI domain name the snapshot is for.
+     * @return The snapshot cache for the domain.
+     * @throws IOException If the cache directory could not be created.
+     */
+    public static NmwgSnapshotCache getInstance(String directory, String domain) throws IOException {
+        Path dir = Paths.get(directory).toAbsolutePath();
+        try {
+            Files.createDirectories(dir);
+        }
+        catch (IOException ex) {
+            log.error("Could not create cache directory " + dir, ex);
+            throw ex;
+        }
+
+        String name = "nmwg-" + domain.replaceAll("[^A-Za-z0-9._-]", "_");
+        return instances.computeIfAbsent(dir.resolve(name),
+                path -> new NmwgSnapshotCache(dir, name));
+    }
+
+    private NmwgSnapshotCache(Path dir, String name) {
+        this.snapshotFile = dir.resolve(name + ".xml");
+        this.metadataFile = dir.resolve(name + ".properties");
+        load();
+    }
+
+    /**
+     * Load snapshot metadata from a previous run if present.
+     */
+    private void load() {
+        if (!Files.isReadable(snapshotFile) || !Files.isReadable(metadataFile)) {
+            return;
+        }
+
+        Properties metadata = new Properties();
+        try (InputStream is = Files.newInputStream(metadataFile)) {
+            metadata.load(is);
+            etag = Optional.fromNullable(Strings.emptyToNull(metadata.getProperty(ETAG)));
+            lastModified = Optional.fromNullable(Strings.emptyToNull(metadata.getProperty(LAST_MODIFIED)));
+            validated = Long.parseLong(metadata.getProperty(VALIDATED, "0"));
+            source = Optional.fromNullable(Strings.emptyToNull(metadata.getProperty(SOURCE)));
+        }
+        catch (IOException | NumberFormatException ex) {
+            log.error("Ignoring invalid NMWG snapshot metadata " + metadataFile, ex);
+            etag = Optional.absent();
+            lastModified = Optional.absent();
+            validated = 0;
+            source = Optional.absent();
+        }
+    }
+
+    /**
+     * Is there a snapshot available for the request URI?  A snapshot
+     * retrieved from a different URI is discarded.
+     *
+     * @param uri The request URI of the NMWG document.
+     * @return true if a snapshot of the URI exists.
+     * @throws IOException If a discarded snapshot's metadata could not be removed.
+     */
+    public synchronized boolean isPresent(String uri) throws IOException {
+        if (validated <= 0) {
+            return false;
+        }
+
+        if (!source.isPresent() || !source.get().equals(uri)) {
+            log.info("NMWG snapshot " + snapshotFile + " was retrieved from " + source.or("an unknown source") + " not " + uri);
+            invalidate();
+            return false;
+        }
+
+        return Files.isReadable(snapshotFile);
+    }
+
+    /**
+     * Is the snapshot within the staleness budget for use when the server
+     * cannot be reached?
+     *
+     * @param uri The request URI of the NMWG document.
+     * @param maxStale Maximum age in seconds of a snapshot that can be used.
+     * @return true if the snapshot can be used.
+     * @throws IOException If a discarded snapshot's metadata could not be removed.
+     */
+    public synchronized boolean isUsable(String uri, long maxStale) throws IOException {
+        return isPresent(uri) && System.currentTimeMillis() - validated <= TimeUnit.SECONDS.toMillis(maxStale);
+    }
+
+    /**
+     * Get the ETag of the snapshot.
+     *
+     * @return the etag
+     */
+    public synchronized Optional<String> getEtag() {
+        return etag;
+    }
+
+    /**
+     * Get the Last-Modified date of the snapshot.
+     *
+     * @return the lastModified
+     */
+    public synchronized Optional<String> getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Get the time the snapshot was last validated with the server.
+     *
+     * @return the time in milliseconds since the epoch.
+     */
+    public synchronized long getValidated() {
+        return validated;
+    }
+
+    /**
+     * Get the snapshot file.
+     *
+     * @return Path to the snapshot file.
+     */
+    public Path getSnapshotFile() {
+        return snapshotFile;
+    }
+
+    /**
+     * Get the domain parsed from the current snapshot.
+     *
+     * @return The parsed domain if the snapshot has been parsed.
+     */
+    public synchronized Optional<CtrlDomain> getParsedDomain() {
+        return parsedDomain;
+    }
+
+    /**
+     * Set the domain parsed from the current snapshot.
+     *
+     * @param domain The parsed domain.
+     */
+    public synchronized void setParsedDomain(CtrlDomain domain) {
+        this.parsedDomain = Optional.fromNullable(domain);
+    }
+
+    /**
+     * Replace the snapshot with the provided document.
+     *
+     * @param uri The request URI the document was retrieved from.
+     * @param is Stream containing the new NMWG document.
+     * @param etag ETag returned with the document.
+     * @param lastModified Last-Modified date returned with the document.
+     * @throws IOException If the snapshot could not be written.
+     */
+    public synchronized void store(String uri, InputStream is, Optional<String> etag, Optional<String> lastModified) throws IOException {
+        Path tmp = Files.createTempFile(snapshotFile.getParent(), snapshotFile.getFileName().toString(), ".tmp");
+        try {
+            Files.copy(is, tmp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(tmp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (IOException ex) {
+            log.error("Could not write NMWG snapshot " + snapshotFile, ex);
+            Files.deleteIfExists(tmp);
+            throw ex;
+        }
+
+        this.etag = etag;
+        this.lastModified = lastModified;
+        this.source = Optional.of(uri);
+        this.parsedDomain = Optional.absent();
+        validated();
+    }
+
+    /**
+     * Discard the snapshot so it is no longer used or sent as a validator.
+     *
+     * @throws IOException If the snapshot metadata could not be removed.
+     */
+    public synchronized void invalidate() throws IOException {
+        log.error("Invalidating NMWG snapshot " + snapshotFile);
+        etag = Optional.absent();
+        lastModified = Optional.absent();
+        validated = 0;
+        source = Optional.absent();
+        parsedDomain = Optional.absent();
+        Files.deleteIfExists(metadataFile);
+    }
+
+    /**
+     * Record that the server has confirmed the snapshot is current.
+     *
+     * @throws IOException If the snapshot metadata could not be written.
+     */
+    public synchronized void validated() throws IOException {
+        validated = System.currentTimeMillis();
+
+        Properties metadata = new Properties();
+        metadata.setProperty(ETAG, etag.or(""));
+        metadata.setProperty(LAST_MODIFIED, lastModified.or(""));
+        metadata.setProperty(VALIDATED, Long.toString(validated));
+        metadata.setProperty(SOURCE, source.or(""));
+
+        Path tmp = Files.createTempFile(metadataFile.getParent(), metadataFile.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream os = Files.newOutputStream(tmp)) {
+                metadata.store(os, "NMWG snapshot metadata");
+            }
+            Files.move(tmp, metadataFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (IOException ex) {
+            log.error("Could not write NMWG snapshot metadata " + metadataFile, ex);
+            Files.deleteIfExists(tmp);
+            throw ex;
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package net.es.nsi.topology.translator.model;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Strings;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import net.es.nsi.topology.translator.utilities.NsiUtilities;
+
+/**
+ * An event driven reader for NMWG CtrlPlane topology documents that builds
+ * the internal CtrlDomain and CtrlLink model directly from the stream,
+ * avoiding construction of the full JAXB topology tree.  Only the
+ * topology/domain/node/port/link hierarchy is modelled; all other elements
+ * are skipped.  Links inherit capacity and granularity values from their
+ * parent port unless they define their own.
+ *
+ * Documents with an nmtopo:topology root element must be read through an
+ * NmwgNamespaceFilter.
+ *
+ * @author hacksaw
+ */
+public class NmwgStaxReader {
+    // The CtrlPlane topology namespace.
+    public static final String CTRLPLANE_NS = "http://ogf.org/schema/network/topology/ctrlPlane/20080828/";
+
+    // CtrlPlane element names we process.
+    private static final String TOPOLOGY = "topology";
+    private static final String DOMAIN = "domain";
+    private static final String NODE = "node";
+    private static final String PORT = "port";
+    private static final String LINK = "link";
+    private static final String REMOTE_LINK_ID = "remoteLinkId";
+    private static final String CAPACITY = "capacity";
+    private static final String MAX_CAPACITY = "maximumReservableCapacity";
+    private static final String MIN_CAPACITY = "minimumReservableCapacity";
+    private static final String GRANULARITY = "granularity";
+    private static final String SWCAP = "SwitchingCapabilityDescriptors";
+    private static final String ENCODING_TYPE = "encodingType";
+    private static final String SWCAP_INFO = "switchingCapabilitySpecificInfo";
+    private static final String VLAN_RANGE = "vlanRangeAvailability";
+    private static final String VLAN_TRANSLATION = "vlanTranslation";
+    private static final String ID = "id";
+
+    /**
+     * Read the NMWG topology document from the stream.
+     *
+     * @param reader Stream reader positioned before the document element.
+     * @return Map of control domains indexed by normalized NSI identifier.
+     * @throws XMLStreamException If the document is not well formed.
+     * @throws IllegalArgumentException If the document is not a CtrlPlane topology.
+     */
+    public Map<String, CtrlDomain> read(XMLStreamReader reader) throws XMLStreamException, IllegalArgumentException {
+        Map<String, CtrlDomain> ctrlDomains = new HashMap<>();
+
+        // Find the root topology element.
+        while (reader.getEventType() != XMLStreamConstants.START_ELEMENT) {
+            if (!reader.hasNext()) {
+                throw new IllegalArgumentException("NMWG topology is empty.");
+            }
+            reader.next();
+        }
+
+        if (!isElement(reader, TOPOLOGY)) {
+            throw new IllegalArgumentException("Expected CtrlPlane topology but found " + reader.getName());
+        }
+
+        // Only domains directly under the topology are modelled.
+        while (nextChild(reader)) {
+            if (isElement(reader, DOMAIN)) {
+                CtrlDomain ctrlDomain = new CtrlDomain(getId(reader));
+                ctrlDomains.put(ctrlDomain.getId(), ctrlDomain);
+                readDomain(reader, ctrlDomain);
+            }
+            else {
+                skip(reader);
+            }
+        }
+
+        return ctrlDomains;
+    }
+
+    private void readDomain(XMLStreamReader reader, CtrlDomain ctrlDomain) throws XMLStreamException {
+        while (nextChild(reader)) {
+            if (isElement(reader, NODE)) {
+                readNode(reader, ctrlDomain);
+            }
+            else {
+                skip(reader);
+            }
+        }
+    }
+
+    private void readNode(XMLStreamReader reader, CtrlDomain ctrlDomain) throws XMLStreamException {
+        while (nextChild(reader)) {
+            if (isElement(reader, PORT)) {
+                readPort(reader, ctrlDomain);
+            }
+            else {
+                skip(reader);
+            }
+        }
+    }
+
+    private void readPort(XMLStreamReader reader, CtrlDomain ctrlDomain) throws XMLStreamException {
+        // Port attributes are applied once the port is complete in case they
+        // appear after the links.
+        LinkValues port = new LinkValues();
+        List<LinkValues> links = new ArrayList<>();
+
+        while (nextChild(reader)) {
+            if (isElement(reader, LINK)) {
+                links.add(readLink(reader));
+            }
+            else if (!readCapacity(reader, port)) {
+                skip(reader);
+            }
+        }
+
+        // Now for the link elements using any attributes defined on the link
+        // overriding the port defined values.
+        for (LinkValues link : links) {
+            CtrlLink ctrlLink = new CtrlLink(link.id, NsiUtilities.normalizeId(link.id),
+                    link.remoteLinkId, link.encodingType, link.vlanRangeAvailability,
+                    link.vlanTranslation, link.capacity.or(port.capacity),
+                    link.maxCapacity.or(port.maxCapacity),
+                    link.minCapacity.or(port.minCapacity),
+                    link.granularity.or(port.granularity));
+            ctrlDomain.addLink(ctrlLink);
+        }
+    }
+
+    private LinkValues readLink(XMLStreamReader reader) throws XMLStreamException {
+        LinkValues link = new LinkValues();
+        link.id = getId(reader);
+
+        while (nextChild(reader)) {
+            if (isElement(reader, REMOTE_LINK_ID)) {
+                link.remoteLinkId = Optional.of(NsiUtilities.normalizeId(reader.getElementText()));
+            }
+            else if (isElement(reader, SWCAP)) {
+                readSwitchingCapability(reader, link);
+            }
+            else if (!readCapacity(reader, link)) {
+                skip(reader);
+            }
+        }
+
+        return link;
+    }
+
+    private void readSwitchingCapability(XMLStreamReader reader, LinkValues link) throws XMLStreamException {
+        link.encodingType = Optional.absent();
+        link.vlanRangeAvailability = Optional.absent();
+        link.vlanTranslation = false;
+
+        while (nextChild(reader)) {
+            if (isElement(reader, ENCODING_TYPE)) {
+                link.encodingType = Optional.of(reader.getElementText());
+            }
+            else if (isElement(reader, SWCAP_INFO)) {
+                Optional<String> vlanRange = Optional.absent();
+                boolean vlanTranslation = false;
+                while (nextChild(reader)) {
+                    if (isElement(reader, VLAN_RANGE)) {
+                        vlanRange = Optional.of(reader.getElementText());
+                    }
+                    else if (isElement(reader, VLAN_TRANSLATION)) {
+                        String value = reader.getElementText().trim();
+                        vlanTranslation = "true".equals(value) || "1".equals(value);
+                    }
+                    else {
+                        skip(reader);
+                    }
+                }
+                link.vlanRangeAvailability = Optional.of(vlanRange.or(Constants.NML_ETHERNET_VLAN_RANGE));
+                link.vlanTranslation = vlanTranslation;
+            }
+            else {
+                skip(reader);
+            }
+        }
+    }
+
+    /**
+     * Read one of the capacity elements shared by ports and links.
+     *
+     * @return true if the current element was a capacity element.
+     */
+    private boolean readCapacity(XMLStreamReader reader, LinkValues values) throws XMLStreamException {
+        if (isElement(reader, CAPACITY)) {
+            values.capacity = Optional.of(reader.getElementText());
+        }
+        else if (isElement(reader, MAX_CAPACITY)) {
+            values.maxCapacity = Optional.of(reader.getElementText());
+        }
+        else if (isElement(reader, MIN_CAPACITY)) {
+            values.minCapacity = Optional.of(reader.getElementText());
+        }
+        else if (isElement(reader, GRANULARITY)) {
+            values.granularity = Optional.of(reader.getElementText());
+        }
+        else {
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Advance to the next child element of the current element.
+     *
+     * @return true if positioned on a child START_ELEMENT, false if the end
+     * of the current element was reached.
+     */
+    private boolean nextChild(XMLStreamReader reader) throws XMLStreamException {
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                return true;
+            }
+            else if (event == XMLStreamConstants.END_ELEMENT) {
+                return false;
+            }
+        }
+
+        throw new XMLStreamException("Unexpected end of NMWG document.");
+    }
+
+    /**
+     * Skip the current element and all of its content.
+     */
+    private void skip(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            }
+            else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private boolean isElement(XMLStreamReader reader, String name) {
+        return name.equals(reader.getLocalName()) && CTRLPLANE_NS.equals(reader.getNamespaceURI());
+    }
+
+    private String getId(XMLStreamReader reader) {
+        String id = reader.getAttributeValue(null, ID);
+        if (Strings.isNullOrEmpty(id)) {
+            throw new IllegalArgumentException("NMWG " + reader.getLocalName() + " element missing id attribute at line " + reader.getLocation().getLineNumber());
+        }
+        return id;
+    }
+
+    /**
+     * Values collected for a port or link while reading.
+     */
+    private static class LinkValues {
+        private String id;
+        private Optional<String> remoteLinkId = Optional.absent();
+        private Optional<String> encodingType = Optional.absent();
+        private Optional<String> vlanRangeAvailability = Optional.absent();
+        private boolean vlanTranslation = false;
+        private Optional<String> capacity = Optional.absent();
+        private Optional<String> maxCapacity = Optional.absent();
+        private Optional<String> minCapacity = Optional.absent();
+        private Optional<String> granularity = Optional.absent();
+    }
+}
@@ -2,7 +2,11 @@ package net.es.nsi.topology.translator.model;
 
 import com.google.common.base.Optional;
 import com.google.common.base.Strings;
+import com.google.common.io.CountingInputStream;
+import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.security.KeyManagementException;
@@ -14,17 +18,24 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.client.Invocation;
 import javax.ws.rs.client.WebTarget;
-import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.xml.bind.JAXBException;
 import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import net.es.nsi.topology.translator.gson.StpType;
 import net.es.nsi.topology.translator.http.HttpsConfig;
 import net.es.nsi.topology.translator.http.RestClient;
+import net.es.nsi.topology.translator.http.RestClientRegistry;
 import net.es.nsi.topology.translator.jaxb.JaxbParser;
 import net.es.nsi.topology.translator.jaxb.NmwgParser;
+import net.es.nsi.topology.translator.jaxb.configuration.NmwgParserType;
 import net.es.nsi.topology.translator.jaxb.configuration.ParameterType;
 import net.es.nsi.topology.translator.jaxb.configuration.PeeringType;
 import net.es.nsi.topology.translator.jaxb.configuration.ServiceDefinitionType;
@@ -37,8 +48,13 @@ import net.es.nsi.topology.translator.jaxb.nmwg.CtrlPlanePortContent;
 import net.es.nsi.topology.translator.jaxb.nmwg.CtrlPlaneSwcapContent;
 import net.es.nsi.topology.translator.jaxb.nmwg.CtrlPlaneSwitchingCapabilitySpecificInfo;
 import net.es.nsi.topology.translator.jaxb.nmwg.CtrlPlaneTopologyContent;
+import net.es.nsi.topology.translator.jfr.FetchEvent;
+import net.es.nsi.topology.translator.jfr.ParseEvent;
+import net.es.nsi.topology.translator.metrics.Counter;
+import net.es.nsi.topology.translator.metrics.Metrics;
+import net.es.nsi.topology.translator.metrics.Stage;
 import net.es.nsi.topology.translator.utilities.NsiUtilities;
-import org.glassfish.jersey.client.ChunkedInput;
+import net.es.nsi.topology.translator.utilities.TimedInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -51,13 +67,15 @@ public class NmwgTopology {
     private final Logger log = LoggerFactory.getLogger(getClass());
 
     /* The NMWG schema returned from the Internet2 repository is not a correct
-     * instance of CtrlPlane schema so we need to massage it.  These string are
-     * used for the conversion.
+     * instance of CtrlPlane schema as the root element is an nmtopo:topology
+     * instead of a CtrlPlane:topology.  The NmwgNamespaceFilter corrects the
+     * root element as the document is streamed into either parser.
      */
-    private static final String NMTOPO_TOPOLOGY_START = "<nmtopo:topology xmlns:nmtopo=\"http://ogf.org/schema/network/topology/base/20070828/\">";
-    private static final String CTRLPLANE_TOPOLOGY_START = "<CtrlPlane:topology xmlns:CtrlPlane=\"http://ogf.org/schema/network/topology/ctrlPlane/20080828/\">";
-    private static final String NMTOPO_TOPOLOGY_END = "</nmtopo:topology>";
-    private static final String CTRLPLANE_TOPOLOGY_END = "</CtrlPlane:topology>";
+    private static final XMLInputFactory XML_INPUT_FACTORY = XMLInputFactory.newInstance();
+    static {
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
 
     private final WebTarget path;
 
@@ -69,6 +87,20 @@ public class NmwgTopology {
 
     private final JaxbParser nmwgParser;
 
+    // Which parser to use for the NMWG document.
+    private final NmwgParserType parserType;
+
+    // Optional local snapshot of the NMWG document.
+    private final Optional<NmwgSnapshotCache> cache;
+
+    // Maximum age in seconds of a snapshot used when the server is unreachable.
+    private final long maxStale;
+
+    // The domain queried, used to label metrics.
+    private final String domain;
+
+    private final Metrics metrics = Metrics.getInstance();
+
     /**
      *
      * @param nmwg
@@ -83,15 +115,38 @@ public class NmwgTopology {
      * @throws UnrecoverableKeyException
      */
     public NmwgTopology(SourceType nmwg, HttpsConfig secure, String domain) throws UnsupportedEncodingException, KeyStoreException, IOException, NoSuchAlgorithmException, CertificateException, KeyManagementException, UnrecoverableKeyException, JAXBException {
+        this(nmwg, secure, domain, Optional.<NmwgSnapshotCache>absent(), 0);
+    }
+
+    /**
+     *
+     * @param nmwg
+     * @param secure
+     * @param domain
+     * @param cache Local snapshot cache for the NMWG document.
+     * @param maxStale Maximum age in seconds of a snapshot that can be used when the server is unreachable.
+     * @throws UnsupportedEncodingException
+     * @throws KeyStoreException
+     * @throws IOException
+     * @throws NoSuchAlgorithmException
+     * @throws CertificateException
+     * @throws KeyManagementException
+     * @throws UnrecoverableKeyException
+     */
+    public NmwgTopology(SourceType nmwg, HttpsConfig secure, String domain, Optional<NmwgSnapshotCache> cache, long maxStale) throws UnsupportedEncodingException, KeyStoreException, IOException, NoSuchAlgorithmException, CertificateException, KeyManagementException, UnrecoverableKeyException, JAXBException {
         this.nmwgParser = NmwgParser.getInstance();
+        this.cache = cache;
+        this.maxStale = maxStale;
+        this.parserType = nmwg.getParser();
+        this.domain = domain;
 
         // Make sure we have a domain provided.
         if (Strings.isNullOrEmpty(domain)) {
             throw new IllegalArgumentException("Domain cannot be null or empty string.");
         }
 
-        // Get our REST client and set root URL.
-        RestClient restClient = new RestClient(secure);
+        // Get our shared REST client and set root URL.
+        RestClient restClient = RestClientRegistry.getInstance().get(secure);
         WebTarget tempPath = restClient.get().target(nmwg.getBaseURL()).queryParam("domain", domain);
 
         // Now we add additional parameters to the query.
@@ -109,70 +164,300 @@ public class NmwgTopology {
     }
 
     /**
-     * Execute the remote NMWG query.
+     * Creates an NmwgTopology for parsing local NMWG documents, such as
+     * recorded or generated topologies, using parse().  There is no remote
+     * source so process() may not be used.
+     *
+     * @param parserType The parser to use for the NMWG document.
+     */
+    public NmwgTopology(NmwgParserType parserType) {
+        this.nmwgParser = NmwgParser.getInstance();
+        this.cache = Optional.absent();
+        this.maxStale = 0;
+        this.parserType = parserType;
+        this.domain = Metrics.UNKNOWN_DOMAIN;
+        this.path = null;
+    }
+
+    /**
+     * Execute the remote NMWG query streaming the response directly into the
+     * parser.  If a snapshot cache is configured the query is made
+     * conditional on the cached snapshot, which is reused if the server
+     * reports it unmodified or cannot be reached.
      *
      * @throws IllegalArgumentException
      * @throws JAXBException
+     * @throws IOException
      */
-    public void process() throws IllegalArgumentException, JAXBException {
-        Response response = path.request().accept(MediaType.APPLICATION_XML).get();
+    public void process() throws IllegalArgumentException, JAXBException, IOException {
+        if (path == null) {
+            throw new IllegalStateException("No remote NMWG source configured.");
+        }
 
-        if (Response.Status.OK.getStatusCode() != response.getStatus()) {
-            log.error("GET of topology failed " + path.getUri().toString() + ", with STATUS " + response.getStatus());
-            return;
+        FetchEvent event = new FetchEvent();
+        event.begin();
+        try {
+            fetch(event);
         }
+        finally {
+            if (event.shouldCommit()) {
+                event.domain = domain;
+                event.url = path.getUri().toString();
+                event.links = parsedDomain == null ? 0 : parsedDomain.getLinks().size();
+                event.commit();
+            }
+        }
+    }
 
-        final ChunkedInput<String> chunkedInput = response.readEntity(new GenericType<ChunkedInput<String>>() {});
-        String chunk;
-        String finalChunk = null;
-        while ((chunk = chunkedInput.read()) != null) {
-            finalChunk = chunk;
+    /**
+     * Query the NMWG server for the topology, falling back to the cached
+     * snapshot if there is one.
+     *
+     * @param event The flight recorder event describing the query.
+     * @throws IllegalArgumentException
+     * @throws JAXBException
+     * @throws IOException
+     */
+    private void fetch(FetchEvent event) throws IllegalArgumentException, JAXBException, IOException {
+        Invocation.Builder request = path.request().accept(MediaType.APPLICATION_XML);
+
+        if (cache.isPresent() && cache.get().isPresent(path.getUri().toString())) {
+            if (cache.get().getEtag().isPresent()) {
+                request.header(HttpHeaders.IF_NONE_MATCH, cache.get().getEtag().get());
+            }
+
+            if (cache.get().getLastModified().isPresent()) {
+                request.header(HttpHeaders.IF_MODIFIED_SINCE, cache.get().getLastModified().get());
+            }
+        }
+
+        // The fetch covers the query and receiving the response body, but
+        // not the parsing of a body streamed directly into the parser.
+        long start = System.nanoTime();
+        Response response;
+        try {
+            response = request.get();
         }
-        response.close();
+        catch (ProcessingException ex) {
+            metrics.record(Stage.FETCH, domain, System.nanoTime() - start);
+            if (isSnapshotUsable()) {
+                log.error("GET of topology failed " + path.getUri().toString() + ", using cached snapshot", ex);
+                event.snapshot = true;
+                parsedDomain = parseSnapshot();
+                return;
+            }
 
-        if (finalChunk == null || finalChunk.isEmpty()) {
-            throw new IllegalArgumentException("Topology service returned empty string.");
+            log.error("GET of topology failed " + path.getUri().toString(), ex);
+            throw ex;
         }
 
-        parsedDomain = parse(finalChunk);
+        long headers = System.nanoTime() - start;
+        TimedInputStream body = null;
+        event.status = response.getStatus();
+        try {
+            if (Response.Status.NOT_MODIFIED.getStatusCode() == response.getStatus() &&
+                    cache.isPresent() && cache.get().isPresent(path.getUri().toString())) {
+                log.debug("Topology not modified " + path.getUri().toString());
+                cache.get().validated();
+                event.snapshot = true;
+                parsedDomain = parseSnapshot();
+            }
+            else if (Response.Status.OK.getStatusCode() == response.getStatus()) {
+                body = new TimedInputStream(response.readEntity(InputStream.class));
+                CountingInputStream entity = new CountingInputStream(body);
+                try (InputStream is = new BufferedInputStream(entity)) {
+                    if (cache.isPresent()) {
+                        cache.get().store(path.getUri().toString(), is,
+                                Optional.fromNullable(response.getHeaderString(HttpHeaders.ETAG)),
+                                Optional.fromNullable(response.getHeaderString(HttpHeaders.LAST_MODIFIED)));
+                        parsedDomain = parseSnapshot();
+                    }
+                    else {
+                        parsedDomain = parse(is, Optional.of(body));
+                    }
+                }
+                finally {
+                    event.bytes = entity.getCount();
+                    metrics.add(Counter.BYTES_FETCHED, domain, entity.getCount());
+                }
+            }
+            else if (response.getStatusInfo().getFamily() == Response.Status.Family.SERVER_ERROR && isSnapshotUsable()) {
+                log.error("GET of topology failed " + path.getUri().toString() + ", with STATUS " + response.getStatus() + ", using cached snapshot");
+                event.snapshot = true;
+                parsedDomain = parseSnapshot();
+            }
+            else {
+                log.error("GET of topology failed " + path.getUri().toString() + ", with STATUS " + response.getStatus());
+            }
+        }
+        finally {
+            response.close();
+            metrics.record(Stage.FETCH, domain, headers + (body == null ? 0 : body.getNanos()));
+        }
     }
 
     /**
-     * Parse NMWG XML instance document.
+     * Is there a cached snapshot within the staleness budget?
      *
-     * @param xml
+     * @return true if the cached snapshot can be used.
+     * @throws IOException
+     */
+    private boolean isSnapshotUsable() throws IOException {
+        return cache.isPresent() && cache.get().isUsable(path.getUri().toString(), maxStale);
+    }
+
+    /**
+     * Get the domain for the cached snapshot, parsing the snapshot file only
+     * if it has not already been parsed.
+     *
+     * @return The parsed domain.
+     * @throws IllegalArgumentException
+     * @throws JAXBException
+     * @throws IOException
+     */
+    private CtrlDomain parseSnapshot() throws IllegalArgumentException, JAXBException, IOException {
+        NmwgSnapshotCache snapshot = cache.get();
+        synchronized (snapshot) {
+            Optional<CtrlDomain> domain = snapshot.getParsedDomain();
+            if (domain.isPresent()) {
+                return domain.get();
+            }
+
+            try (InputStream is = new BufferedInputStream(Files.newInputStream(snapshot.getSnapshotFile()))) {
+                CtrlDomain result = parse(is);
+                snapshot.setParsedDomain(result);
+                return result;
+            }
+            catch (IllegalArgumentException | JAXBException ex) {
+                // Do not reuse a snapshot we cannot parse.
+                snapshot.invalidate();
+                throw ex;
+            }
+        }
+    }
+
+    /**
+     * Parse NMWG XML instance document using the configured parser.  The
+     * stream is not closed.
+     *
+     * @param is Stream containing the NMWG XML document.
+     * @return The normalized NMWG domain with classified links.
      * @throws IllegalArgumentException
      * @throws JAXBException
      */
-    private CtrlDomain parse(String xml) throws IllegalArgumentException, JAXBException {
-        if (xml == null || xml.isEmpty()) {
+    public CtrlDomain parse(InputStream is) throws IllegalArgumentException, JAXBException {
+        return parse(is, Optional.<TimedInputStream>absent());
+    }
+
+    /**
+     * Parse NMWG XML instance document using the configured parser, leaving
+     * any time spent waiting for the response body out of the unmarshal
+     * stage as it is counted in the fetch.
+     *
+     * @param is Stream containing the NMWG XML document.
+     * @param body The response body the document is being read from.
+     * @return The normalized NMWG domain with classified links.
+     * @throws IllegalArgumentException
+     * @throws JAXBException
+     */
+    private CtrlDomain parse(InputStream is, Optional<TimedInputStream> body) throws IllegalArgumentException, JAXBException {
+        if (is == null) {
             log.error("XML document not specified.");
             throw new IllegalArgumentException("XML document not specified.");
         }
 
-        String processXML = null;
+        XMLStreamReader reader;
         try {
-            processXML = xml.replace(NMTOPO_TOPOLOGY_START, CTRLPLANE_TOPOLOGY_START).replace(NMTOPO_TOPOLOGY_END, CTRLPLANE_TOPOLOGY_END);
+            reader = new NmwgNamespaceFilter(XML_INPUT_FACTORY.createXMLStreamReader(is));
         }
-        catch (NullPointerException ex) {
+        catch (XMLStreamException ex) {
             log.error("Failed to process XML document", ex);
+            throw new IllegalArgumentException("Invalid XML.", ex);
         }
 
-        if (processXML == null || processXML.isEmpty()) {
-            log.error("Invalid XML");
-            throw new IllegalArgumentException("Invalid XML.");
-        }
+        ParseEvent event = new ParseEvent();
+        event.begin();
+        CtrlDomain result = null;
+        try {
+            if (parserType == NmwgParserType.JAXB) {
+                // Parse the stream into a full CtrlPlane topology tree.
+                long start = System.nanoTime();
+                long waiting = waiting(body);
+                try {
+                    topology = nmwgParser.xml2Jaxb(CtrlPlaneTopologyContent.class, reader);
+                }
+                finally {
+                    recordUnmarshal(start, waiting, body);
+                }
+
+                if (topology == null || topology.getDomain().isEmpty()) {
+                    log.error("NMWG topology is empty.");
+                    throw new IllegalArgumentException("NMWG topology is empty.");
+                }
+
+                Map<String, CtrlDomain> ctrlDomains;
+                try (Metrics.Sample sample = metrics.start(Stage.CONVERT, domain)) {
+                    ctrlDomains = convert(topology);
+                }
 
-        // Now that we have the XML properly formatted we need to parse it.
-        topology = nmwgParser.xml2Jaxb(CtrlPlaneTopologyContent.class, processXML);
+                result = finish(ctrlDomains);
+                return result;
+            }
 
-        // Process topology.
-        if (topology == null || topology.getDomain().isEmpty()) {
-            log.error("NMWG topology is empty.");
-            throw new IllegalArgumentException("NMWG topology is empty.");
+            // Default to building our internal model directly from the stream.
+            Map<String, CtrlDomain> ctrlDomains;
+            long start = System.nanoTime();
+            long waiting = waiting(body);
+            try {
+                ctrlDomains = new NmwgStaxReader().read(reader);
+            }
+            catch (XMLStreamException ex) {
+                log.error("Failed to process XML document", ex);
+                throw new IllegalArgumentException("Invalid XML.", ex);
+            }
+            finally {
+                recordUnmarshal(start, waiting, body);
+            }
+
+            result = finish(ctrlDomains);
+            return result;
+        }
+        finally {
+            try { reader.close(); } catch (XMLStreamException ex) {}
+
+            if (event.shouldCommit()) {
+                event.domain = domain;
+                event.parser = String.valueOf(parserType);
+                event.links = result == null ? 0 : result.getLinks().size();
+                event.commit();
+            }
         }
+    }
+
+    private static long waiting(Optional<TimedInputStream> body) {
+        return body.isPresent() ? body.get().getNanos() : 0;
+    }
+
+    /**
+     * Record the unmarshal stage started at the specified time, less the
+     * time spent waiting for the response body since then.
+     *
+     * @param start The start of the stage.
+     * @param waiting Time spent waiting for the body at the start.
+     * @param body The response body being parsed, if any.
+     */
+    private void recordUnmarshal(long start, long waiting, Optional<TimedInputStream> body) {
+        long elapsed = System.nanoTime() - start - (waiting(body) - waiting);
+        metrics.record(Stage.UNMARSHAL, domain, Math.max(elapsed, 0));
+    }
 
-        return convert(topology);
+    /**
+     * Returns the internal representation of the loaded NMWG topology.
+     *
+     * @return The normalized NMWG domain if a topology was loaded.
+     */
+    public Optional<CtrlDomain> getDomain() {
+        return Optional.fromNullable(parsedDomain);
     }
 
     /**
@@ -210,9 +495,9 @@ public class NmwgTopology {
      * Convert the JAXB representation of NMWG topology to an internal mapping.
      *
      * @param topology
-     * @return
+     * @return Map of control domains indexed by normalized NSI identifier.
      */
-    private CtrlDomain convert(CtrlPlaneTopologyContent topology) {
+    private Map<String, CtrlDomain> convert(CtrlPlaneTopologyContent topology) {
         Map<String, CtrlDomain> ctrlDomains = new HashMap<>();
 
         for (CtrlPlaneDomainContent domain : topology.getDomain()) {
@@ -232,7 +517,10 @@ public class NmwgTopology {
                     for (CtrlPlaneLinkContent link : port.getLink()) {
                         String id = NsiUtilities.normalizeId(link.getId());
 
-                        Optional<String> remoteLinkId = Optional.fromNullable(NsiUtilities.normalizeId(link.getRemoteLinkId()));
+                        Optional<String> remoteLinkId = Optional.absent();
+                        if (link.getRemoteLinkId() != null) {
+                            remoteLinkId = Optional.of(NsiUtilities.normalizeId(link.getRemoteLinkId()));
+                        }
                         Optional<String> vlanRangeAvailability = Optional.absent();
                         Optional<String> encodingType = Optional.absent();
                         boolean vlanTranslation = false;
@@ -280,6 +568,17 @@ public class NmwgTopology {
             }
         }
 
+        return ctrlDomains;
+    }
+
+    /**
+     * Select the single domain from the converted NMWG topology and classify
+     * its links.
+     *
+     * @param ctrlDomains Map of control domains indexed by normalized NSI identifier.
+     * @return The single control domain.
+     */
+    private CtrlDomain finish(Map<String, CtrlDomain> ctrlDomains) {
         // We should only have a single domain.
         CtrlDomain finalDomain = null;
         for (CtrlDomain domain : ctrlDomains.values()) {
@@ -294,7 +593,9 @@ public class NmwgTopology {
             throw new IllegalArgumentException(sb.toString());
         }
 
-        markLinks(finalDomain.getLinkMap(), finalDomain.getId());
+        try (Metrics.Sample sample = metrics.start(Stage.MARK_LINKS, domain)) {
+            markLinks(finalDomain.getLinkMap(), finalDomain.getId());
+        }
 
         return finalDomain;
     }
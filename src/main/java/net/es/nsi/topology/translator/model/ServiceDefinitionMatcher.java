@@ -0,0 +1,167 @@
+package net.es.nsi.topology.translator.model;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import net.es.nsi.topology.translator.jaxb.configuration.PatternMatchType;
+import net.es.nsi.topology.translator.jaxb.configuration.PatternType;
+import net.es.nsi.topology.translator.jaxb.configuration.ServiceDefinitionType;
+import net.es.nsi.topology.translator.utilities.AhoCorasick;
+
+/**
+ * Matches link identifiers against the include and exclude rules of a list
+ * of service definitions.  All substring rules are compiled into a single
+ * Aho-Corasick automaton so a link identifier is scanned once regardless of
+ * the number of rules.  Regular expression and glob rules are compiled into
+ * patterns held alongside the automaton.
+ *
+ * A link matches a service definition if the service definition has no
+ * include rules or any include rule matches, and no exclude rule matches.
+ * Substring and regex rules match anywhere within the identifier, while
+ * glob rules must match the whole identifier.
+ *
+ * @author hacksaw
+ */
+public class ServiceDefinitionMatcher {
+    private final int size;
+
+    // Service definitions with no include rules match everything.
+    private final BitSet includeAll = new BitSet();
+
+    // Substring rules encoded as (index << 1) | exclude.
+    private final AhoCorasick<Integer> substrings;
+
+    // Regex and glob rules.
+    private final List<Rule> rules = new ArrayList<>();
+
+    private static class Rule {
+        private final int index;
+        private final boolean exclude;
+        private final Pattern pattern;
+        private final boolean fullMatch;
+
+        Rule(int index, boolean exclude, Pattern pattern, boolean fullMatch) {
+            this.index = index;
+            this.exclude = exclude;
+            this.pattern = pattern;
+            this.fullMatch = fullMatch;
+        }
+
+        boolean matches(String id) {
+            return fullMatch ? pattern.matcher(id).matches() : pattern.matcher(id).find();
+        }
+    }
+
+    /**
+     * Compile the include and exclude rules of the provided service
+     * definitions.
+     *
+     * @param serviceDefinitions The service definitions to compile.
+     * @throws IllegalArgumentException If a regex or glob rule is invalid.
+     */
+    public ServiceDefinitionMatcher(List<ServiceDefinitionType> serviceDefinitions) throws IllegalArgumentException {
+        this.size = serviceDefinitions.size();
+
+        AhoCorasick.Builder<Integer> builder = AhoCorasick.builder();
+        for (int index = 0; index < size; index++) {
+            ServiceDefinitionType sd = serviceDefinitions.get(index);
+            if (sd.getInclude().isEmpty()) {
+                includeAll.set(index);
+            }
+
+            for (PatternType include : sd.getInclude()) {
+                add(builder, index, false, include);
+            }
+
+            for (PatternType exclude : sd.getExclude()) {
+                add(builder, index, true, exclude);
+            }
+        }
+
+        substrings = builder.build();
+    }
+
+    private void add(AhoCorasick.Builder<Integer> builder, int index, boolean exclude, PatternType pattern) {
+        String value = pattern.getValue() == null ? "" : pattern.getValue();
+        try {
+            if (pattern.getType() == PatternMatchType.REGEX) {
+                rules.add(new Rule(index, exclude, Pattern.compile(value), false));
+            }
+            else if (pattern.getType() == PatternMatchType.GLOB) {
+                rules.add(new Rule(index, exclude, Pattern.compile(globToRegex(value)), true));
+            }
+            else {
+                builder.add(value, (index << 1) | (exclude ? 1 : 0));
+            }
+        }
+        catch (PatternSyntaxException ex) {
+            throw new IllegalArgumentException("Invalid " + pattern.getType().value() + " pattern " + value, ex);
+        }
+    }
+
+    /**
+     * Convert a glob pattern using '*' and '?' wildcards into a regular
+     * expression.
+     *
+     * @param glob The glob pattern.
+     * @return The equivalent regular expression.
+     */
+    private static String globToRegex(String glob) {
+        StringBuilder regex = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        for (char c : glob.toCharArray()) {
+            if (c == '*' || c == '?') {
+                if (literal.length() > 0) {
+                    regex.append(Pattern.quote(literal.toString()));
+                    literal.setLength(0);
+                }
+                regex.append(c == '*' ? ".*" : ".");
+            }
+            else {
+                literal.append(c);
+            }
+        }
+
+        if (literal.length() > 0) {
+            regex.append(Pattern.quote(literal.toString()));
+        }
+
+        return regex.toString();
+    }
+
+    /**
+     * Determine the service definitions matching the link identifier.
+     *
+     * @param id The link identifier.
+     * @return Set of indexes into the service definition list that match.
+     */
+    public BitSet match(String id) {
+        BitSet included = (BitSet) includeAll.clone();
+        BitSet excluded = new BitSet(size);
+
+        Set<Integer> hits = new HashSet<>();
+        substrings.search(id, hits);
+        for (int hit : hits) {
+            if ((hit & 1) == 0) {
+                included.set(hit >> 1);
+            }
+            else {
+                excluded.set(hit >> 1);
+            }
+        }
+
+        for (Rule rule : rules) {
+            BitSet target = rule.exclude ? excluded : included;
+            if (!target.get(rule.index) && rule.matches(id)) {
+                target.set(rule.index);
+            }
+        }
+
+        included.andNot(excluded);
+        return included;
+    }
+}
@@ -32,6 +32,8 @@ import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
+import net.es.nsi.topology.translator.jfr.SignEvent;
+import net.es.nsi.topology.translator.metrics.Metrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.Document;
@@ -118,6 +120,9 @@ public class SignatureFactory {
             FileNotFoundException, IOException, CertificateException,
             UnrecoverableEntryException {
 
+        SignEvent event = new SignEvent();
+        event.begin();
+
         // Create a Reference to the enveloped document (in this case,
         // you are signing the whole document, so a URI of "" signifies
         // that, and also specify the SHA1 digest algorithm and
@@ -165,6 +170,14 @@ public class SignatureFactory {
         // successfully.
         signature.sign(signContext);
 
+        if (event.shouldCommit()) {
+            event.document = dom == null ? null : dom.getDocumentElement().getAttribute("id");
+            event.domain = Metrics.getDomain(event.document);
+            event.alias = alias;
+            event.method = method;
+            event.commit();
+        }
+
         return doc;
     }
 }
@@ -0,0 +1,106 @@
+package net.es.nsi.topology.translator.signing;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import net.es.nsi.topology.translator.jaxb.configuration.VerifyPolicyType;
+import net.es.nsi.topology.translator.utilities.DocumentDigest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+
+/**
+ * Applies the configured verification policy to external signatures and
+ * memoizes the result by a digest of both the signed document and the
+ * signature document.  The external signature references a fixed URI, so
+ * signatures made with the same key can be identical for different content
+ * and the signature alone does not identify what was verified.  Once a
+ * document and signature pair has been verified an identical pair is not
+ * canonicalized or checked against the key again until the result expires.
+ * Only signatures generated by the translator are verified here; documents
+ * received from elsewhere are always validated in full.
+ *
+ * Only definite results are cached; a validation that fails with an
+ * exception is retried the next time the signature is seen.
+ *
+ * @author hacksaw
+ */
+public class SignatureVerifier {
+    private final static Logger log = LoggerFactory.getLogger(SignatureVerifier.class);
+
+    // Digest over the complete signed or signature document.
+    private static final DocumentDigest DIGEST = new DocumentDigest(
+            ImmutableSet.<String>of(), ImmutableSet.<String>of());
+
+    // Validation results indexed by document and signature digest.
+    private final Cache<String, Boolean> results = CacheBuilder.newBuilder()
+            .maximumSize(1024)
+            .expireAfterWrite(1, TimeUnit.HOURS)
+            .build();
+
+    // Number of signatures considered for sampled verification.
+    private final AtomicLong count = new AtomicLong();
+
+    /**
+     * An internal static class that invokes our private constructor on object
+     * creation.
+     */
+    private static class SignatureVerifierHolder {
+        public static final SignatureVerifier INSTANCE = new SignatureVerifier();
+    }
+
+    /**
+     * Returns an instance of this singleton class.
+     *
+     * @return The signature verifier.
+     */
+    public static SignatureVerifier getInstance() {
+        return SignatureVerifierHolder.INSTANCE;
+    }
+
+    private SignatureVerifier() {
+    }
+
+    /**
+     * Determine if the next generated signature should be verified under
+     * the specified policy.
+     *
+     * @param policy The verification policy.
+     * @param sample Verify one in this many signatures when sampled.
+     * @return true if the signature should be verified.
+     */
+    public boolean isVerify(VerifyPolicyType policy, int sample) {
+        if (policy == null || policy == VerifyPolicyType.ALWAYS) {
+            return true;
+        }
+        else if (policy == VerifyPolicyType.OFF) {
+            return false;
+        }
+
+        return sample <= 1 || count.getAndIncrement() % sample == 0;
+    }
+
+    /**
+     * Validate an external signature, returning the cached result if an
+     * identical document and signature have already been validated.
+     *
+     * @param doc The signed document.
+     * @param sig The document holding the signature.
+     * @return true if the signature is valid.
+     * @throws Exception If the signature could not be validated.
+     */
+    public boolean validateExternal(Document doc, Document sig) throws Exception {
+        String digest = (doc == null ? "" : DIGEST.digest(doc)) + ":" + DIGEST.digest(sig);
+        Boolean valid = results.getIfPresent(digest);
+        if (valid != null) {
+            log.debug("validateExternal: cached result {} for document and signature {}", valid, digest);
+            return valid;
+        }
+
+        valid = Validate.validateExternal(doc, sig);
+        results.put(digest, valid);
+        return valid;
+    }
+}
@@ -0,0 +1,195 @@
+package net.es.nsi.topology.translator.signing;
+
+import java.io.IOException;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.KeyStore;
+import java.security.KeyStoreException;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.Provider;
+import java.security.UnrecoverableEntryException;
+import java.security.cert.CertificateException;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.xml.crypto.MarshalException;
+import javax.xml.crypto.dsig.CanonicalizationMethod;
+import javax.xml.crypto.dsig.DigestMethod;
+import javax.xml.crypto.dsig.Reference;
+import javax.xml.crypto.dsig.SignatureMethod;
+import javax.xml.crypto.dsig.SignedInfo;
+import javax.xml.crypto.dsig.XMLSignature;
+import javax.xml.crypto.dsig.XMLSignatureException;
+import javax.xml.crypto.dsig.XMLSignatureFactory;
+import javax.xml.crypto.dsig.dom.DOMSignContext;
+import javax.xml.crypto.dsig.keyinfo.KeyInfo;
+import javax.xml.crypto.dsig.spec.C14NMethodParameterSpec;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import net.es.nsi.topology.translator.jaxb.configuration.KeyStoreType;
+import net.es.nsi.topology.translator.jaxb.configuration.SignatureType;
+import net.es.nsi.topology.translator.jfr.SignEvent;
+import net.es.nsi.topology.translator.metrics.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+
+/**
+ * A long-lived, thread safe service generating external signatures with the
+ * key configured in a <signature> element.  The JSR-105 provider, keystore,
+ * private key, signature method and KeyInfo are loaded once when the service
+ * is created, so signing a document costs only the digest and the private
+ * key operation.
+ *
+ * XMLSignatureFactory instances are not thread safe, so each thread signs
+ * with its own factory created from the shared provider.  References and
+ * SignedInfo hold the digest and signature values of a single signing
+ * operation, so these are created per signature from the cached methods.
+ *
+ * One instance exists per signature keystore and alias.
+ *
+ * @author hacksaw
+ */
+public class SigningService {
+    private final static Logger log = LoggerFactory.getLogger(SigningService.class);
+
+    private final static ConcurrentHashMap<String, SigningService> instances = new ConcurrentHashMap<>();
+
+    // The reference used by the external signature.
+    private static final String REFERENCE_URI = "http://www.w3.org/TR/xml-stylesheet";
+
+    private final Provider provider;
+    private final String alias;
+    private final PrivateKey privateKey;
+    private final String signatureMethod;
+    private final KeyInfo keyInfo;
+
+    // Per-thread XML signature factory.
+    private final ThreadLocal<XMLSignatureFactory> factory;
+
+    // Per-thread builder for the documents holding signatures.
+    private static final ThreadLocal<DocumentBuilder> documentBuilder = new ThreadLocal<>();
+
+    /**
+     * Get the signing service for the provided signature configuration,
+     * creating it on first use.
+     *
+     * @param signature The signature configuration.
+     * @return The signing service.
+     * @throws KeyStoreException If the keystore could not be loaded or the alias has no private key.
+     * @throws IOException If the keystore could not be read.
+     * @throws NoSuchAlgorithmException
+     * @throws CertificateException
+     * @throws UnrecoverableEntryException If the private key could not be recovered.
+     * @throws ReflectiveOperationException If the JSR-105 provider could not be loaded.
+     */
+    public static SigningService getInstance(SignatureType signature) throws KeyStoreException, IOException, NoSuchAlgorithmException, CertificateException, UnrecoverableEntryException, ReflectiveOperationException {
+        KeyStoreType keyStore = signature.getKeyStore();
+        String key = keyStore.getFile() + '\0' + keyStore.getType() + '\0' + keyStore.getPassword() + '\0' + signature.getAlias();
+
+        SigningService service = instances.get(key);
+        if (service == null) {
+            synchronized (instances) {
+                service = instances.get(key);
+                if (service == null) {
+                    service = new SigningService(keyStore, signature.getAlias());
+                    instances.put(key, service);
+                }
+            }
+        }
+
+        return service;
+    }
+
+    private SigningService(KeyStoreType keyStore, String alias) throws KeyStoreException, IOException, NoSuchAlgorithmException, CertificateException, UnrecoverableEntryException, ReflectiveOperationException {
+        // We are going to use the jsr105 provider to generate our digital signature.
+        String providerName = System.getProperty("jsr105Provider", "org.jcp.xml.dsig.internal.dom.XMLDSigRI");
+        provider = (Provider) Class.forName(providerName).getDeclaredConstructor().newInstance();
+        this.alias = alias;
+        factory = ThreadLocal.withInitial(() -> XMLSignatureFactory.getInstance("DOM", provider));
+
+        // Open the keystore and load the private key corresponding to alias.
+        KeyStoreHandler keyStoreHandler = new KeyStoreHandler(keyStore.getFile(), keyStore.getPassword(), keyStore.getType());
+        KeyStore.PrivateKeyEntry keyEntry = keyStoreHandler.getPrivateKeyEntry(alias);
+        if (keyEntry == null) {
+            log.error("No private key for alias " + alias + " in keystore " + keyStore.getFile());
+            throw new KeyStoreException("No private key for alias " + alias + " in keystore " + keyStore.getFile());
+        }
+
+        privateKey = keyEntry.getPrivateKey();
+
+        // Determine the signature method we will use.
+        String algorithm = privateKey.getAlgorithm();
+        if (algorithm.equalsIgnoreCase("RSA")) {
+            signatureMethod = SignatureMethod.RSA_SHA1;
+        }
+        else if (algorithm.equalsIgnoreCase("DSA")) {
+            signatureMethod = SignatureMethod.DSA_SHA1;
+        }
+        else {
+            signatureMethod = SignatureMethod.HMAC_SHA1;
+        }
+
+        // Create a KeyInfo holding the X509Data.
+        keyInfo = keyStoreHandler.getKeyInfo(alias, factory.get());
+    }
+
+    /**
+     * Generate an external signature for the provided document.
+     *
+     * @param dom The document to sign.
+     * @return A new document holding the signature.
+     * @throws NoSuchAlgorithmException
+     * @throws InvalidAlgorithmParameterException
+     * @throws MarshalException
+     * @throws XMLSignatureException
+     * @throws ParserConfigurationException
+     */
+    public Document generateExternalSignature(Document dom) throws NoSuchAlgorithmException, InvalidAlgorithmParameterException, MarshalException, XMLSignatureException, ParserConfigurationException {
+        SignEvent event = new SignEvent();
+        event.begin();
+        try {
+            XMLSignatureFactory fac = factory.get();
+
+            // Create the reference and SignedInfo for this signature.
+            Reference ref = fac.newReference(REFERENCE_URI, fac.newDigestMethod(DigestMethod.SHA512, null));
+            SignedInfo si = fac.newSignedInfo(
+                    fac.newCanonicalizationMethod(CanonicalizationMethod.INCLUSIVE_WITH_COMMENTS, (C14NMethodParameterSpec) null),
+                    fac.newSignatureMethod(signatureMethod, null), Collections.singletonList(ref));
+
+            // Create the XMLSignature (but don't sign it yet)
+            XMLSignature signature = fac.newXMLSignature(si, keyInfo);
+
+            // Create the Document that will hold the resulting XMLSignature and
+            // sign it with our private key.
+            Document doc = getDocumentBuilder().newDocument();
+            signature.sign(new DOMSignContext(privateKey, doc));
+
+            return doc;
+        }
+        finally {
+            if (event.shouldCommit()) {
+                event.document = dom == null ? null : dom.getDocumentElement().getAttribute("id");
+                event.domain = Metrics.getDomain(event.document);
+                event.alias = alias;
+                event.method = signatureMethod;
+                event.commit();
+            }
+        }
+    }
+
+    private static DocumentBuilder getDocumentBuilder() throws ParserConfigurationException {
+        DocumentBuilder builder = documentBuilder.get();
+        if (builder == null) {
+            DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+            dbf.setNamespaceAware(true); // must be set
+            dbf.setValidating(true);
+            dbf.setExpandEntityReferences(true);
+            dbf.setXIncludeAware(true);
+            builder = dbf.newDocumentBuilder();
+            documentBuilder.set(builder);
+        }
+
+        return builder;
+    }
+}
@@ -22,6 +22,13 @@ import org.w3c.dom.NodeList;
 public class Validate {
     private final static Logger log = LoggerFactory.getLogger(Validate.class);
 
+    // XMLSignatureFactory instances are not thread safe so keep one per thread.
+    private final static ThreadLocal<XMLSignatureFactory> factory =
+            ThreadLocal.withInitial(() -> XMLSignatureFactory.getInstance("DOM"));
+
+    // Shared key selector caching certificate to key lookups.
+    private final static X509KeySelector keySelector = new X509KeySelector();
+
     public static boolean validateEnveloped(Document doc) throws Exception {
 
         // Find Signature element
@@ -32,11 +39,11 @@ public class Validate {
 
         // Create a DOM XMLSignatureFactory that will be used to unmarshal the
         // document containing the XMLSignature
-        XMLSignatureFactory fac = XMLSignatureFactory.getInstance("DOM");
+        XMLSignatureFactory fac = factory.get();
 
         // Create a DOMValidateContext and specify a KeyValue KeySelector
         // and document context.
-        DOMValidateContext valContext = new DOMValidateContext(new X509KeySelector(), nl.item(0));
+        DOMValidateContext valContext = new DOMValidateContext(keySelector, nl.item(0));
 
         valContext.setProperty("javax.xml.crypto.dsig.cacheReference", Boolean.TRUE);
 
@@ -77,11 +84,11 @@ public class Validate {
 
         // Create a DOM XMLSignatureFactory that will be used to unmarshal the
         // document containing the XMLSignature
-        XMLSignatureFactory fac = XMLSignatureFactory.getInstance("DOM");
+        XMLSignatureFactory fac = factory.get();
 
         // Create a DOMValidateContext and specify a KeyValue KeySelector
         // and document context
-        DOMValidateContext valContext = new DOMValidateContext(new X509KeySelector(), nl.item(0));
+        DOMValidateContext valContext = new DOMValidateContext(keySelector, nl.item(0));
 
         // Unmarshal the XMLSignature
         XMLSignature signature = fac.unmarshalXMLSignature(valContext);
@@ -4,6 +4,8 @@
  */
 package net.es.nsi.topology.translator.signing;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import java.security.PublicKey;
 import java.security.cert.X509Certificate;
 import java.util.Iterator;
@@ -18,11 +20,21 @@ import javax.xml.crypto.dsig.keyinfo.KeyInfo;
 import javax.xml.crypto.dsig.keyinfo.X509Data;
 
 /**
+ * Selects the public key of the first X509 certificate in a KeyInfo that is
+ * compatible with the signature method.  The key extracted from each
+ * certificate is cached so a certificate seen again, such as the signing
+ * certificate of each document we publish, is not decoded again.  An
+ * instance may be shared across threads.
  *
  * @author hacksaw
  */
 
 public class X509KeySelector extends KeySelector {
+    // Public keys indexed by the certificate they were extracted from.
+    private final Cache<X509Certificate, PublicKey> keys = CacheBuilder.newBuilder()
+            .maximumSize(256)
+            .build();
+
     @Override
     public KeySelectorResult select(KeyInfo keyInfo,KeySelector.Purpose purpose,
             AlgorithmMethod method, XMLCryptoContext context)
@@ -44,7 +56,13 @@ public class X509KeySelector extends KeySelector {
                     continue;
                 }
 
-                final PublicKey key = ((X509Certificate)o).getPublicKey();
+                X509Certificate certificate = (X509Certificate) o;
+                PublicKey cached = keys.getIfPresent(certificate);
+                if (cached == null) {
+                    cached = certificate.getPublicKey();
+                    keys.put(certificate, cached);
+                }
+                final PublicKey key = cached;
 
                 // Make sure the algorithm is compatible with the method.
                 if (algEquals(method.getAlgorithm(), key.getAlgorithm())) {
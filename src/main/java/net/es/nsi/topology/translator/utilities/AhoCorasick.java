@@ -0,0 +1,140 @@
+package net.es.nsi.topology.translator.utilities;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * An Aho-Corasick multi-pattern substring matcher.  A set of patterns, each
+ * with an associated value, is compiled into an automaton that reports the
+ * values of all patterns occurring in an input string in a single pass over
+ * that string.  Once built, the automaton is immutable and may be shared
+ * between threads.
+ *
+ * @author hacksaw
+ * @param <T> The type of value associated with each pattern.
+ */
+public class AhoCorasick<T> {
+    private final Node<T> root = new Node<>();
+
+    private static class Node<T> {
+        private final Map<Character, Node<T>> next = new HashMap<>();
+        private final List<T> values = new ArrayList<>();
+        private Node<T> fail;
+    }
+
+    /**
+     * Builder used to add patterns before compiling the automaton.
+     *
+     * @param <T> The type of value associated with each pattern.
+     */
+    public static class Builder<T> {
+        private final AhoCorasick<T> automaton = new AhoCorasick<>();
+        private boolean built = false;
+
+        /**
+         * Add a pattern to the automaton.
+         *
+         * @param pattern The substring to match.
+         * @param value The value reported when the pattern matches.
+         * @return this builder.
+         */
+        public Builder<T> add(String pattern, T value) {
+            if (built) {
+                throw new IllegalStateException("Automaton already built.");
+            }
+
+            Node<T> node = automaton.root;
+            for (int i = 0; i < pattern.length(); i++) {
+                node = node.next.computeIfAbsent(pattern.charAt(i), c -> new Node<>());
+            }
+            node.values.add(value);
+            return this;
+        }
+
+        /**
+         * Compute the failure transitions and return the automaton.
+         *
+         * @return the compiled automaton.
+         */
+        public AhoCorasick<T> build() {
+            if (!built) {
+                automaton.link();
+                built = true;
+            }
+            return automaton;
+        }
+    }
+
+    private AhoCorasick() {
+    }
+
+    /**
+     * Create a builder for an automaton.
+     *
+     * @param <T> The type of value associated with each pattern.
+     * @return a new builder.
+     */
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * Breadth first computation of failure transitions, merging the values
+     * of each failure target into the node so matching never has to follow
+     * the failure chain to collect output.
+     */
+    private void link() {
+        Queue<Node<T>> queue = new ArrayDeque<>();
+        root.fail = root;
+        for (Node<T> child : root.next.values()) {
+            child.fail = root;
+            child.values.addAll(root.values);
+            queue.add(child);
+        }
+
+        while (!queue.isEmpty()) {
+            Node<T> node = queue.remove();
+            for (Map.Entry<Character, Node<T>> entry : node.next.entrySet()) {
+                Node<T> child = entry.getValue();
+                Node<T> fail = node.fail;
+                while (fail != root && !fail.next.containsKey(entry.getKey())) {
+                    fail = fail.fail;
+                }
+
+                Node<T> target = fail.next.get(entry.getKey());
+                child.fail = (target != null && target != child) ? target : root;
+                child.values.addAll(child.fail.values);
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     * Collect the values of all patterns occurring in the input string.
+     *
+     * @param text The string to search.
+     * @param results Collection to which the matching values are added.
+     */
+    public void search(String text, Collection<T> results) {
+        Node<T> node = root;
+        results.addAll(root.values);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            Node<T> next = node.next.get(c);
+            while (next == null && node != root) {
+                node = node.fail;
+                next = node.next.get(c);
+            }
+
+            node = (next == null) ? root : next;
+            if (!node.values.isEmpty()) {
+                results.addAll(node.values);
+            }
+        }
+    }
+}
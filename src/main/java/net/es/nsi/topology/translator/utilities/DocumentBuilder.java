@@ -9,6 +9,10 @@ import net.es.nsi.topology.translator.http.Encoder;
 import net.es.nsi.topology.translator.jaxb.dds.ContentType;
 import net.es.nsi.topology.translator.jaxb.dds.DocumentType;
 import net.es.nsi.topology.translator.jaxb.dds.ObjectFactory;
+import net.es.nsi.topology.translator.jaxb.configuration.VerifyPolicyType;
+import net.es.nsi.topology.translator.metrics.Metrics;
+import net.es.nsi.topology.translator.metrics.Stage;
+import net.es.nsi.topology.translator.signing.SignatureVerifier;
 import net.es.nsi.topology.translator.signing.Validate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -33,6 +37,9 @@ public class DocumentBuilder {
     protected Optional<XMLGregorianCalendar> expires = Optional.empty();
     protected Optional<Document> doc = Optional.empty();
     protected Optional<Document> sig = Optional.empty();
+    protected VerifyPolicyType verify = VerifyPolicyType.ALWAYS;
+    protected int verifySample = 1;
+    protected Optional<Integer> sizeHint = Optional.empty();
 
     public DocumentBuilder withNsaId(String nsaId) {
         this.nsaId = Optional.of(nsaId);
@@ -69,6 +76,17 @@ public class DocumentBuilder {
         return this;
     }
 
+    public DocumentBuilder withSizeHint(int sizeHint) {
+        this.sizeHint = Optional.of(sizeHint);
+        return this;
+    }
+
+    public DocumentBuilder withVerify(VerifyPolicyType verify, int verifySample) {
+        this.verify = verify;
+        this.verifySample = verifySample;
+        return this;
+    }
+
     private static class ExceptionSupplier implements Supplier<IllegalArgumentException>
     {
         private Optional<String> error = Optional.empty();
@@ -99,8 +117,12 @@ public class DocumentBuilder {
         document.setVersion(version.orElseThrow(new ExceptionSupplier("document version required")));
         document.setExpires(expires.orElseThrow(new ExceptionSupplier("document expires time required")));
 
-        // Encode the DOM document and stick it in contents.
-        String docEncoded = Encoder.encode(doc.orElseThrow(new ExceptionSupplier("document contents required")));
+        // Encode the DOM document and stick it in contents.  The document and
+        // signature encodings are timed as a single stage.
+        long start = System.nanoTime();
+        Document contents = doc.orElseThrow(new ExceptionSupplier("document contents required"));
+        String docEncoded = sizeHint.isPresent() ? Encoder.encode(contents, sizeHint.get()) : Encoder.encode(contents);
+        long encoding = System.nanoTime() - start;
         ContentType contentHolder = factory.createContentType();
         contentHolder.setValue(docEncoded);
         contentHolder.setContentType(ContentType);
@@ -108,15 +130,20 @@ public class DocumentBuilder {
         document.setContent(contentHolder);
 
         if (sig.isPresent()) {
-            try {
-                if (!Validate.validateExternal(doc.get(), sig.get())) {
-                    log.error("Failed to validate signature.");
+            SignatureVerifier verifier = SignatureVerifier.getInstance();
+            if (verifier.isVerify(verify, verifySample)) {
+                try {
+                    if (!verifier.validateExternal(doc.get(), sig.get())) {
+                        log.error("Failed to validate signature.");
+                    }
+                } catch (Exception ex) {
+                    log.error("Failed to validate signature.", ex);
                 }
-            } catch (Exception ex) {
-                log.error("Failed to validate signature.", ex);
             }
 
+            start = System.nanoTime();
             String sigEncoded = Encoder.encode(sig.get());
+            encoding += System.nanoTime() - start;
             ContentType sigHolder = factory.createContentType();
             sigHolder.setValue(sigEncoded);
             sigHolder.setContentType(ContentType);
@@ -124,6 +151,7 @@ public class DocumentBuilder {
             document.setSignature(sigHolder);
         }
 
+        Metrics.getInstance().record(Stage.ENCODE, Metrics.getDomain(document.getNsa()), encoding);
         return document;
     }
 
@@ -0,0 +1,134 @@
+package net.es.nsi.topology.translator.utilities;
+
+import com.google.common.io.BaseEncoding;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import javax.xml.XMLConstants;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * Computes a canonical digest of the content of a DOM document.  Elements
+ * and attributes are identified by namespace URI and local name so the
+ * digest does not depend on namespace prefixes, attributes are digested in
+ * sorted order, and namespace declarations, comments and whitespace only
+ * text are ignored.
+ *
+ * Selected attributes and child elements of the document root, such as the
+ * version and lifetime stamped on each generated document, can be excluded
+ * so two documents with the same content produce the same digest.
+ *
+ * @author hacksaw
+ */
+public class DocumentDigest {
+    private static final String ALGORITHM = "SHA-256";
+
+    private final Set<String> rootAttributes;
+    private final Set<String> rootElements;
+
+    /**
+     * Create a digest excluding the named attributes and child elements of
+     * the document root.
+     *
+     * @param rootAttributes Local names of root attributes to exclude.
+     * @param rootElements Local names of root child elements to exclude.
+     */
+    public DocumentDigest(Set<String> rootAttributes, Set<String> rootElements) {
+        this.rootAttributes = rootAttributes;
+        this.rootElements = rootElements;
+    }
+
+    /**
+     * Compute the digest of the document content.
+     *
+     * @param document The document to digest.
+     * @return The hex encoded digest value.
+     * @throws NoSuchAlgorithmException If SHA-256 is not supported.
+     */
+    public String digest(Document document) throws NoSuchAlgorithmException {
+        MessageDigest md = MessageDigest.getInstance(ALGORITHM);
+        digest(md, document.getDocumentElement(), true);
+        return BaseEncoding.base16().lowerCase().encode(md.digest());
+    }
+
+    private void digest(MessageDigest md, Element element, boolean root) {
+        md.update((byte) '<');
+        update(md, element.getNamespaceURI());
+        update(md, getLocalName(element));
+
+        // Attributes in sorted order.
+        List<String> attributes = new ArrayList<>();
+        NamedNodeMap map = element.getAttributes();
+        for (int i = 0; i < map.getLength(); i++) {
+            Attr attr = (Attr) map.item(i);
+            if (XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(attr.getNamespaceURI()) ||
+                    XMLConstants.XMLNS_ATTRIBUTE.equals(attr.getName()) ||
+                    attr.getName().startsWith(XMLConstants.XMLNS_ATTRIBUTE + ":")) {
+                continue;
+            }
+
+            String name = getLocalName(attr);
+            if (root && rootAttributes.contains(name)) {
+                continue;
+            }
+
+            String ns = attr.getNamespaceURI() == null ? "" : attr.getNamespaceURI();
+            attributes.add(ns + '\0' + name + '\0' + attr.getValue());
+        }
+
+        Collections.sort(attributes);
+        for (String attribute : attributes) {
+            md.update((byte) '@');
+            update(md, attribute);
+        }
+
+        for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            switch (child.getNodeType()) {
+                case Node.ELEMENT_NODE:
+                    if (root && rootElements.contains(getLocalName(child))) {
+                        break;
+                    }
+                    digest(md, (Element) child, false);
+                    break;
+                case Node.TEXT_NODE:
+                case Node.CDATA_SECTION_NODE:
+                    String text = child.getNodeValue();
+                    if (text != null && !text.trim().isEmpty()) {
+                        md.update((byte) '#');
+                        update(md, text);
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        md.update((byte) '>');
+    }
+
+    private static String getLocalName(Node node) {
+        return node.getLocalName() == null ? node.getNodeName() : node.getLocalName();
+    }
+
+    private static void update(MessageDigest md, String value) {
+        if (value == null) {
+            md.update((byte) 0);
+            return;
+        }
+
+        // Length prefix values so adjacent fields cannot run together.
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        md.update((byte) 1);
+        md.update(Integer.toString(bytes.length).getBytes(StandardCharsets.UTF_8));
+        md.update((byte) ':');
+        md.update(bytes);
+    }
+}
@@ -0,0 +1,62 @@
+package net.es.nsi.topology.translator.utilities;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An input stream that accumulates the time spent waiting in reads of the
+ * underlying stream, such as a response body being received from the
+ * network while it is consumed by a parser.
+ *
+ * @author hacksaw
+ */
+public class TimedInputStream extends FilterInputStream {
+    private long nanos = 0;
+
+    public TimedInputStream(InputStream in) {
+        super(in);
+    }
+
+    /**
+     * Get the time spent in reads and skips of the underlying stream.
+     *
+     * @return The elapsed time in nanoseconds.
+     */
+    public long getNanos() {
+        return nanos;
+    }
+
+    @Override
+    public int read() throws IOException {
+        long start = System.nanoTime();
+        try {
+            return in.read();
+        }
+        finally {
+            nanos += System.nanoTime() - start;
+        }
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        long start = System.nanoTime();
+        try {
+            return in.read(b, off, len);
+        }
+        finally {
+            nanos += System.nanoTime() - start;
+        }
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long start = System.nanoTime();
+        try {
+            return in.skip(n);
+        }
+        finally {
+            nanos += System.nanoTime() - start;
+        }
+    }
+}
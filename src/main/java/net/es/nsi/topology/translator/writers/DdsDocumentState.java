@@ -0,0 +1,251 @@
+package net.es.nsi.topology.translator.writers;
+
+import com.google.common.base.Optional;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Records which documents are known to exist on a DDS along with the
+ * version, expiry and content digest last written, so a document write can
+ * go straight to PUT or POST without first downloading the document to
+ * determine if it exists, or be skipped if the content is unchanged.  State
+ * is held in memory and, if a cache directory is configured, persisted so
+ * it survives a restart.
+ *
+ * One instance exists per DDS and cache directory.
+ *
+ * @author hacksaw
+ */
+public class DdsDocumentState {
+    private final static Logger log = LoggerFactory.getLogger(DdsDocumentState.class);
+
+    private final static ConcurrentHashMap<String, DdsDocumentState> instances = new ConcurrentHashMap<>();
+
+    // Value recorded for documents known not to exist.
+    private static final String ABSENT = "absent";
+
+    // Placeholder for missing values in the persisted state.
+    private static final String NONE = "-";
+
+    /**
+     * Existence of a document on the DDS.
+     */
+    public static enum Existence {
+        EXISTS,
+        ABSENT,
+        UNKNOWN
+    }
+
+    private final Optional<Path> file;
+
+    // Document path to the last written document, absent if it does not exist.
+    private final Map<String, Optional<Entry>> documents = new HashMap<>();
+
+    /**
+     * The state of a document last written to the DDS.
+     */
+    private static class Entry {
+        private final String version;
+        private final long expires;
+        private final Optional<String> digest;
+
+        Entry(String version, long expires, Optional<String> digest) {
+            this.version = version;
+            this.expires = expires;
+            this.digest = digest;
+        }
+    }
+
+    /**
+     * Get the document state for the specified DDS.
+     *
+     * @param directory Optional cache directory for persisting state.
+     * @param url Root URL of the DDS.
+     * @return The document state for the DDS.
+     */
+    public static DdsDocumentState getInstance(Optional<String> directory, String url) {
+        String name = "dds-" + url.replaceAll("[^A-Za-z0-9._-]", "_") + ".properties";
+        if (!directory.isPresent()) {
+            return instances.computeIfAbsent(name, key -> new DdsDocumentState(Optional.<Path>absent()));
+        }
+
+        Path path = Paths.get(directory.get()).toAbsolutePath().resolve(name);
+        return instances.computeIfAbsent(path.toString(), key -> new DdsDocumentState(Optional.of(path)));
+    }
+
+    private DdsDocumentState(Optional<Path> file) {
+        this.file = file;
+        load();
+    }
+
+    private void load() {
+        if (!file.isPresent() || !Files.isReadable(file.get())) {
+            return;
+        }
+
+        java.util.Properties state = new java.util.Properties();
+        try (InputStream is = Files.newInputStream(file.get())) {
+            state.load(is);
+            for (String path : state.stringPropertyNames()) {
+                documents.put(path, decode(state.getProperty(path)));
+            }
+        }
+        catch (IOException | IllegalArgumentException ex) {
+            log.error("Ignoring invalid DDS document state " + file.get(), ex);
+            documents.clear();
+        }
+    }
+
+    /**
+     * Get the known existence of a document on the DDS.
+     *
+     * @param path The nsa/type/id path of the document.
+     * @return The existence of the document.
+     */
+    public synchronized Existence getExistence(String path) {
+        Optional<Entry> entry = documents.get(path);
+        if (entry == null) {
+            return Existence.UNKNOWN;
+        }
+
+        return entry.isPresent() ? Existence.EXISTS : Existence.ABSENT;
+    }
+
+    /**
+     * Get the version of a document last written to the DDS.
+     *
+     * @param path The nsa/type/id path of the document.
+     * @return The version if the document is known to exist.
+     */
+    public synchronized Optional<String> getVersion(String path) {
+        Optional<Entry> entry = documents.get(path);
+        if (entry == null || !entry.isPresent()) {
+            return Optional.absent();
+        }
+
+        return Optional.fromNullable(entry.get().version);
+    }
+
+    /**
+     * Determine if the document last written to the DDS has the specified
+     * content digest and will not expire within the refresh window.
+     *
+     * @param path The nsa/type/id path of the document.
+     * @param digest The content digest of the new document.
+     * @param refreshWindow Time in seconds before expiry when the document must be rewritten.
+     * @return true if the document on the DDS is current.
+     */
+    public synchronized boolean isCurrent(String path, String digest, long refreshWindow) {
+        Optional<Entry> entry = documents.get(path);
+        if (entry == null || !entry.isPresent() || !entry.get().digest.isPresent()) {
+            return false;
+        }
+
+        return entry.get().digest.get().equals(digest) &&
+                System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(refreshWindow) < entry.get().expires;
+    }
+
+    /**
+     * Record that a document exists on the DDS with the specified version.
+     *
+     * @param path The nsa/type/id path of the document.
+     * @param version The version of the document.
+     * @param expires The time in milliseconds the document expires.
+     * @param digest The content digest of the document, or null if not known.
+     */
+    public synchronized void setExists(String path, String version, long expires, String digest) {
+        documents.put(path, Optional.of(new Entry(version, expires, Optional.fromNullable(digest))));
+        store();
+    }
+
+    /**
+     * Record that a document does not exist on the DDS.
+     *
+     * @param path The nsa/type/id path of the document.
+     */
+    public synchronized void setAbsent(String path) {
+        documents.put(path, Optional.<Entry>absent());
+        store();
+    }
+
+    /**
+     * Forget the state of a document so it is checked on the next write.
+     *
+     * @param path The nsa/type/id path of the document.
+     */
+    public synchronized void invalidate(String path) {
+        if (documents.remove(path) != null) {
+            store();
+        }
+    }
+
+    private static String encode(Optional<Entry> entry) {
+        if (!entry.isPresent()) {
+            return ABSENT;
+        }
+
+        return (entry.get().version == null ? NONE : entry.get().version) + " " +
+                entry.get().expires + " " + entry.get().digest.or(NONE);
+    }
+
+    private static Optional<Entry> decode(String value) throws IllegalArgumentException {
+        if (ABSENT.equals(value)) {
+            return Optional.absent();
+        }
+
+        String[] fields = value.split(" ");
+        if (fields.length != 3) {
+            throw new IllegalArgumentException("Invalid document state " + value);
+        }
+
+        return Optional.of(new Entry(NONE.equals(fields[0]) ? null : fields[0], Long.parseLong(fields[1]),
+                NONE.equals(fields[2]) ? Optional.<String>absent() : Optional.of(fields[2])));
+    }
+
+    /**
+     * Persist the state.  Failures are logged but otherwise ignored as the
+     * state will be rebuilt from the DDS.
+     */
+    private void store() {
+        if (!file.isPresent()) {
+            return;
+        }
+
+        java.util.Properties state = new java.util.Properties();
+        for (Map.Entry<String, Optional<Entry>> document : documents.entrySet()) {
+            state.setProperty(document.getKey(), encode(document.getValue()));
+        }
+
+        Path tmp = null;
+        try {
+            Files.createDirectories(file.get().getParent());
+            tmp = Files.createTempFile(file.get().getParent(), file.get().getFileName().toString(), ".tmp");
+            try (OutputStream os = Files.newOutputStream(tmp)) {
+                state.store(os, "DDS document state");
+            }
+            Files.move(tmp, file.get(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (IOException ex) {
+            log.error("Could not write DDS document state " + file.get(), ex);
+            try {
+                if (tmp != null) {
+                    Files.deleteIfExists(tmp);
+                }
+            }
+            catch (IOException ignore) {
+                // Nothing more we can do.
+            }
+        }
+    }
+}
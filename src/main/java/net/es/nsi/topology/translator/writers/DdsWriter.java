@@ -1,11 +1,11 @@
 package net.es.nsi.topology.translator.writers;
 
-import java.io.FileNotFoundException;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.security.InvalidAlgorithmParameterException;
-import java.security.KeyException;
 import java.security.KeyManagementException;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
@@ -13,6 +13,12 @@ import java.security.UnrecoverableEntryException;
 import java.security.UnrecoverableKeyException;
 import java.security.cert.CertificateException;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.core.GenericEntity;
@@ -22,19 +28,24 @@ import javax.xml.bind.JAXBException;
 import javax.xml.crypto.MarshalException;
 import javax.xml.crypto.dsig.XMLSignatureException;
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.TransformerException;
 import net.es.nsi.topology.translator.Configuration;
 import net.es.nsi.topology.translator.http.RestClient;
+import net.es.nsi.topology.translator.http.RestClientRegistry;
 import net.es.nsi.topology.translator.jaxb.NmlParser;
 import net.es.nsi.topology.translator.jaxb.NsaParser;
 import net.es.nsi.topology.translator.jaxb.configuration.SignatureType;
+import net.es.nsi.topology.translator.jaxb.configuration.VerifyPolicyType;
 import net.es.nsi.topology.translator.jaxb.dds.DocumentType;
 import net.es.nsi.topology.translator.jaxb.nml.NmlTopologyType;
 import net.es.nsi.topology.translator.jaxb.nsa.NsaType;
+import net.es.nsi.topology.translator.jfr.PublishEvent;
+import net.es.nsi.topology.translator.metrics.Counter;
+import net.es.nsi.topology.translator.metrics.Metrics;
+import net.es.nsi.topology.translator.metrics.Stage;
 import net.es.nsi.topology.translator.model.NsiConstants;
-import net.es.nsi.topology.translator.signing.KeyStoreHandler;
-import net.es.nsi.topology.translator.signing.SignatureFactory;
+import net.es.nsi.topology.translator.signing.SigningService;
 import net.es.nsi.topology.translator.utilities.DocumentBuilder;
+import net.es.nsi.topology.translator.utilities.DocumentDigest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.Document;
@@ -42,6 +53,12 @@ import org.w3c.dom.Document;
 /**
  * Write documents to Document Distribution Service.
  *
+ * Documents may be written synchronously or asynchronously.  Asynchronous
+ * writes run on a shared pool of daemon threads and the number of writes in
+ * flight to a single DDS through each shared REST client is capped at the
+ * per-route connection limit of its HTTP transport, so concurrent writes
+ * queue here rather than waiting on the connection pool.
+ *
  * @author hacksaw
  */
 public class DdsWriter {
@@ -50,8 +67,42 @@ public class DdsWriter {
     private final net.es.nsi.topology.translator.jaxb.nsa.ObjectFactory nsaFactory = new net.es.nsi.topology.translator.jaxb.nsa.ObjectFactory();
     private final net.es.nsi.topology.translator.jaxb.nml.ObjectFactory nmlFactory = new net.es.nsi.topology.translator.jaxb.nml.ObjectFactory();
     private final WebTarget dds;
-    private Optional<String> alias = Optional.empty();
-    private Optional<KeyStoreHandler> keyStoreHandler = Optional.empty();
+    private final Semaphore permits;
+    private final DdsDocumentState documents;
+    private final boolean skipIdentical;
+    private final long refreshWindow;
+    private final Metrics metrics = Metrics.getInstance();
+
+    // Content digests excluding the version and lifetime stamped on each run.
+    private static final DocumentDigest NSA_DIGEST = new DocumentDigest(
+            ImmutableSet.of("version", "expires"), ImmutableSet.of("startTime"));
+    private static final DocumentDigest NML_DIGEST = new DocumentDigest(
+            ImmutableSet.of("version"), ImmutableSet.of("Lifetime"));
+
+    // Shared pool running asynchronous writes for all DDS.
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(
+            new ThreadFactoryBuilder().setNameFormat("dds-writer-%d").setDaemon(true).build());
+
+    // Encoded size of the contents last published for each document, used
+    // to size the encoding buffer the next time the document is published.
+    private static final ConcurrentMap<String, Integer> ENCODED_SIZE = new ConcurrentHashMap<>();
+
+    // Caps the writes in flight to each DDS indexed by URL and the HTTPS
+    // profile of the shared client, whose connection pool is being capped.
+    private static final ConcurrentMap<String, Semaphore> IN_FLIGHT = new ConcurrentHashMap<>();
+
+    /**
+     * A DDS write operation run asynchronously.
+     */
+    @FunctionalInterface
+    private interface WriteTask {
+        void run() throws Exception;
+    }
+
+    // Signs documents if configured to do so.
+    private Optional<SigningService> signer = Optional.empty();
+    private VerifyPolicyType verify = VerifyPolicyType.ALWAYS;
+    private int verifySample = 1;
 
     /**
      * Creates a DdsWriter for DDS at the specified URL using the provided
@@ -68,17 +119,89 @@ public class DdsWriter {
      * @throws UnrecoverableKeyException
      */
     public DdsWriter(String url, Configuration config) throws KeyStoreException, IOException, NoSuchAlgorithmException, CertificateException, KeyManagementException, UnrecoverableKeyException {
-        // Get our REST client and set root URL for documents.
-        RestClient restClient = new RestClient(config.getHttpsConfig());
+        // Get our shared REST client and set root URL for documents.
+        RestClient restClient = RestClientRegistry.getInstance().get(config.getHttpsConfig());
         dds = restClient.get().target(url).path("documents");
+        permits = IN_FLIGHT.computeIfAbsent(url + '\0' + config.getHttpsConfig().getProfile(),
+                k -> new Semaphore(Math.max(config.getHttpsConfig().getTransport().getMaxPerRoute(), 1)));
+        documents = DdsDocumentState.getInstance(config.getCacheDirectory(), url);
+        skipIdentical = config.isSkipIdentical();
+        refreshWindow = config.getDdsRefreshWindow();
 
         SignatureType signature = config.getSignature();
         if (signature.isSign()) {
-            alias = Optional.of(signature.getAlias());
-            keyStoreHandler = Optional.of(new KeyStoreHandler(signature.getKeyStore().getFile(), signature.getKeyStore().getPassword(), signature.getKeyStore().getType()));
+            verify = signature.getVerify();
+            verifySample = signature.getVerifySample();
+            try {
+                signer = Optional.of(SigningService.getInstance(signature));
+            } catch (UnrecoverableKeyException ex) {
+                log.error("DdsWriter: could not recover signing key", ex);
+                throw ex;
+            } catch (ReflectiveOperationException | UnrecoverableEntryException ex) {
+                log.error("DdsWriter: could not create signing service", ex);
+                throw new IllegalArgumentException(ex);
+            }
         }
     }
 
+    /**
+     * Asynchronously write the provided NSA Description document to the DDS.
+     *
+     * @param nsa NSA Description document to add to the DDS.
+     * @return A future completed when the document has been written, or
+     * completed exceptionally with the cause of the failure.
+     */
+    public CompletableFuture<Void> writeNsaAsync(NsaType nsa) {
+        return submit(() -> writeNsa(nsa));
+    }
+
+    /**
+     * Asynchronously write the provided NML topology document to the DDS.
+     * The document must not be modified until the returned future completes.
+     *
+     * @param nsaId The NSA identifier associated with the NML document.
+     * @param nml The NML topology document to add to the DDS.
+     * @return A future completed when the document has been written, or
+     * completed exceptionally with the cause of the failure.
+     */
+    public CompletableFuture<Void> writeTopologyAsync(String nsaId, NmlTopologyType nml) {
+        return submit(() -> writeTopology(nsaId, nml));
+    }
+
+    /**
+     * Run a write operation on the shared pool once a permit for this DDS
+     * is available.
+     *
+     * @param task The write operation.
+     * @return A future completed with the result of the operation.
+     */
+    private CompletableFuture<Void> submit(WriteTask task) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        EXECUTOR.execute(() -> {
+            try {
+                permits.acquire();
+            }
+            catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                future.completeExceptionally(ex);
+                return;
+            }
+
+            try {
+                task.run();
+                future.complete(null);
+            }
+            catch (Exception ex) {
+                future.completeExceptionally(ex);
+            }
+            finally {
+                permits.release();
+            }
+        });
+
+        return future;
+    }
+
     /**
      * Write the provided NSA Description document to the DDS.
      *
@@ -89,8 +212,9 @@ public class DdsWriter {
      */
     public void writeNsa(NsaType nsa) throws IllegalArgumentException, IOException {
         // Convert the JAXB NSA description document to DOM format.
+        String domain = Metrics.getDomain(nsa.getId());
         Optional<Document> doc;
-        try {
+        try (Metrics.Sample sample = metrics.start(Stage.JAXB2DOM, domain)) {
             // Convert JAXB representation to DOM for signing and encoding.
             doc = Optional.of(NsaParser.getInstance().jaxb2Dom(nsaFactory.createNsa(nsa)));
         } catch (NullPointerException | JAXBException | ParserConfigurationException ex) {
@@ -98,15 +222,20 @@ public class DdsWriter {
             throw new IllegalArgumentException(ex);
         }
 
+        // Skip the write if the DDS already holds identical content.
+        String key = getKey(nsa.getId(), NsiConstants.NSI_DOC_TYPE_NSA_V1, nsa.getId());
+        Optional<String> digest = getDigest(NSA_DIGEST, doc.get());
+        if (isCurrent(key, digest)) {
+            return;
+        }
+
         // Sign the document if configured to do so.
         // Generate an external signature on the document.
         Optional<Document> signature = Optional.empty();
-        if (keyStoreHandler.isPresent()) {
-            try {
-                SignatureFactory signatureFactory;
-                signatureFactory = new SignatureFactory();
-                signature = Optional.of(signatureFactory.generateExternalSignature(doc.get(), alias.get()));
-            } catch (ClassNotFoundException | InstantiationException | IllegalAccessException | NoSuchAlgorithmException | InvalidAlgorithmParameterException | KeyException | MarshalException | XMLSignatureException | TransformerException | ParserConfigurationException | KeyStoreException | FileNotFoundException | CertificateException | UnrecoverableEntryException ex) {
+        if (signer.isPresent()) {
+            try (Metrics.Sample sample = metrics.start(Stage.SIGN, domain)) {
+                signature = Optional.of(signer.get().generateExternalSignature(doc.get()));
+            } catch (NoSuchAlgorithmException | InvalidAlgorithmParameterException | MarshalException | XMLSignatureException | ParserConfigurationException ex) {
                 log.error("build: invalid signature document", ex);
                 throw new IllegalArgumentException(ex);
             }
@@ -123,14 +252,14 @@ public class DdsWriter {
 
         // Add signature if required.
         if (signature.isPresent()) {
-            db.withSignature(signature.get());
+            db.withSignature(signature.get()).withVerify(verify, verifySample);
         }
 
-        DocumentType document = db.build();
+        DocumentType document = build(db, key);
 
         // Write the document to the DDS.
         try {
-            writeDocument(document);
+            writeDocument(document, digest);
         } catch (IOException ex) {
             log.error("writeNsa: could not write NSA document to DDS server", ex);
             throw ex;
@@ -149,23 +278,29 @@ public class DdsWriter {
      */
     public void writeTopology(String nsaId, NmlTopologyType nml) throws UnsupportedEncodingException, IOException, JAXBException {
         // Convert the JAXB NML Topology document to DOM format.
+        String domain = Metrics.getDomain(nsaId);
         Optional<Document> doc;
-        try {
+        try (Metrics.Sample sample = metrics.start(Stage.JAXB2DOM, domain)) {
             doc = Optional.of(NmlParser.getInstance().jaxb2Dom(nmlFactory.createTopology(nml)));
         } catch (NullPointerException | JAXBException | ParserConfigurationException ex) {
             log.error("writeTopology: invalid NML topology document", ex);
             throw new IllegalArgumentException(ex);
         }
 
+        // Skip the write if the DDS already holds identical content.
+        String key = getKey(nsaId, NsiConstants.NSI_DOC_TYPE_TOPOLOGY_V2, nml.getId());
+        Optional<String> digest = getDigest(NML_DIGEST, doc.get());
+        if (isCurrent(key, digest)) {
+            return;
+        }
+
         // Sign the document if configured to do so.
         // Generate an external signature on the document.
         Optional<Document> signature = Optional.empty();
-        if (keyStoreHandler.isPresent()) {
-            try {
-                SignatureFactory signatureFactory;
-                signatureFactory = new SignatureFactory();
-                signature = Optional.of(signatureFactory.generateExternalSignature(doc.get(), alias.get()));
-            } catch (ClassNotFoundException | InstantiationException | IllegalAccessException | NoSuchAlgorithmException | InvalidAlgorithmParameterException | KeyException | MarshalException | XMLSignatureException | TransformerException | ParserConfigurationException | KeyStoreException | FileNotFoundException | CertificateException | UnrecoverableEntryException ex) {
+        if (signer.isPresent()) {
+            try (Metrics.Sample sample = metrics.start(Stage.SIGN, domain)) {
+                signature = Optional.of(signer.get().generateExternalSignature(doc.get()));
+            } catch (NoSuchAlgorithmException | InvalidAlgorithmParameterException | MarshalException | XMLSignatureException | ParserConfigurationException ex) {
                 log.error("build: invalid signature document", ex);
                 throw new IllegalArgumentException(ex);
             }
@@ -182,14 +317,14 @@ public class DdsWriter {
 
         // Add signature if required.
         if (signature.isPresent()) {
-            db.withSignature(signature.get());
+            db.withSignature(signature.get()).withVerify(verify, verifySample);
         }
 
-        DocumentType document = db.build();
+        DocumentType document = build(db, key);
 
         // Write the document to the DDS.
         try {
-            writeDocument(document);
+            writeDocument(document, digest);
         } catch (IOException ex) {
             log.error("writeNsa: could not write NSA document to DDS server", ex);
             throw ex;
@@ -200,10 +335,37 @@ public class DdsWriter {
      * Write the specified document to the DDS using RESTful API.
      *
      * @param document The DDS meta-data wrapped document to write to DDS.
+     * @param digest The content digest of the document if computed.
+     * @throws UnsupportedEncodingException If the name of the document (nsaId, type, documentId) cannot be URL encoded.
+     * @throws IOException If the document cannot be written to the DDS.
+     */
+    private void writeDocument(DocumentType document, Optional<String> digest) throws UnsupportedEncodingException, IOException {
+        PublishEvent event = new PublishEvent();
+        event.begin();
+        event.domain = Metrics.getDomain(document.getNsa());
+        try {
+            writeDocument(document, digest, event);
+        }
+        finally {
+            if (event.shouldCommit()) {
+                event.type = document.getType();
+                event.document = document.getId();
+                event.bytes = getSize(document);
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Write the specified document to the DDS recording the requests made.
+     *
+     * @param document The DDS meta-data wrapped document to write to DDS.
+     * @param digest The content digest of the document if computed.
+     * @param event The flight recorder event describing the write.
      * @throws UnsupportedEncodingException If the name of the document (nsaId, type, documentId) cannot be URL encoded.
      * @throws IOException If the document cannot be written to the DDS.
      */
-    private void writeDocument(DocumentType document) throws UnsupportedEncodingException, IOException {
+    private void writeDocument(DocumentType document, Optional<String> digest, PublishEvent event) throws UnsupportedEncodingException, IOException {
         // Wrap the provided DDS document in a JAXB element for sending.
         JAXBElement<DocumentType> request = ddsFactory.createDocument(document);
 
@@ -218,37 +380,209 @@ public class DdsWriter {
             throw ex;
         }
 
-        // Determine of the NSA document already exists.
-        Response response = path.request(NsiConstants.NSI_DDS_V1_XML).get();
-        int status = response.getStatus();
-        response.close();
+        // Use the known state of the document to select the operation
+        // likely to succeed, asking the DDS with a HEAD request only if the
+        // state is unknown.
+        String key = getKey(document);
+        DdsDocumentState.Existence existence = documents.getExistence(key);
+        if (existence == DdsDocumentState.Existence.UNKNOWN) {
+            int status;
+            event.operation = "HEAD";
+            event.status = 0;
+            event.requests++;
+            try (Metrics.Sample sample = metrics.start(Stage.DDS_HEAD, event.domain)) {
+                Response response = path.request(NsiConstants.NSI_DDS_V1_XML).head();
+                status = response.getStatus();
+                response.close();
+            }
+            event.status = status;
+
+            if (Response.Status.OK.getStatusCode() == status) {
+                existence = DdsDocumentState.Existence.EXISTS;
+            }
+            else if (Response.Status.NOT_FOUND.getStatusCode() == status) {
+                existence = DdsDocumentState.Existence.ABSENT;
+            }
+            else {
+                throw new IOException(error("HEAD", status, path.getUri().toASCIIString()));
+            }
+        }
+
+        // If the document exists we modify it through PUT, otherwise we use
+        // POST, falling back to the other operation if the DDS disagrees.
+        try {
+            if (existence == DdsDocumentState.Existence.EXISTS) {
+                int status = put(path, request, event);
+                if (Response.Status.NOT_FOUND.getStatusCode() == status) {
+                    log.debug("Document no longer exists, adding " + path.getUri().toASCIIString());
+                    documents.setAbsent(key);
+                    status = post(request, event);
+                    if (Response.Status.CREATED.getStatusCode() != status) {
+                        throw new IOException(error("POST", status, path.getUri().toASCIIString()));
+                    }
+                }
+                else if (Response.Status.OK.getStatusCode() != status) {
+                    throw new IOException(error("PUT", status, path.getUri().toASCIIString()));
+                }
+            }
+            else {
+                int status = post(request, event);
+                if (Response.Status.CONFLICT.getStatusCode() == status) {
+                    log.debug("Document already exists, updating " + path.getUri().toASCIIString());
+                    status = put(path, request, event);
+                    if (Response.Status.OK.getStatusCode() != status) {
+                        throw new IOException(error("PUT", status, path.getUri().toASCIIString()));
+                    }
+                }
+                else if (Response.Status.CREATED.getStatusCode() != status) {
+                    throw new IOException(error("POST", status, path.getUri().toASCIIString()));
+                }
+            }
+        }
+        catch (IOException | RuntimeException ex) {
+            // We no longer know the state of the document on the DDS.
+            documents.invalidate(key);
+            throw ex;
+        }
+
+        documents.setExists(key,
+                document.getVersion() == null ? null : document.getVersion().toXMLFormat(),
+                document.getExpires() == null ? 0 : document.getExpires().toGregorianCalendar().getTimeInMillis(),
+                digest.orElse(null));
+
+        metrics.add(Counter.BYTES_PUBLISHED, event.domain, getSize(document));
+    }
+
+    /**
+     * Build the DDS document, sizing the encoding buffer from the previous
+     * publication of the document so a large document is encoded without
+     * growing the buffer.
+     *
+     * @param db The builder holding the document.
+     * @param key The DDS path of the document.
+     * @return The DDS document.
+     * @throws IOException If the document could not be encoded.
+     */
+    private static DocumentType build(DocumentBuilder db, String key) throws IOException {
+        Integer size = ENCODED_SIZE.get(key);
+        if (size != null) {
+            // Allow for some growth since the last publication.
+            db.withSizeHint(size + size / 16);
+        }
+
+        DocumentType document = db.build();
+        ENCODED_SIZE.put(key, document.getContent().getValue().length());
+        return document;
+    }
+
+    /**
+     * Get the size of the encoded document and signature being published.
+     *
+     * @param document The DDS document.
+     * @return The size in bytes.
+     */
+    private static long getSize(DocumentType document) {
+        long bytes = document.getContent() == null ? 0 : document.getContent().getValue().length();
+        if (document.getSignature() != null) {
+            bytes += document.getSignature().getValue().length();
+        }
+
+        return bytes;
+    }
+
+    /**
+     * Compute the content digest of a document if identical documents are
+     * not to be published.
+     *
+     * @param digester The digest excluding the per-run version and lifetime.
+     * @param doc The document content.
+     * @return The content digest if identical documents are skipped.
+     */
+    private Optional<String> getDigest(DocumentDigest digester, Document doc) {
+        if (!skipIdentical) {
+            return Optional.empty();
+        }
+
+        try {
+            return Optional.of(digester.digest(doc));
+        }
+        catch (NoSuchAlgorithmException ex) {
+            log.error("getDigest: could not compute document digest", ex);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Determine if the last copy of a document published to the DDS has
+     * identical content and is not close to expiry.
+     *
+     * @param key The nsa/type/id key of the document.
+     * @param digest The content digest of the new document.
+     * @return true if the document does not need to be published.
+     */
+    private boolean isCurrent(String key, Optional<String> digest) {
+        if (digest.isPresent() && documents.isCurrent(key, digest.get(), refreshWindow)) {
+            log.info("Document unchanged on DDS, skipping publication of " + key);
+            return true;
+        }
+
+        return false;
+    }
 
-        // If the document exists we modify it through PUT, otherwise we use POST.
-        if (Response.Status.OK.getStatusCode() == status) {
-            // Document already exists so we will need to modify it.
+    /**
+     * Modify an existing document on the DDS.
+     *
+     * @param path The full path of the document.
+     * @param request The document to write.
+     * @param event The flight recorder event describing the write.
+     * @return The HTTP status of the operation.
+     */
+    private int put(WebTarget path, JAXBElement<DocumentType> request, PublishEvent event) {
+        event.operation = "PUT";
+        event.status = 0;
+        event.requests++;
+        try (Metrics.Sample sample = metrics.start(Stage.DDS_PUT, event.domain)) {
             Response result = path.request(NsiConstants.NSI_DDS_V1_XML).put(Entity.entity(new GenericEntity<JAXBElement<DocumentType>>(request) {}, NsiConstants.NSI_DDS_V1_XML));
-            status = result.getStatus();
+            event.status = result.getStatus();
             result.close();
-            if (Response.Status.OK.getStatusCode() != status) {
-                throw new IOException(error("PUT", status, path.getUri().toASCIIString()));
-            }
+            return event.status;
         }
-        else if (Response.Status.NOT_FOUND.getStatusCode() == response.getStatus()) {
-            // Document does not exist so we will need to add it.  We POST the
-            // new document under "/documents" and not the full path of the
-            // document.
+    }
+
+    /**
+     * Add a new document to the DDS.  We POST the new document under
+     * "/documents" and not the full path of the document.
+     *
+     * @param request The document to write.
+     * @param event The flight recorder event describing the write.
+     * @return The HTTP status of the operation.
+     */
+    private int post(JAXBElement<DocumentType> request, PublishEvent event) {
+        event.operation = "POST";
+        event.status = 0;
+        event.requests++;
+        try (Metrics.Sample sample = metrics.start(Stage.DDS_POST, event.domain)) {
             Response result = dds.request(NsiConstants.NSI_DDS_V1_XML).post(Entity.entity(new GenericEntity<JAXBElement<DocumentType>>(request) {}, NsiConstants.NSI_DDS_V1_XML));
-            status = result.getStatus();
+            event.status = result.getStatus();
             result.close();
-            if (Response.Status.CREATED.getStatusCode() != status) {
-                throw new IOException(error("POST", status, path.getUri().toASCIIString()));
-            }
-        }
-        else {
-            throw new IOException(error("GET", status, path.getUri().toASCIIString()));
+            return event.status;
         }
     }
 
+    /**
+     * Get the key identifying a document in the DDS document state.
+     *
+     * @param document The DDS document.
+     * @return The nsa/type/id key of the document.
+     */
+    private String getKey(DocumentType document) {
+        return getKey(document.getNsa(), document.getType(), document.getId());
+    }
+
+    private String getKey(String nsa, String type, String id) {
+        return nsa.trim() + "/" + type.trim() + "/" + id.trim();
+    }
+
     /**
      * Format error string for exceptions and log.
      *
@@ -0,0 +1,156 @@
+package net.es.nsi.topology.translator.model;
+
+import com.google.common.base.Optional;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import net.es.nsi.topology.translator.generator.NmwgGenerator;
+import net.es.nsi.topology.translator.jaxb.NmlParser;
+import net.es.nsi.topology.translator.jaxb.configuration.NmwgParserType;
+import net.es.nsi.topology.translator.jaxb.configuration.PeeringType;
+import net.es.nsi.topology.translator.jaxb.configuration.ServiceDefinitionType;
+import net.es.nsi.topology.translator.jaxb.nml.NmlTopologyType;
+import net.es.nsi.topology.translator.jaxb.nml.ObjectFactory;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that incremental and parallel translation produce the same document
+ * as a serial full translation of the same links.
+ *
+ * @author hacksaw
+ */
+public class NmlTranslatorTest {
+    private static final long LIFETIME = 3600;
+
+    private final ObjectFactory factory = new ObjectFactory();
+
+    private byte[] nmwg;
+    private List<ServiceDefinitionType> serviceDefinitions;
+    private Map<String, PeeringType> peerings;
+
+    @Before
+    public void setup() throws Exception {
+        NmwgGenerator generator = new NmwgGenerator().withDomains(2).withLinks(1000);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        generator.writeTopology(0, out);
+        nmwg = out.toByteArray();
+
+        serviceDefinitions = generator.getServiceDefinitions();
+        peerings = new HashMap<>();
+        for (PeeringType peering : generator.getPeerings(0)) {
+            peerings.put(peering.getId(), peering);
+        }
+    }
+
+    private CtrlDomain parse() throws Exception {
+        return new NmwgTopology(NmwgParserType.STAX).parse(new ByteArrayInputStream(nmwg));
+    }
+
+    /**
+     * Marshal the topology without the version and lifetime, which are set
+     * from the time of each translation.
+     */
+    private String toXml(NmlTopologyType nml) throws Exception {
+        nml.setVersion(null);
+        nml.setLifetime(null);
+        return NmlParser.getInstance().jaxb2Xml(factory.createTopology(nml));
+    }
+
+    private static CtrlLink copy(CtrlLink link, String id) {
+        CtrlLink copy = new CtrlLink(link.getOriginalId(), id, link.getRemoteLinkId(),
+                link.getEncodingType(), link.getVlanRangeAvailability(), link.isVlanTranslation(),
+                link.getCapacity(), link.getMaximumReservableCapacity(),
+                link.getMinimumReservableCapacity(), link.getGranularity());
+        copy.setLinkType(link.getLinkType());
+        return copy;
+    }
+
+    /**
+     * Remove, change and add links spread throughout the identifier order.
+     */
+    private CtrlDomain modify(CtrlDomain domain) {
+        List<CtrlLink> links = new ArrayList<>(domain.getLinks());
+        links.sort((a, b) -> a.getId().compareTo(b.getId()));
+        for (int i = 0; i < links.size(); i++) {
+            CtrlLink link = links.get(i);
+            if (link.getLinkType() != CtrlLinkType.UNI && link.getLinkType() != CtrlLinkType.ENNI) {
+                continue;
+            }
+
+            if (i % 23 == 0) {
+                domain.removeLink(link.getId());
+            }
+            else if (i % 17 == 0) {
+                link.setVlanRangeAvailability(Optional.of("3900-3999"));
+            }
+            else if (i % 11 == 0) {
+                domain.addLink(copy(link, link.getId() + "0"));
+            }
+        }
+        return domain;
+    }
+
+    @Test
+    public void incrementalMatchesFull() throws Exception {
+        NmlTranslator translator = new NmlTranslator();
+        String first = toXml(translator.translate(parse(), LIFETIME, serviceDefinitions, peerings));
+        assertEquals(first, toXml(new NmlTranslator().translate(parse(), LIFETIME, serviceDefinitions, peerings)));
+
+        // Patch the previous topology with the changes.
+        String full = toXml(new NmlTranslator().translate(modify(parse()), LIFETIME, serviceDefinitions, peerings));
+        String incremental = toXml(translator.translate(modify(parse()), LIFETIME, serviceDefinitions, peerings));
+        assertNotEquals(first, full);
+        assertEquals(full, incremental);
+
+        // Then revert them.
+        assertEquals(first, toXml(translator.translate(parse(), LIFETIME, serviceDefinitions, peerings)));
+    }
+
+    @Test
+    public void incrementalAddOnly() throws Exception {
+        NmlTranslator translator = new NmlTranslator();
+        CtrlDomain domain = parse();
+        translator.translate(domain, LIFETIME, serviceDefinitions, peerings);
+
+        CtrlDomain added = parse();
+        for (CtrlLink link : domain.getLinks()) {
+            if (link.getLinkType() == CtrlLinkType.UNI) {
+                added.addLink(copy(link, link.getId() + "0"));
+            }
+        }
+
+        String full = toXml(new NmlTranslator().translate(added, LIFETIME, serviceDefinitions, peerings));
+        assertEquals(full, toXml(translator.translate(added, LIFETIME, serviceDefinitions, peerings)));
+    }
+
+    @Test
+    public void parallelMatchesSerial() throws Exception {
+        String serial = toXml(new NmlTranslator(false).translate(parse(), LIFETIME, serviceDefinitions, peerings));
+        for (int i = 0; i < 3; i++) {
+            assertEquals(serial, toXml(new NmlTranslator(true).translate(parse(), LIFETIME, serviceDefinitions, peerings)));
+        }
+    }
+
+    @Test
+    public void parallelIncrementalMatchesSerial() throws Exception {
+        NmlTranslator translator = new NmlTranslator(true);
+        translator.translate(parse(), LIFETIME, serviceDefinitions, peerings);
+
+        // Add enough links for the update itself to be converted in parallel.
+        CtrlDomain domain = parse();
+        for (CtrlLink link : new ArrayList<>(domain.getLinks())) {
+            if (link.getLinkType() != CtrlLinkType.INNI) {
+                domain.addLink(copy(link, link.getId() + "0"));
+            }
+        }
+
+        String serial = toXml(new NmlTranslator(false).translate(domain, LIFETIME, serviceDefinitions, peerings));
+        assertEquals(serial, toXml(translator.translate(domain, LIFETIME, serviceDefinitions, peerings)));
+    }
+}
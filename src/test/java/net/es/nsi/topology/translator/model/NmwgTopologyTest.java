@@ -0,0 +1,73 @@
+package net.es.nsi.topology.translator.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import net.es.nsi.topology.translator.generator.NmwgGenerator;
+import net.es.nsi.topology.translator.jaxb.configuration.NmwgParserType;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Tests the StAX NMWG reader builds the same domain as the JAXB parser.
+ *
+ * @author hacksaw
+ */
+public class NmwgTopologyTest {
+
+    private static byte[] generate(NmwgGenerator generator, int domain) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        generator.writeTopology(domain, out);
+        return out.toByteArray();
+    }
+
+    private static CtrlDomain parse(NmwgParserType parser, byte[] nmwg) throws Exception {
+        return new NmwgTopology(parser).parse(new ByteArrayInputStream(nmwg));
+    }
+
+    private static void assertEquivalent(CtrlDomain expected, CtrlDomain actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getOrignalId(), actual.getOrignalId());
+        assertEquals(expected.getLinkIds(), actual.getLinkIds());
+        for (CtrlLink link : expected.getLinks()) {
+            assertTrue(link.getId(), link.isEquivalent(actual.getLink(link.getId())));
+        }
+    }
+
+    @Test
+    public void staxMatchesJaxb() throws Exception {
+        NmwgGenerator generator = new NmwgGenerator().withDomains(2).withLinks(1000);
+        for (int domain = 0; domain < generator.getDomains(); domain++) {
+            byte[] nmwg = generate(generator, domain);
+            CtrlDomain jaxb = parse(NmwgParserType.JAXB, nmwg);
+            CtrlDomain stax = parse(NmwgParserType.STAX, nmwg);
+
+            assertNotNull(jaxb.getId());
+            assertEquals(generator.getLinks(), jaxb.getLinkMap().size());
+            assertEquivalent(jaxb, stax);
+
+            for (CtrlLinkType type : CtrlLinkType.values()) {
+                int expected = generator.getLinkCount(domain, type);
+                assertEquals(type.name(), expected, count(stax, type));
+            }
+        }
+    }
+
+    @Test
+    public void staxMatchesJaxbAllUni() throws Exception {
+        NmwgGenerator generator = new NmwgGenerator().withLinks(200).withMix(0, 0).withSeed(7);
+        byte[] nmwg = generate(generator, 0);
+        assertEquivalent(parse(NmwgParserType.JAXB, nmwg), parse(NmwgParserType.STAX, nmwg));
+    }
+
+    private static int count(CtrlDomain domain, CtrlLinkType type) {
+        int count = 0;
+        for (CtrlLink link : domain.getLinks()) {
+            if (link.getLinkType() == type) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,133 @@
+package net.es.nsi.topology.translator.model;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import net.es.nsi.topology.translator.generator.NmwgGenerator;
+import net.es.nsi.topology.translator.jaxb.configuration.PatternMatchType;
+import net.es.nsi.topology.translator.jaxb.configuration.PatternType;
+import net.es.nsi.topology.translator.jaxb.configuration.ServiceDefinitionType;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Tests the compiled matcher against the substring matching previously done
+ * by NmlTranslator, and the regex and glob rule types.
+ *
+ * @author hacksaw
+ */
+public class ServiceDefinitionMatcherTest {
+    private static final String ALPHABET = "ab:-c";
+
+    private static PatternType pattern(String value, PatternMatchType type) {
+        PatternType pattern = new PatternType();
+        pattern.setValue(value);
+        pattern.setType(type);
+        return pattern;
+    }
+
+    private static String random(Random random, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * The original matching of a link against the substring include and
+     * exclude rules of each service definition.
+     */
+    private static BitSet contains(String id, List<ServiceDefinitionType> serviceDefinitions) {
+        BitSet result = new BitSet();
+        for (int index = 0; index < serviceDefinitions.size(); index++) {
+            ServiceDefinitionType sd = serviceDefinitions.get(index);
+            boolean match = sd.getInclude().isEmpty();
+            for (PatternType include : sd.getInclude()) {
+                if (id.contains(include.getValue())) {
+                    match = true;
+                    break;
+                }
+            }
+
+            for (PatternType exclude : sd.getExclude()) {
+                if (id.contains(exclude.getValue())) {
+                    match = false;
+                    break;
+                }
+            }
+
+            if (match) {
+                result.set(index);
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void substringMatchesContains() {
+        Random random = new Random(42);
+        for (int iteration = 0; iteration < 300; iteration++) {
+            List<ServiceDefinitionType> serviceDefinitions = new ArrayList<>();
+            int count = 1 + random.nextInt(4);
+            for (int i = 0; i < count; i++) {
+                ServiceDefinitionType sd = new ServiceDefinitionType();
+                int includes = random.nextInt(4);
+                for (int k = 0; k < includes; k++) {
+                    sd.getInclude().add(pattern(random(random, random.nextInt(4)), PatternMatchType.SUBSTRING));
+                }
+
+                int excludes = random.nextInt(3);
+                for (int k = 0; k < excludes; k++) {
+                    sd.getExclude().add(pattern(random(random, 1 + random.nextInt(3)), PatternMatchType.SUBSTRING));
+                }
+                serviceDefinitions.add(sd);
+            }
+
+            ServiceDefinitionMatcher matcher = new ServiceDefinitionMatcher(serviceDefinitions);
+            for (int test = 0; test < 50; test++) {
+                String id = random(random, random.nextInt(12));
+                assertEquals(id, contains(id, serviceDefinitions), matcher.match(id));
+            }
+        }
+    }
+
+    @Test
+    public void generatedServiceDefinitions() {
+        NmwgGenerator generator = new NmwgGenerator().withLinks(500);
+        List<ServiceDefinitionType> serviceDefinitions = generator.getServiceDefinitions();
+        ServiceDefinitionMatcher matcher = new ServiceDefinitionMatcher(serviceDefinitions);
+        for (String id : generator.getLinkIds(0)) {
+            assertEquals(id, contains(id, serviceDefinitions), matcher.match(id));
+        }
+    }
+
+    @Test
+    public void regexAndGlob() {
+        ServiceDefinitionType sd = new ServiceDefinitionType();
+        sd.getInclude().add(pattern("urn:*:star-cr5:*", PatternMatchType.GLOB));
+        sd.getInclude().add(pattern("bnl-\\d+", PatternMatchType.REGEX));
+        sd.getExclude().add(pattern("*:+", PatternMatchType.GLOB));
+        ServiceDefinitionMatcher matcher = new ServiceDefinitionMatcher(Collections.singletonList(sd));
+
+        // Globs match the whole identifier.
+        assertTrue(matcher.match("urn:x:star-cr5:10_1_8").get(0));
+        assertFalse(matcher.match("xurn:x:star-cr5").get(0));
+        assertFalse(matcher.match("urn:x:star-cr5:10_1_8:+").get(0));
+
+        // Regular expressions match anywhere in the identifier.
+        assertTrue(matcher.match("foo bnl-12 bar").get(0));
+        assertFalse(matcher.match("foo bnl-x").get(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidRegex() {
+        ServiceDefinitionType sd = new ServiceDefinitionType();
+        sd.getInclude().add(pattern("bnl-(", PatternMatchType.REGEX));
+        new ServiceDefinitionMatcher(Collections.singletonList(sd));
+    }
+}
@@ -0,0 +1,169 @@
+package net.es.nsi.topology.translator.server;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.PUT;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.GenericEntity;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriInfo;
+import javax.xml.bind.JAXBElement;
+import net.es.nsi.topology.translator.jaxb.dds.DocumentListType;
+import net.es.nsi.topology.translator.jaxb.dds.DocumentType;
+import net.es.nsi.topology.translator.jaxb.dds.ObjectFactory;
+import net.es.nsi.topology.translator.model.NsiConstants;
+import org.glassfish.jersey.server.ResourceConfig;
+
+/**
+ * An embedded stand-in for the DDS document interface used by DdsWriter.
+ * Documents are held in memory and follow the DDS contract:
+ *
+ *   GET  documents                   - list all documents.
+ *   GET  documents/{nsa}/{type}/{id} - get a document, 404 if absent.
+ *   HEAD documents/{nsa}/{type}/{id} - check a document exists.
+ *   PUT  documents/{nsa}/{type}/{id} - replace a document, 404 if absent.
+ *   POST documents                   - add a document, 409 if it exists.
+ *
+ * @author hacksaw
+ */
+public class DdsServer extends EmbeddedServer {
+    private final ObjectFactory factory = new ObjectFactory();
+    private final ConcurrentHashMap<String, DocumentType> documents = new ConcurrentHashMap<>();
+
+    /**
+     * Create a server on the specified base URI, for example
+     * "http://localhost:8401/dds/".
+     *
+     * @param baseUri The base URI of the server.
+     */
+    public DdsServer(URI baseUri) {
+        super(baseUri);
+    }
+
+    @Override
+    protected void configure(ResourceConfig config) {
+        config.register(new DocumentsResource(this));
+    }
+
+    /**
+     * Get a stored document.
+     *
+     * @param nsa The NSA identifier.
+     * @param type The document type.
+     * @param id The document identifier.
+     * @return The document if it exists.
+     */
+    public Optional<DocumentType> getDocument(String nsa, String type, String id) {
+        return Optional.ofNullable(documents.get(getKey(nsa, type, id)));
+    }
+
+    /**
+     * Get all stored documents.
+     *
+     * @return The list of documents.
+     */
+    public List<DocumentType> getDocuments() {
+        return new ArrayList<>(documents.values());
+    }
+
+    /**
+     * Remove all stored documents.
+     */
+    public void clear() {
+        documents.clear();
+    }
+
+    private static String getKey(String nsa, String type, String id) {
+        return nsa.trim() + "/" + type.trim() + "/" + id.trim();
+    }
+
+    /**
+     * Implements the DDS document operations.
+     */
+    @Path("documents")
+    public static class DocumentsResource {
+        private final DdsServer server;
+
+        DocumentsResource(DdsServer server) {
+            this.server = server;
+        }
+
+        @GET
+        @Produces(NsiConstants.NSI_DDS_V1_XML)
+        public Response getDocuments() {
+            DocumentListType list = server.factory.createDocumentListType();
+            list.getDocument().addAll(server.getDocuments());
+            return Response.ok(new GenericEntity<JAXBElement<DocumentListType>>(server.factory.createDocuments(list)) {}).build();
+        }
+
+        @GET
+        @Path("{nsa}/{type}/{id}")
+        @Produces(NsiConstants.NSI_DDS_V1_XML)
+        public Response getDocument(@PathParam("nsa") String nsa, @PathParam("type") String type, @PathParam("id") String id) {
+            DocumentType document = server.documents.get(getKey(nsa, type, id));
+            if (document == null) {
+                return Response.status(Response.Status.NOT_FOUND).build();
+            }
+
+            return Response.ok(entity(document)).build();
+        }
+
+        @PUT
+        @Path("{nsa}/{type}/{id}")
+        @Consumes(NsiConstants.NSI_DDS_V1_XML)
+        @Produces(NsiConstants.NSI_DDS_V1_XML)
+        public Response putDocument(@Context UriInfo uriInfo, @PathParam("nsa") String nsa, @PathParam("type") String type, @PathParam("id") String id, JAXBElement<DocumentType> request) {
+            DocumentType document = request.getValue();
+            String key = getKey(nsa, type, id);
+            if (document == null || !key.equals(getKey(document.getNsa(), document.getType(), document.getId()))) {
+                return Response.status(Response.Status.BAD_REQUEST).build();
+            }
+
+            document.setHref(uriInfo.getAbsolutePath().toASCIIString());
+            if (server.documents.replace(key, document) == null) {
+                return Response.status(Response.Status.NOT_FOUND).build();
+            }
+
+            return Response.ok(entity(document)).build();
+        }
+
+        @POST
+        @Consumes(NsiConstants.NSI_DDS_V1_XML)
+        @Produces(NsiConstants.NSI_DDS_V1_XML)
+        public Response addDocument(@Context UriInfo uriInfo, JAXBElement<DocumentType> request) throws UnsupportedEncodingException {
+            DocumentType document = request.getValue();
+            if (document == null || document.getNsa() == null || document.getType() == null || document.getId() == null) {
+                return Response.status(Response.Status.BAD_REQUEST).build();
+            }
+
+            URI location = uriInfo.getAbsolutePathBuilder()
+                    .path(URLEncoder.encode(document.getNsa().trim(), "UTF-8"))
+                    .path(URLEncoder.encode(document.getType().trim(), "UTF-8"))
+                    .path(URLEncoder.encode(document.getId().trim(), "UTF-8"))
+                    .build();
+            document.setHref(location.toASCIIString());
+
+            String key = getKey(document.getNsa(), document.getType(), document.getId());
+            if (server.documents.putIfAbsent(key, document) != null) {
+                return Response.status(Response.Status.CONFLICT).build();
+            }
+
+            return Response.created(location).entity(entity(document)).build();
+        }
+
+        private GenericEntity<JAXBElement<DocumentType>> entity(DocumentType document) {
+            return new GenericEntity<JAXBElement<DocumentType>>(server.factory.createDocument(document)) {};
+        }
+    }
+}
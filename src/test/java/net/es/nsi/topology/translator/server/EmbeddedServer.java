@@ -0,0 +1,110 @@
+package net.es.nsi.topology.translator.server;
+
+import java.io.IOException;
+import java.net.URI;
+import javax.ws.rs.core.UriBuilder;
+import net.es.nsi.topology.translator.jaxb.JaxbContextResolver;
+import org.glassfish.grizzly.http.server.HttpServer;
+import org.glassfish.grizzly.http.server.NetworkListener;
+import org.glassfish.jersey.grizzly2.httpserver.GrizzlyHttpServerFactory;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An in-process HTTP server standing in for a remote service so the
+ * translator can be tested end-to-end without network access.  Every
+ * request passes through the fault policy and is counted in the server
+ * statistics.
+ *
+ * A port of 0 in the base URI selects a free port when the server is
+ * started, and getURI() returns the actual address.
+ *
+ * @author hacksaw
+ */
+public abstract class EmbeddedServer implements AutoCloseable {
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final URI baseUri;
+    private final FaultPolicy policy = new FaultPolicy();
+    private final ServerStatistics statistics = new ServerStatistics();
+    private HttpServer server;
+
+    protected EmbeddedServer(URI baseUri) {
+        this.baseUri = baseUri;
+    }
+
+    /**
+     * Register the resources implementing the service.
+     *
+     * @param config The resource configuration of the server.
+     */
+    protected abstract void configure(ResourceConfig config);
+
+    /**
+     * Start the server.
+     *
+     * @throws IOException If the server could not listen on the base URI.
+     */
+    public synchronized void start() throws IOException {
+        if (server != null) {
+            return;
+        }
+
+        ResourceConfig config = new ResourceConfig();
+        config.register(new FaultFilter(policy, statistics));
+        config.register(JaxbContextResolver.class);
+        configure(config);
+
+        server = GrizzlyHttpServerFactory.createHttpServer(baseUri, config, false);
+        try {
+            server.start();
+        }
+        catch (IOException ex) {
+            log.error("Failed to start server on " + baseUri, ex);
+            server = null;
+            throw ex;
+        }
+
+        log.info("Started " + getClass().getSimpleName() + " on " + getURI());
+    }
+
+    /**
+     * Stop the server, failing any requests in progress.
+     */
+    public synchronized void stop() {
+        if (server != null) {
+            server.shutdownNow();
+            server = null;
+            log.info("Stopped " + getClass().getSimpleName() + ": " + statistics);
+        }
+    }
+
+    @Override
+    public void close() {
+        stop();
+    }
+
+    /**
+     * Get the base URI of the server, including the port selected when
+     * started.
+     *
+     * @return The base URI.
+     */
+    public synchronized URI getURI() {
+        if (server == null) {
+            return baseUri;
+        }
+
+        NetworkListener listener = server.getListeners().iterator().next();
+        return UriBuilder.fromUri(baseUri).port(listener.getPort()).build();
+    }
+
+    public FaultPolicy getPolicy() {
+        return policy;
+    }
+
+    public ServerStatistics getStatistics() {
+        return statistics;
+    }
+}
@@ -0,0 +1,114 @@
+package net.es.nsi.topology.translator.server;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.PreMatching;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.ReaderInterceptor;
+import javax.ws.rs.ext.ReaderInterceptorContext;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+/**
+ * Applies the fault policy to every request received by an embedded server
+ * and records the request in the server statistics.  Request and response
+ * entities are counted as they are streamed.
+ *
+ * @author hacksaw
+ */
+@PreMatching
+public class FaultFilter implements ContainerRequestFilter, ContainerResponseFilter, ReaderInterceptor, WriterInterceptor {
+    private final FaultPolicy policy;
+    private final ServerStatistics statistics;
+
+    public FaultFilter(FaultPolicy policy, ServerStatistics statistics) {
+        this.policy = policy;
+        this.statistics = statistics;
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request) throws IOException {
+        statistics.addRequest(request.getMethod());
+
+        long delay = policy.getDelay();
+        if (delay > 0) {
+            try {
+                Thread.sleep(delay);
+            }
+            catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted during injected latency", ex);
+            }
+        }
+
+        if (policy.isError()) {
+            statistics.addInjectedError();
+            request.abortWith(Response.status(policy.getErrorStatus()).build());
+        }
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request, ContainerResponseContext response) throws IOException {
+        statistics.addResponse(response.getStatus());
+    }
+
+    @Override
+    public Object aroundReadFrom(ReaderInterceptorContext context) throws IOException, WebApplicationException {
+        context.setInputStream(new FilterInputStream(context.getInputStream()) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) {
+                    statistics.addBytesIn(1);
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int count = super.read(b, off, len);
+                if (count > 0) {
+                    statistics.addBytesIn(count);
+                }
+                return count;
+            }
+
+            // Grizzly replays the raw chunk framing on reset() after a
+            // "100-continue" acknowledgement, so Jersey must not peek at
+            // the entity with mark and reset.
+            @Override
+            public boolean markSupported() {
+                return false;
+            }
+        });
+
+        return context.proceed();
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException, WebApplicationException {
+        context.setOutputStream(new FilterOutputStream(context.getOutputStream()) {
+            @Override
+            public void write(int b) throws IOException {
+                out.write(b);
+                statistics.addBytesOut(1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+                statistics.addBytesOut(len);
+            }
+        });
+
+        context.proceed();
+    }
+}
@@ -0,0 +1,86 @@
+package net.es.nsi.topology.translator.server;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The latency and errors injected into requests handled by an embedded
+ * server.  Settings may be changed while the server is running to simulate
+ * a server that slows down or starts to fail part way through a test.
+ *
+ * @author hacksaw
+ */
+public class FaultPolicy {
+    private volatile long latency = 0;
+    private volatile long jitter = 0;
+    private volatile double errorRate = 0;
+    private volatile int errorStatus = 503;
+
+    /**
+     * Set the time added before each request is processed.
+     *
+     * @param latency Fixed delay in milliseconds.
+     * @param jitter Maximum random delay in milliseconds added to the fixed delay.
+     * @return this policy.
+     */
+    public FaultPolicy withLatency(long latency, long jitter) {
+        if (latency < 0 || jitter < 0) {
+            throw new IllegalArgumentException("Latency and jitter cannot be negative.");
+        }
+        this.latency = latency;
+        this.jitter = jitter;
+        return this;
+    }
+
+    /**
+     * Set the fraction of requests that fail with an error status instead
+     * of being processed.
+     *
+     * @param errorRate Fraction of requests to fail, from 0 to 1.
+     * @param errorStatus HTTP status returned for failed requests.
+     * @return this policy.
+     */
+    public FaultPolicy withErrors(double errorRate, int errorStatus) {
+        if (errorRate < 0 || errorRate > 1) {
+            throw new IllegalArgumentException("Error rate must be between 0 and 1.");
+        }
+        this.errorRate = errorRate;
+        this.errorStatus = errorStatus;
+        return this;
+    }
+
+    /**
+     * Get the delay to apply to the next request.
+     *
+     * @return The delay in milliseconds.
+     */
+    public long getDelay() {
+        long j = jitter;
+        return latency + (j > 0 ? ThreadLocalRandom.current().nextLong(j + 1) : 0);
+    }
+
+    /**
+     * Determine if the next request should fail.
+     *
+     * @return true if an error should be returned.
+     */
+    public boolean isError() {
+        double rate = errorRate;
+        return rate > 0 && ThreadLocalRandom.current().nextDouble() < rate;
+    }
+
+    public long getLatency() {
+        return latency;
+    }
+
+    public long getJitter() {
+        return jitter;
+    }
+
+    public double getErrorRate() {
+        return errorRate;
+    }
+
+    public int getErrorStatus() {
+        return errorStatus;
+    }
+}
@@ -0,0 +1,161 @@
+package net.es.nsi.topology.translator.server;
+
+import com.google.common.hash.Hashing;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+import org.glassfish.jersey.server.ResourceConfig;
+
+/**
+ * An embedded stand-in for the NMWG TopologyViewer.  The topology of a
+ * domain is returned for "?domain=name" queries, and other query
+ * parameters are ignored.
+ *
+ * Topologies are either added directly, or replayed from a directory
+ * holding "nmwg-name.xml" files such as those written by the topology
+ * generator or the NMWG snapshot cache.  Responses carry ETag and
+ * Last-Modified validators and conditional requests are answered with
+ * 304 Not Modified when the topology is unchanged.
+ *
+ * @author hacksaw
+ */
+public class NmwgServer extends EmbeddedServer {
+    private final ConcurrentHashMap<String, Topology> topologies = new ConcurrentHashMap<>();
+    private volatile Optional<java.nio.file.Path> directory = Optional.empty();
+
+    /**
+     * Create a server on the specified base URI, for example
+     * "http://localhost:8400/nmwg/".
+     *
+     * @param baseUri The base URI of the server.
+     */
+    public NmwgServer(URI baseUri) {
+        super(baseUri);
+    }
+
+    /**
+     * Replay topologies from files named "nmwg-name.xml" in a directory.
+     * Topologies added directly take precedence.
+     *
+     * @param directory The directory holding the topologies.
+     * @return this server.
+     */
+    public NmwgServer withDirectory(java.nio.file.Path directory) {
+        this.directory = Optional.of(directory);
+        return this;
+    }
+
+    /**
+     * Add or replace the topology of a domain.
+     *
+     * @param domain The domain name used in queries.
+     * @param nmwg The NMWG document.
+     */
+    public void putTopology(String domain, byte[] nmwg) {
+        EntityTag etag = new EntityTag(Hashing.sha256().hashBytes(nmwg).toString());
+        topologies.put(domain, new Topology(nmwg, null, etag, new Date()));
+    }
+
+    /**
+     * Remove the topology of a domain so it is no longer found.
+     *
+     * @param domain The domain name used in queries.
+     */
+    public void removeTopology(String domain) {
+        topologies.remove(domain);
+    }
+
+    @Override
+    protected void configure(ResourceConfig config) {
+        config.register(new TopologyResource(this));
+    }
+
+    private Optional<Topology> getTopology(String domain) throws IOException {
+        Topology topology = topologies.get(domain);
+        if (topology != null) {
+            return Optional.of(topology);
+        }
+
+        if (!directory.isPresent()) {
+            return Optional.empty();
+        }
+
+        java.nio.file.Path file = directory.get().resolve("nmwg-" + domain.replaceAll("[^A-Za-z0-9._-]", "_") + ".xml");
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+
+        // Files are validated by size and modification time so a replaced
+        // file is seen as a new version without reading it.
+        long modified = Files.getLastModifiedTime(file).toMillis();
+        EntityTag etag = new EntityTag(Long.toHexString(Files.size(file)) + "-" + Long.toHexString(modified));
+        return Optional.of(new Topology(null, file, etag, new Date(modified)));
+    }
+
+    /**
+     * A topology held in memory or in a file.
+     */
+    private static class Topology {
+        private final byte[] nmwg;
+        private final java.nio.file.Path file;
+        private final EntityTag etag;
+        private final Date lastModified;
+
+        Topology(byte[] nmwg, java.nio.file.Path file, EntityTag etag, Date lastModified) {
+            this.nmwg = nmwg;
+            this.file = file;
+            this.etag = etag;
+            // HTTP dates have a resolution of one second.
+            this.lastModified = new Date(lastModified.getTime() / 1000 * 1000);
+        }
+
+        Object getEntity() {
+            return nmwg != null ? nmwg : file.toFile();
+        }
+    }
+
+    /**
+     * Answers NMWG topology queries.
+     */
+    @Path("/")
+    public static class TopologyResource {
+        private final NmwgServer server;
+
+        TopologyResource(NmwgServer server) {
+            this.server = server;
+        }
+
+        @GET
+        @Produces(MediaType.APPLICATION_XML)
+        public Response getTopology(@Context Request request, @QueryParam("domain") String domain) throws IOException {
+            if (domain == null || domain.isEmpty()) {
+                return Response.status(Response.Status.BAD_REQUEST).build();
+            }
+
+            Optional<Topology> topology = server.getTopology(domain);
+            if (!topology.isPresent()) {
+                return Response.status(Response.Status.NOT_FOUND).build();
+            }
+
+            Topology t = topology.get();
+            Response.ResponseBuilder builder = request.evaluatePreconditions(t.lastModified, t.etag);
+            if (builder == null) {
+                builder = Response.ok(t.getEntity(), MediaType.APPLICATION_XML_TYPE);
+            }
+
+            return builder.tag(t.etag).lastModified(t.lastModified).build();
+        }
+    }
+}
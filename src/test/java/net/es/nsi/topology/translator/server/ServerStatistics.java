@@ -0,0 +1,132 @@
+package net.es.nsi.topology.translator.server;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Throughput counters of an embedded server.  Counters are updated by the
+ * request threads without locking and can be read or reset at any time.
+ *
+ * @author hacksaw
+ */
+public class ServerStatistics {
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder injectedErrors = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final ConcurrentHashMap<String, LongAdder> methods = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+    private volatile long start = System.nanoTime();
+
+    void addRequest(String method) {
+        requests.increment();
+        methods.computeIfAbsent(method, k -> new LongAdder()).increment();
+    }
+
+    void addResponse(int status) {
+        statuses.computeIfAbsent(status, k -> new LongAdder()).increment();
+    }
+
+    void addInjectedError() {
+        injectedErrors.increment();
+    }
+
+    void addBytesIn(long bytes) {
+        bytesIn.add(bytes);
+    }
+
+    void addBytesOut(long bytes) {
+        bytesOut.add(bytes);
+    }
+
+    /**
+     * Reset all counters and restart the throughput interval.
+     */
+    public void reset() {
+        requests.reset();
+        injectedErrors.reset();
+        bytesIn.reset();
+        bytesOut.reset();
+        methods.clear();
+        statuses.clear();
+        start = System.nanoTime();
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    public long getInjectedErrors() {
+        return injectedErrors.sum();
+    }
+
+    public long getBytesIn() {
+        return bytesIn.sum();
+    }
+
+    public long getBytesOut() {
+        return bytesOut.sum();
+    }
+
+    /**
+     * Get the number of requests received with an HTTP method.
+     *
+     * @param method The HTTP method.
+     * @return The number of requests.
+     */
+    public long getRequests(String method) {
+        LongAdder count = methods.get(method);
+        return count == null ? 0 : count.sum();
+    }
+
+    /**
+     * Get the number of responses sent with an HTTP status.
+     *
+     * @param status The HTTP status code.
+     * @return The number of responses.
+     */
+    public long getResponses(int status) {
+        LongAdder count = statuses.get(status);
+        return count == null ? 0 : count.sum();
+    }
+
+    /**
+     * Get the average number of requests per second since the counters
+     * were last reset.
+     *
+     * @return Requests per second.
+     */
+    public double getRequestRate() {
+        return perSecond(getRequests());
+    }
+
+    /**
+     * Get the average number of bytes sent and received per second since the
+     * counters were last reset.
+     *
+     * @return Bytes per second.
+     */
+    public double getByteRate() {
+        return perSecond(getBytesIn() + getBytesOut());
+    }
+
+    private double perSecond(long value) {
+        long elapsed = System.nanoTime() - start;
+        return elapsed <= 0 ? 0 : value * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+    }
+
+    @Override
+    public String toString() {
+        Map<String, Long> byMethod = new TreeMap<>();
+        methods.forEach((k, v) -> byMethod.put(k, v.sum()));
+        Map<Integer, Long> byStatus = new TreeMap<>();
+        statuses.forEach((k, v) -> byStatus.put(k, v.sum()));
+
+        return String.format("requests=%d (%.1f/s), methods=%s, statuses=%s, injectedErrors=%d, bytesIn=%d, bytesOut=%d (%.0f bytes/s)",
+                getRequests(), getRequestRate(), byMethod, byStatus, getInjectedErrors(),
+                getBytesIn(), getBytesOut(), getByteRate());
+    }
+}
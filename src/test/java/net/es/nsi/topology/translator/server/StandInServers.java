@@ -0,0 +1,132 @@
+package net.es.nsi.topology.translator.server;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Paths;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.GnuParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+
+/**
+ * Runs the NMWG and DDS stand-in servers as a separate process, for
+ * example to serve generated topologies to translator runs.  The servers
+ * are test code, so they are run from the test classpath:
+ *
+ *   mvn test-compile
+ *   java -cp target/classes:target/test-classes:<dependencies> net.es.nsi.topology.translator.server.StandInServers -directory generated
+ *
+ * Server statistics are printed periodically and on exit.
+ *
+ * @author hacksaw
+ */
+public class StandInServers {
+    // Help line.
+    private static final String COMMAND_LINE = "java -cp target/classes:target/test-classes:<dependencies> net.es.nsi.topology.translator.server.StandInServers [-nmwg <url>] [-dds <url>] [-directory <directory>] [-latency <ms>] [-jitter <ms>] [-errors <rate>] [-status <code>] [-report <seconds>]";
+
+    // Command line arguments.
+    private static final String ARGNAME_NMWG = "nmwg";
+    private static final String ARGNAME_DDS = "dds";
+    private static final String ARGNAME_DIRECTORY = "directory";
+    private static final String ARGNAME_LATENCY = "latency";
+    private static final String ARGNAME_JITTER = "jitter";
+    private static final String ARGNAME_ERRORS = "errors";
+    private static final String ARGNAME_STATUS = "status";
+    private static final String ARGNAME_REPORT = "report";
+
+    // Default properties.
+    private static final String DEFAULT_NMWG = "http://localhost:8400/nmwg/";
+    private static final String DEFAULT_DDS = "http://localhost:8401/dds/";
+    private static final String DEFAULT_DIRECTORY = "generated";
+    private static final String DEFAULT_STATUS = "503";
+    private static final String DEFAULT_REPORT = "60";
+
+    /**
+     * Start the servers and run until the process is terminated.
+     *
+     * @param args
+     */
+    public static void main(String[] args) {
+        Options options = getOptions();
+        final NmwgServer nmwg;
+        final DdsServer dds;
+        long report;
+        try {
+            CommandLineParser parser = new GnuParser();
+            CommandLine cmd = parser.parse(options, args);
+
+            nmwg = new NmwgServer(URI.create(cmd.getOptionValue(ARGNAME_NMWG, DEFAULT_NMWG)))
+                    .withDirectory(Paths.get(cmd.getOptionValue(ARGNAME_DIRECTORY, DEFAULT_DIRECTORY)));
+            dds = new DdsServer(URI.create(cmd.getOptionValue(ARGNAME_DDS, DEFAULT_DDS)));
+
+            long latency = Long.parseLong(cmd.getOptionValue(ARGNAME_LATENCY, "0"));
+            long jitter = Long.parseLong(cmd.getOptionValue(ARGNAME_JITTER, "0"));
+            double errors = Double.parseDouble(cmd.getOptionValue(ARGNAME_ERRORS, "0"));
+            int status = Integer.parseInt(cmd.getOptionValue(ARGNAME_STATUS, DEFAULT_STATUS));
+            for (EmbeddedServer server : new EmbeddedServer[] { nmwg, dds }) {
+                server.getPolicy().withLatency(latency, jitter).withErrors(errors, status);
+            }
+
+            report = Long.parseLong(cmd.getOptionValue(ARGNAME_REPORT, DEFAULT_REPORT));
+        }
+        catch (ParseException | IllegalArgumentException ex) {
+            System.err.println("You did not provide the correct arguments, see usage below.\n");
+            System.err.println(ex.getMessage());
+            HelpFormatter formatter = new HelpFormatter();
+            formatter.printHelp(COMMAND_LINE, options);
+            return;
+        }
+
+        final CountDownLatch done = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            nmwg.stop();
+            dds.stop();
+            System.out.println("NMWG " + nmwg.getStatistics());
+            System.out.println("DDS " + dds.getStatistics());
+            done.countDown();
+        }, "stand-in-shutdown"));
+
+        try {
+            nmwg.start();
+            dds.start();
+            System.out.println("NMWG server on " + nmwg.getURI() + ", DDS server on " + dds.getURI());
+
+            long wait = report > 0 ? report : Long.MAX_VALUE;
+            while (!done.await(wait, TimeUnit.SECONDS)) {
+                System.out.println("NMWG " + nmwg.getStatistics());
+                System.out.println("DDS " + dds.getStatistics());
+            }
+        }
+        catch (IOException ex) {
+            System.err.println("Exiting: could not start servers " + ex.getMessage());
+            nmwg.stop();
+            dds.stop();
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Build supported command line options for parsing of parameter input.
+     *
+     * @return List of supported command line options.
+     */
+    private static Options getOptions() {
+        Options options = new Options();
+        options.addOption(new Option(ARGNAME_NMWG, true, "Base URL of the NMWG server (defaults to \"" + DEFAULT_NMWG + "\")."));
+        options.addOption(new Option(ARGNAME_DDS, true, "Base URL of the DDS server (defaults to \"" + DEFAULT_DDS + "\")."));
+        options.addOption(new Option(ARGNAME_DIRECTORY, true, "Directory of \"nmwg-<domain>.xml\" topologies to serve (defaults to \"" + DEFAULT_DIRECTORY + "\")."));
+        options.addOption(new Option(ARGNAME_LATENCY, true, "Fixed latency in milliseconds added to each request (defaults to 0)."));
+        options.addOption(new Option(ARGNAME_JITTER, true, "Maximum random latency in milliseconds added to each request (defaults to 0)."));
+        options.addOption(new Option(ARGNAME_ERRORS, true, "Fraction of requests failed with an error status, from 0 to 1 (defaults to 0)."));
+        options.addOption(new Option(ARGNAME_STATUS, true, "HTTP status of failed requests (defaults to " + DEFAULT_STATUS + ")."));
+        options.addOption(new Option(ARGNAME_REPORT, true, "Seconds between statistics reports, 0 for none (defaults to " + DEFAULT_REPORT + ")."));
+        return options;
+    }
+}
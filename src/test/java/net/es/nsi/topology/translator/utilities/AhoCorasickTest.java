@@ -0,0 +1,83 @@
+package net.es.nsi.topology.translator.utilities;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Tests the automaton reports the same patterns as String.contains().
+ *
+ * @author hacksaw
+ */
+public class AhoCorasickTest {
+    private static final String ALPHABET = "ab:-c";
+
+    private static String random(Random random, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void overlappingPatterns() {
+        AhoCorasick<String> automaton = AhoCorasick.<String>builder()
+                .add("he", "he").add("she", "she").add("his", "his").add("hers", "hers")
+                .build();
+
+        Set<String> results = new HashSet<>();
+        automaton.search("ushers", results);
+        assertEquals(new HashSet<>(Arrays.asList("he", "she", "hers")), results);
+
+        results.clear();
+        automaton.search("hi", results);
+        assertTrue(results.isEmpty());
+    }
+
+    @Test
+    public void emptyPatternMatchesEverything() {
+        AhoCorasick<Integer> automaton = AhoCorasick.<Integer>builder().add("", 1).add("x", 2).build();
+
+        Set<Integer> results = new HashSet<>();
+        automaton.search("", results);
+        assertEquals(1, results.size());
+        assertTrue(results.contains(1));
+    }
+
+    @Test
+    public void matchesContains() {
+        Random random = new Random(42);
+        for (int iteration = 0; iteration < 500; iteration++) {
+            List<String> patterns = new ArrayList<>();
+            AhoCorasick.Builder<Integer> builder = AhoCorasick.builder();
+            int count = 1 + random.nextInt(8);
+            for (int i = 0; i < count; i++) {
+                String pattern = random(random, random.nextInt(5));
+                patterns.add(pattern);
+                builder.add(pattern, i);
+            }
+
+            AhoCorasick<Integer> automaton = builder.build();
+            for (int test = 0; test < 50; test++) {
+                String text = random(random, random.nextInt(16));
+                Set<Integer> expected = new HashSet<>();
+                for (int i = 0; i < count; i++) {
+                    if (text.contains(patterns.get(i))) {
+                        expected.add(i);
+                    }
+                }
+
+                Set<Integer> results = new HashSet<>();
+                automaton.search(text, results);
+                assertEquals(patterns + " in " + text, expected, results);
+            }
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package net.es.nsi.topology.translator.writers;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyStore;
+import net.es.nsi.topology.translator.Configuration;
+import net.es.nsi.topology.translator.generator.NmwgGenerator;
+import net.es.nsi.topology.translator.http.RestClientRegistry;
+import net.es.nsi.topology.translator.jaxb.ConfigurationParser;
+import net.es.nsi.topology.translator.jaxb.NsaParser;
+import net.es.nsi.topology.translator.jaxb.configuration.CacheType;
+import net.es.nsi.topology.translator.jaxb.configuration.ConfigurationType;
+import net.es.nsi.topology.translator.jaxb.configuration.ObjectFactory;
+import net.es.nsi.topology.translator.jaxb.nsa.NsaType;
+import net.es.nsi.topology.translator.model.NsiConstants;
+import net.es.nsi.topology.translator.server.DdsServer;
+import net.es.nsi.topology.translator.server.ServerStatistics;
+import org.junit.After;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests the DdsWriter selects the DDS operations from the known document
+ * state, and keeps that state in step with the DDS, using the DDS stand-in.
+ *
+ * @author hacksaw
+ */
+public class DdsWriterTest {
+    private static final String PASSWORD = "changeit";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ObjectFactory factory = new ObjectFactory();
+
+    private DdsServer server;
+    private ServerStatistics statistics;
+    private NmwgGenerator generator;
+    private NsaType nsa;
+    private String key;
+
+    @Before
+    public void setup() throws Exception {
+        server = new DdsServer(URI.create("http://127.0.0.1:0/dds/"));
+        server.start();
+        statistics = server.getStatistics();
+
+        // The client needs key and trust stores, although they are not
+        // used for plain HTTP.
+        String keyStore = createKeyStore("keystore.jks");
+        String trustStore = createKeyStore("truststore.jks");
+        generator = new NmwgGenerator().withLinks(10)
+                .withDds(server.getURI().toString())
+                .withClient(keyStore, trustStore, PASSWORD);
+
+        nsa = generator.getNsa(0);
+        key = nsa.getId() + "/" + NsiConstants.NSI_DOC_TYPE_NSA_V1 + "/" + nsa.getId();
+    }
+
+    @After
+    public void teardown() {
+        RestClientRegistry.getInstance().closeAll();
+        server.stop();
+    }
+
+    private String createKeyStore(String name) throws Exception {
+        KeyStore ks = KeyStore.getInstance("JKS");
+        ks.load(null, null);
+        File file = folder.newFile(name);
+        try (OutputStream os = Files.newOutputStream(file.toPath())) {
+            ks.store(os, PASSWORD.toCharArray());
+        }
+        return file.getAbsolutePath();
+    }
+
+    /**
+     * Write a configuration for the generated domain publishing to the DDS
+     * stand-in, with DDS document state persisted in the cache directory.
+     */
+    private Configuration configure(String name, String cache) throws Exception {
+        Path basedir = folder.getRoot().toPath();
+        Path nsaFile = basedir.resolve("nsa.xml");
+        if (!Files.exists(nsaFile)) {
+            NsaParser.getInstance().writeFile(
+                    new net.es.nsi.topology.translator.jaxb.nsa.ObjectFactory().createNsa(nsa), nsaFile.toString());
+        }
+
+        ConfigurationType conf = generator.getConfiguration(0, "nsa.xml", "output");
+        CacheType cacheType = factory.createCacheType();
+        cacheType.setDirectory(cache);
+        conf.setCache(cacheType);
+
+        Path file = basedir.resolve(name);
+        ConfigurationParser.getInstance().writeFile(factory.createConfiguration(conf), file.toString());
+        return new Configuration(basedir.toString(), file.toString());
+    }
+
+    private DdsDocumentState getState(Configuration config) {
+        return DdsDocumentState.getInstance(config.getCacheDirectory(), config.getDds());
+    }
+
+    private void assertRequests(long head, long put, long post) {
+        assertEquals("HEAD", head, statistics.getRequests("HEAD"));
+        assertEquals("PUT", put, statistics.getRequests("PUT"));
+        assertEquals("POST", post, statistics.getRequests("POST"));
+        statistics.reset();
+    }
+
+    @Test
+    public void unknownStateAsksTheDds() throws Exception {
+        Configuration config = configure("config.xml", "cache");
+        DdsWriter writer = new DdsWriter(config.getDds(), config);
+        DdsDocumentState state = getState(config);
+        assertEquals(DdsDocumentState.Existence.UNKNOWN, state.getExistence(key));
+
+        // HEAD finds nothing so the document is added.
+        writer.writeNsa(nsa);
+        assertRequests(1, 0, 1);
+        assertEquals(DdsDocumentState.Existence.EXISTS, state.getExistence(key));
+        assertTrue(server.getDocument(nsa.getId(), NsiConstants.NSI_DOC_TYPE_NSA_V1, nsa.getId()).isPresent());
+
+        // The document is known to exist so it is updated directly.
+        writer.writeNsa(nsa);
+        assertRequests(0, 1, 0);
+        assertEquals(nsa.getVersion().toXMLFormat(), state.getVersion(key).get());
+    }
+
+    @Test
+    public void putFallsBackToPost() throws Exception {
+        Configuration config = configure("config.xml", "cache");
+        DdsWriter writer = new DdsWriter(config.getDds(), config);
+        writer.writeNsa(nsa);
+        statistics.reset();
+
+        // The DDS lost the document so the PUT fails with 404.
+        server.clear();
+        writer.writeNsa(nsa);
+        assertRequests(0, 1, 1);
+        assertEquals(DdsDocumentState.Existence.EXISTS, getState(config).getExistence(key));
+        assertEquals(1, server.getDocuments().size());
+    }
+
+    @Test
+    public void postFallsBackToPut() throws Exception {
+        Configuration config = configure("config.xml", "cache");
+        DdsWriter writer = new DdsWriter(config.getDds(), config);
+        writer.writeNsa(nsa);
+        statistics.reset();
+
+        // We believe the document is absent but the DDS has it, so the POST
+        // fails with 409.
+        DdsDocumentState state = getState(config);
+        state.setAbsent(key);
+        writer.writeNsa(nsa);
+        assertRequests(0, 1, 1);
+        assertEquals(DdsDocumentState.Existence.EXISTS, state.getExistence(key));
+    }
+
+    @Test
+    public void errorInvalidatesState() throws Exception {
+        Configuration config = configure("config.xml", "cache");
+        DdsWriter writer = new DdsWriter(config.getDds(), config);
+        writer.writeNsa(nsa);
+        statistics.reset();
+
+        server.getPolicy().withErrors(1, 500);
+        try {
+            writer.writeNsa(nsa);
+            fail("Write should fail when the DDS returns 500.");
+        }
+        catch (IOException ex) {
+            // Expected.
+        }
+        assertRequests(0, 1, 0);
+        assertEquals(DdsDocumentState.Existence.UNKNOWN, getState(config).getExistence(key));
+
+        // The state is checked again once the DDS recovers.
+        server.getPolicy().withErrors(0, 500);
+        writer.writeNsa(nsa);
+        assertRequests(1, 1, 0);
+        assertEquals(DdsDocumentState.Existence.EXISTS, getState(config).getExistence(key));
+    }
+
+    @Test
+    public void stateSurvivesRestart() throws Exception {
+        Configuration config = configure("config.xml", "cache");
+        new DdsWriter(config.getDds(), config).writeNsa(nsa);
+        statistics.reset();
+
+        // State is shared within a process, so a restart is simulated by
+        // loading a copy of the persisted state from a new cache directory.
+        Path cache = folder.getRoot().toPath().resolve("cache");
+        Path restarted = Files.createDirectories(folder.getRoot().toPath().resolve("restarted"));
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(cache, "dds-*.properties")) {
+            for (Path file : files) {
+                Files.copy(file, restarted.resolve(file.getFileName()));
+            }
+        }
+
+        Configuration restart = configure("restart.xml", "restarted");
+        assertEquals(DdsDocumentState.Existence.EXISTS, getState(restart).getExistence(key));
+
+        new DdsWriter(restart.getDds(), restart).writeNsa(nsa);
+        assertRequests(0, 1, 0);
+    }
+}